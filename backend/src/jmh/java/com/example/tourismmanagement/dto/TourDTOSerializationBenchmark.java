@@ -0,0 +1,64 @@
+package com.example.tourismmanagement.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TourDTOSerializationBenchmark {
+    @Param({"10", "1000", "100000"})
+    private int size;
+    
+    private ObjectMapper objectMapper;
+    private List<TourDTO> tours;
+    
+    @Setup
+    public void setUp() {
+        // same defaults Spring MVC applies to its message converters
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        tours = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            tours.add(tour(i));
+        }
+    }
+    
+    @Benchmark
+    public byte[] serializeTourList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(tours);
+    }
+    
+    static TourDTO tour(long id) {
+        TourDTO dto = new TourDTO();
+        dto.setId(id);
+        dto.setName("Tour Đà Lạt 4N3Đ #" + id);
+        dto.setDescription("Thành phố ngàn hoa với khí hậu mát mẻ quanh năm và cảnh quan thiên nhiên tuyệt đẹp");
+        dto.setDestination("Đà Lạt, Lâm Đồng");
+        dto.setDuration(4);
+        dto.setPrice(new BigDecimal("3200000.00"));
+        dto.setMaxParticipants(25);
+        dto.setAvailableSeats(22);
+        dto.setStartDate(LocalDate.of(2025, 1, 20));
+        dto.setEndDate(LocalDate.of(2025, 1, 23));
+        dto.setImageUrl("https://images.unsplash.com/photo-1583417267826-aebc4d1542e1?w=800");
+        dto.setStatus("AVAILABLE");
+        dto.setItinerary("Ngày 1: Đón khách tại sân bay, check-in khách sạn, tham quan chợ Đà Lạt\n"
+                + "Ngày 2: Tham quan Hồ Xuân Hương, Dinh Bảo Đại, Thiền viện Trúc Lâm");
+        dto.setIncluded("Vé máy bay khứ hồi\nKhách sạn 3 sao\nĂn sáng");
+        dto.setExcluded("Ăn trưa, tối\nChi phí cá nhân");
+        dto.setCategoryId(2L);
+        dto.setCategoryName("Du lịch núi");
+        return dto;
+    }
+}
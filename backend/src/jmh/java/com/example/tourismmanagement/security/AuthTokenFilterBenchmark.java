@@ -0,0 +1,67 @@
+package com.example.tourismmanagement.security;
+
+import com.example.tourismmanagement.repository.UserRepository;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthTokenFilterBenchmark {
+    @Param({"true", "false"})
+    public boolean verifiedCache;
+    
+    private AuthTokenFilter filter;
+    private String authorization;
+    
+    @Setup
+    public void setUp() {
+        JwtUtils jwtUtils = JwtUtilsBenchmark.newJwtUtils();
+        authorization = "Bearer " + jwtUtils.generateJwtToken(
+                JwtUtilsBenchmark.authentication(JwtUtilsBenchmark.BenchmarkUsers.customer()));
+        
+        UserRepository userRepository = Mockito.mock(UserRepository.class);
+        Mockito.when(userRepository.findAcceptedTokenVersion(Mockito.anyLong())).thenReturn(Optional.of(0));
+        
+        VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache();
+        ReflectionTestUtils.setField(verifiedTokenCache, "enabled", verifiedCache);
+        ReflectionTestUtils.setField(verifiedTokenCache, "maxSize", 50000L);
+        ReflectionTestUtils.setField(verifiedTokenCache, "maxTtlSeconds", 900L);
+        verifiedTokenCache.init();
+        
+        TokenVersionRegistry tokenVersionRegistry = new TokenVersionRegistry();
+        ReflectionTestUtils.setField(tokenVersionRegistry, "userRepository", userRepository);
+        ReflectionTestUtils.setField(tokenVersionRegistry, "verifiedTokenCache", verifiedTokenCache);
+        ReflectionTestUtils.setField(tokenVersionRegistry, "ttlSeconds", 30L);
+        ReflectionTestUtils.setField(tokenVersionRegistry, "maxUsers", 100000L);
+        tokenVersionRegistry.init();
+        
+        filter = new AuthTokenFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtils", jwtUtils);
+        ReflectionTestUtils.setField(filter, "tokenVersionRegistry", tokenVersionRegistry);
+        ReflectionTestUtils.setField(filter, "verifiedTokenCache", verifiedTokenCache);
+        ReflectionTestUtils.setField(filter, "stateless", true);
+    }
+    
+    @Benchmark
+    public Object authenticateRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/bookings/my-bookings");
+        request.addHeader("Authorization", authorization);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        SecurityContextHolder.clearContext();
+        return principal;
+    }
+}
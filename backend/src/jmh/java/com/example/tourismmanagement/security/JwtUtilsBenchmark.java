@@ -0,0 +1,79 @@
+package com.example.tourismmanagement.security;
+
+import com.example.tourismmanagement.model.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilsBenchmark {
+    static final String SECRET = "tourismManagementSecretKeyForJWTTokenGenerationAndValidation2024VeryLongSecretKey";
+    
+    private JwtUtils jwtUtils;
+    private Authentication authentication;
+    private String token;
+    
+    @Setup
+    public void setUp() {
+        jwtUtils = newJwtUtils();
+        authentication = authentication(BenchmarkUsers.customer());
+        token = jwtUtils.generateJwtToken(authentication);
+    }
+    
+    @Benchmark
+    public String generateJwtToken() {
+        return jwtUtils.generateJwtToken(authentication);
+    }
+    
+    @Benchmark
+    public boolean validateJwtToken() {
+        return jwtUtils.validateJwtToken(token);
+    }
+    
+    @Benchmark
+    public Object parseClaims() {
+        return jwtUtils.parseClaims(token);
+    }
+    
+    @Benchmark
+    public String getUserNameFromJwtToken() {
+        return jwtUtils.getUserNameFromJwtToken(token);
+    }
+    
+    static JwtUtils newJwtUtils() {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 86400000);
+        jwtUtils.init();
+        return jwtUtils;
+    }
+    
+    static Authentication authentication(User user) {
+        UserDetailsImpl principal = UserDetailsImpl.build(user);
+        return new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+    }
+    
+    static final class BenchmarkUsers {
+        private BenchmarkUsers() {
+        }
+        
+        static User customer() {
+            User user = new User();
+            user.setId(3L);
+            user.setUsername("customer1");
+            user.setEmail("customer@example.com");
+            user.setPassword("$2a$10$N.zmdr9k7uOCQb376NoUnuTJ8iAt6Z5EHsM8lE9lBOsl7iKTVEFDi");
+            user.setFullName("John Doe");
+            user.setRole(User.Role.CUSTOMER);
+            return user;
+        }
+    }
+}
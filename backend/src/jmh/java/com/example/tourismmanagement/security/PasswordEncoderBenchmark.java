@@ -0,0 +1,37 @@
+package com.example.tourismmanagement.security;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded BCrypt verification, so the score reads directly as logins per second per core.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(1)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+    private static final String PASSWORD = "password123";
+    
+    @Param({"8", "10", "12"})
+    public int strength;
+    
+    private BCryptPasswordEncoder encoder;
+    private String encodedPassword;
+    
+    @Setup
+    public void setUp() {
+        encoder = new BCryptPasswordEncoder(strength);
+        encodedPassword = encoder.encode(PASSWORD);
+    }
+    
+    @Benchmark
+    public boolean verifyPassword() {
+        return encoder.matches(PASSWORD, encodedPassword);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.tourismmanagement.security;
+
+import com.example.tourismmanagement.model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserDetailsImplBenchmark {
+    private User user;
+    
+    @Setup
+    public void setUp() {
+        user = JwtUtilsBenchmark.BenchmarkUsers.customer();
+    }
+    
+    @Benchmark
+    public UserDetailsImpl build() {
+        return UserDetailsImpl.build(user);
+    }
+}
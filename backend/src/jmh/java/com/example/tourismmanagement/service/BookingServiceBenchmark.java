@@ -0,0 +1,43 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.dto.BookingDTO;
+import com.example.tourismmanagement.model.Booking;
+import com.example.tourismmanagement.model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingServiceBenchmark {
+    private BookingService bookingService;
+    private Booking booking;
+    
+    @Setup
+    public void setUp() {
+        bookingService = new BookingService();
+        
+        User customer = new User();
+        customer.setId(3L);
+        customer.setUsername("customer1");
+        customer.setFullName("John Doe");
+        
+        booking = new Booking();
+        booking.setId(1L);
+        booking.setTour(TourServiceBenchmark.BenchmarkData.tour(1L));
+        booking.setCustomer(customer);
+        booking.setNumberOfPeople(2);
+        booking.setTotalAmount(new BigDecimal("9000000.00"));
+        booking.setSpecialRequests("Cần phòng đôi, không ăn cay");
+    }
+    
+    @Benchmark
+    public BookingDTO convertToDTO() {
+        return bookingService.convertToDTO(booking);
+    }
+}
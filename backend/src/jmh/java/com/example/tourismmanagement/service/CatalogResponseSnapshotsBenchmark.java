@@ -0,0 +1,73 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.dto.TourDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Per-request cost of GET /api/tours before and after response snapshots: serializing the cached
+ * DTOs on every call (and gzipping them, as the proxy in front of the API does) against picking a
+ * prebuilt body. Run with {@code -prof gc} for the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CatalogResponseSnapshotsBenchmark {
+    @Param({"500"})
+    public int tours;
+    
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final TourService tourService = new TourService();
+    private List<TourDTO> catalog;
+    private CatalogResponseSnapshots.Snapshot snapshot;
+    
+    @Setup
+    public void setUp() throws IOException {
+        catalog = new ArrayList<>(tours);
+        for (long id = 1; id <= tours; id++) {
+            TourDTO dto = tourService.convertToDTO(TourServiceBenchmark.BenchmarkData.tour(id));
+            dto.setCreatedAt(LocalDateTime.of(2025, 1, 1, 8, 0));
+            dto.setUpdatedAt(LocalDateTime.of(2025, 1, 2, 9, 30));
+            dto.setVersion(id);
+            catalog.add(dto);
+        }
+        snapshot = CatalogResponseSnapshots.Snapshot.of(1, objectMapper.writeValueAsBytes(catalog));
+    }
+    
+    @Benchmark
+    public byte[] serializePerRequest() throws IOException {
+        return objectMapper.writeValueAsBytes(catalog);
+    }
+    
+    @Benchmark
+    public byte[] serializeAndGzipPerRequest() throws IOException {
+        byte[] plain = objectMapper.writeValueAsBytes(catalog);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(plain.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(plain);
+        }
+        return out.toByteArray();
+    }
+    
+    @Benchmark
+    public ResponseEntity<byte[]> snapshot() {
+        CatalogResponseSnapshots.Encoding encoding = CatalogResponseSnapshots.Encoding.negotiate("gzip, deflate, br");
+        return snapshot.toResponse(encoding);
+    }
+}
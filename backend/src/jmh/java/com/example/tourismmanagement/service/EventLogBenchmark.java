@@ -0,0 +1,77 @@
+package com.example.tourismmanagement.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Appends relay-sized batches of booking events to a fresh log. {@code appendAndForce} is what the
+ * relay pays per batch; {@code appendAndDeliver} waits until a subscriber has been handed the batch,
+ * which is the lag a consumer sees once the outbox row has been picked up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventLogBenchmark {
+    @Param({"1", "500"})
+    public int batchSize;
+    
+    private EventLog eventLog;
+    private EventLog.Subscription subscription;
+    private volatile long delivered;
+    private Path dir;
+    private List<EventLog.Entry> batch;
+    
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("event-log-bench");
+        eventLog = new EventLog();
+        ReflectionTestUtils.setField(eventLog, "dir", dir.toString());
+        ReflectionTestUtils.setField(eventLog, "segmentBytes", 64 * 1024 * 1024);
+        eventLog.init();
+        subscription = eventLog.subscribe("bench", 0, 1000, records -> delivered = records.get(records.size() - 1).getOffset() + 1);
+        
+        batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            String payload = "{\"id\":" + i + ",\"tourId\":42,\"customerId\":7,\"numberOfPeople\":2,"
+                    + "\"totalAmount\":9000000.00,\"status\":\"PENDING\",\"paymentStatus\":\"PENDING\"}";
+            batch.add(new EventLog.Entry(i, "BOOKING_CREATED", i, System.currentTimeMillis(), payload));
+        }
+    }
+    
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        subscription.close();
+        eventLog.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+    
+    @Benchmark
+    public long appendAndForce() {
+        long next = eventLog.append(batch);
+        eventLog.force();
+        return next;
+    }
+    
+    @Benchmark
+    public long appendAndDeliver() {
+        long next = eventLog.append(batch) + batch.size();
+        while (delivered < next) {
+            Thread.onSpinWait();
+        }
+        return next;
+    }
+}
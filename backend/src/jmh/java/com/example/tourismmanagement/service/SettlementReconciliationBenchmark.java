@@ -0,0 +1,77 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.dto.PaymentSettlementRow;
+import com.example.tourismmanagement.dto.ReconciliationReport;
+import com.example.tourismmanagement.model.Payment;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full reconciliation of a generated settlement file against an in-memory, sorted payment list
+ * that stands in for the database. About one line in a hundred differs from its payment.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SettlementReconciliationBenchmark {
+    @Param({"1000000"})
+    public int lines;
+    
+    private final SettlementReconciliationService service = new SettlementReconciliationService();
+    private List<PaymentSettlementRow> payments;
+    private List<String> ids;
+    private Path file;
+    
+    @Setup
+    public void setUp() throws IOException {
+        ReflectionTestUtils.setField(service, "chunkSize", 10000);
+        Random random = new Random(42);
+        payments = new ArrayList<>(lines);
+        file = Files.createTempFile("settlement", ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            writer.write("transaction_id,amount,status\n");
+            for (int i = 0; i < lines; i++) {
+                String id = String.format("TXN%012d", i);
+                long cents = 100000 + random.nextInt(50000000);
+                payments.add(new PaymentSettlementRow(id, BigDecimal.valueOf(cents, 2), Payment.PaymentStatus.COMPLETED));
+                long fileCents = random.nextInt(100) == 0 ? cents + 1 : cents;
+                writer.write(id + ',' + BigDecimal.valueOf(fileCents, 2).toPlainString() + ",COMPLETED\n");
+            }
+        }
+        ids = payments.stream().map(PaymentSettlementRow::getTransactionId).toList();
+        System.out.printf("%nsettlement file of %d lines: %d MiB%n", lines, Files.size(file) >> 20);
+    }
+    
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+    
+    @Benchmark
+    public ReconciliationReport reconcile() throws IOException {
+        return service.reconcile(file, this::fetchFrom, Writer.nullWriter());
+    }
+    
+    private List<PaymentSettlementRow> fetchFrom(String transactionId, int limit) {
+        int from = Collections.binarySearch(ids, transactionId);
+        from = from < 0 ? -from - 1 : from;
+        // a copy, as a query would return
+        return new ArrayList<>(payments.subList(from, Math.min(from + limit, payments.size())));
+    }
+}
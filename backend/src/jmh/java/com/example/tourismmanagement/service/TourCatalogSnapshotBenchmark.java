@@ -0,0 +1,78 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.dto.TourSearchCriteria;
+import com.example.tourismmanagement.dto.TourSnapshotRow;
+import com.example.tourismmanagement.model.Tour;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filter latency over the columnar snapshot. The column footprint is printed once per fork;
+ * the id lists returned here are the only per-call allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TourCatalogSnapshotBenchmark {
+    private static final long[] PRICE_BUCKETS = {1000000L, 3000000L, 5000000L, 10000000L};
+    
+    @Param({"100000"})
+    public int tours;
+    
+    private TourCatalogSnapshot snapshot;
+    private TourSearchCriteria criteria;
+    
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<TourSnapshotRow> rows = new ArrayList<>(tours);
+        LocalDate firstDay = LocalDate.of(2025, 1, 1);
+        for (long id = 1; id <= tours; id++) {
+            int duration = 1 + random.nextInt(7);
+            LocalDate start = firstDay.plusDays(random.nextInt(365));
+            Tour.TourStatus status = random.nextInt(10) == 0 ? Tour.TourStatus.FULL : Tour.TourStatus.AVAILABLE;
+            long category = 1 + random.nextInt(12);
+            rows.add(new TourSnapshotRow(id, BigDecimal.valueOf(500000L + random.nextInt(200) * 100000L),
+                    random.nextInt(40), start, start.plusDays(duration - 1), duration, status, category,
+                    "Category " + category, "Destination " + category, 0L));
+        }
+        
+        snapshot = new TourCatalogSnapshot();
+        snapshot.rebuild(rows);
+        System.out.printf("%nsnapshot of %d tours: %d KiB of columns%n", tours, snapshot.estimatedBytes() / 1024);
+        
+        criteria = new TourSearchCriteria();
+        criteria.setStatus("AVAILABLE");
+        criteria.setMinSeats(4);
+        criteria.setMinPrice(new BigDecimal("2000000"));
+        criteria.setMaxPrice(new BigDecimal("8000000"));
+        criteria.setStartDate(LocalDate.of(2025, 6, 1));
+        criteria.setEndDate(LocalDate.of(2025, 8, 31));
+    }
+    
+    @Benchmark
+    public Object filterById() {
+        return snapshot.page(criteria, null, null, null, 0, 20);
+    }
+    
+    @Benchmark
+    public Object filterSortedByPrice() {
+        return snapshot.page(criteria, null, "price", "asc", 0, 20);
+    }
+    
+    @Benchmark
+    public Object facets() {
+        snapshot.categoryFacet(criteria, null);
+        snapshot.monthCounts(criteria, null);
+        return snapshot.priceCounts(criteria, null, PRICE_BUCKETS);
+    }
+}
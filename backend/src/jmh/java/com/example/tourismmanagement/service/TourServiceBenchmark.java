@@ -0,0 +1,72 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.dto.TourDTO;
+import com.example.tourismmanagement.model.Category;
+import com.example.tourismmanagement.model.Tour;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TourServiceBenchmark {
+    private TourService tourService;
+    private Tour tour;
+    private TourDTO tourDTO;
+    
+    @Setup
+    public void setUp() {
+        tourService = new TourService();
+        tour = BenchmarkData.tour(1L);
+        tourDTO = tourService.convertToDTO(tour);
+        // categoryId would need a repository lookup; the benchmark covers the mapping itself
+        tourDTO.setCategoryId(null);
+    }
+    
+    @Benchmark
+    public TourDTO convertToDTO() {
+        return tourService.convertToDTO(tour);
+    }
+    
+    @Benchmark
+    public Tour convertToEntity() {
+        return tourService.convertToEntity(tourDTO);
+    }
+    
+    static final class BenchmarkData {
+        private BenchmarkData() {
+        }
+        
+        static Tour tour(Long id) {
+            Category category = new Category();
+            category.setId(1L);
+            category.setName("Du lịch biển");
+            
+            Tour tour = new Tour();
+            tour.setId(id);
+            tour.setName("Tour Phú Quốc 3N2Đ");
+            tour.setDescription("Khám phá đảo ngọc Phú Quốc với bãi biển tuyệt đẹp và những trải nghiệm độc đáo");
+            tour.setDestination("Phú Quốc, Kiên Giang");
+            tour.setDuration(3);
+            tour.setPrice(new BigDecimal("4500000.00"));
+            tour.setMaxParticipants(20);
+            tour.setAvailableSeats(18);
+            tour.setStartDate(LocalDate.of(2025, 1, 15));
+            tour.setEndDate(LocalDate.of(2025, 1, 17));
+            tour.setImageUrl("https://images.unsplash.com/photo-1559827260-dc66d52bef19?w=800");
+            tour.setItinerary("Ngày 1: Đón khách tại sân bay, check-in resort, tham quan chợ đêm Phú Quốc\n"
+                    + "Ngày 2: Tham quan Vinpearl Safari, tắm biển Bãi Trường\n"
+                    + "Ngày 3: Tham quan nhà tù Phú Quốc, mua sắm, về lại TP.HCM");
+            tour.setIncluded("Vé máy bay khứ hồi\nKhách sạn 3 sao\nĂn sáng\nHướng dẫn viên");
+            tour.setExcluded("Ăn trưa, tối\nChi phí cá nhân\nĐồ uống");
+            tour.setCategory(category);
+            return tour;
+        }
+    }
+}
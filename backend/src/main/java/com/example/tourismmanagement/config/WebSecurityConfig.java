@@ -1,11 +1,14 @@
 package com.example.tourismmanagement.config;
 
 import com.example.tourismmanagement.security.AuthTokenFilter;
+import com.example.tourismmanagement.security.IdempotencyFilter;
 import com.example.tourismmanagement.security.UserDetailsServiceImpl;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -33,12 +36,26 @@ public class WebSecurityConfig {
     @Autowired
     private AuthTokenFilter authTokenFilter;
     
+    @Autowired
+    private IdempotencyFilter idempotencyFilter;
+    
     @Value("${cors.allowed.origins}")
     private String allowedOrigins;
     
+    @Value("${security.bcrypt.strength:10}")
+    private int bcryptStrength;
+    
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        String strengthPrefix = String.format("%02d", bcryptStrength);
+        return new BCryptPasswordEncoder(bcryptStrength) {
+            // Re-hash whenever the stored cost differs, so lowering the strength takes effect too
+            @Override
+            public boolean upgradeEncoding(String encodedPassword) {
+                return encodedPassword != null && encodedPassword.length() > 7
+                        && !encodedPassword.startsWith(strengthPrefix, 4);
+            }
+        };
     }
     
     @Bean
@@ -46,6 +63,7 @@ public class WebSecurityConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setUserDetailsPasswordService(userDetailsService);
         return authProvider;
     }
     
@@ -60,15 +78,22 @@ public class WebSecurityConfig {
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
+                // the request that opened a stream was already authorized; its completion dispatch carries no token
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/api/tours/**").permitAll()
                 .requestMatchers("/api/categories/**").permitAll()
+                .requestMatchers("/api/payments/callback").permitAll()
+                .requestMatchers("/api/stream/tours").permitAll()
+                .requestMatchers(HttpMethod.GET, "/api/images/**").permitAll()
                 .requestMatchers("/api/admin/**").hasRole("ADMIN")
                 .anyRequest().authenticated()
             );
         
         http.authenticationProvider(authenticationProvider());
         http.addFilterBefore(authTokenFilter, UsernamePasswordAuthenticationFilter.class);
+        // after authentication, so idempotency keys are scoped to the calling user
+        http.addFilterAfter(idempotencyFilter, AuthTokenFilter.class);
         
         return http.build();
     }
@@ -1,14 +1,19 @@
 package com.example.tourismmanagement.controller;
 
-import com.example.tourismmanagement.dto.JwtResponse;
 import com.example.tourismmanagement.dto.LoginRequest;
 import com.example.tourismmanagement.dto.MessageResponse;
 import com.example.tourismmanagement.dto.RegisterRequest;
 import com.example.tourismmanagement.service.AuthService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
@@ -18,12 +23,33 @@ public class AuthController {
     private AuthService authService;
     
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest loginRequest) {
+    public CompletableFuture<ResponseEntity<?>> login(@Valid @RequestBody LoginRequest loginRequest) {
+        return authService.login(loginRequest)
+                .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                .exceptionally(this::loginFailed);
+    }
+    
+    private ResponseEntity<?> loginFailed(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause() : failure;
+        if (cause instanceof ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(new MessageResponse(e.getReason()));
+        }
+        if (cause instanceof TimeoutException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new MessageResponse("Login is taking too long, please try again shortly"));
+        }
+        return ResponseEntity.badRequest().body(new MessageResponse("Error: " + cause.getMessage()));
+    }
+    
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(value = "Authorization", required = false) String authorization) {
         try {
-            JwtResponse response = authService.login(loginRequest);
-            return ResponseEntity.ok(response);
+            String token = authorization != null && authorization.startsWith("Bearer ")
+                    ? authorization.substring(7) : null;
+            return ResponseEntity.ok(authService.logout(token));
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
         }
     }
     
@@ -1,15 +1,28 @@
 package com.example.tourismmanagement.controller;
 
 import com.example.tourismmanagement.dto.BookingDTO;
+import com.example.tourismmanagement.dto.MessageResponse;
+import com.example.tourismmanagement.model.Booking;
+import com.example.tourismmanagement.service.BookingExportService;
 import com.example.tourismmanagement.service.BookingService;
+import com.example.tourismmanagement.service.HotTourBookingPipeline;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
@@ -18,11 +31,43 @@ public class BookingController {
     @Autowired
     private BookingService bookingService;
     
+    @Autowired
+    private HotTourBookingPipeline hotTourBookingPipeline;
+    
+    @Autowired
+    private BookingExportService bookingExportService;
+    
     @PostMapping
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<BookingDTO> createBooking(@Valid @RequestBody BookingDTO bookingDTO, Authentication authentication) {
+    public ResponseEntity<?> createBooking(@Valid @RequestBody BookingDTO bookingDTO, Authentication authentication) {
         String username = authentication.getName();
-        return ResponseEntity.ok(bookingService.createBooking(bookingDTO, username));
+        try {
+            if (hotTourBookingPipeline.isHot(bookingDTO.getTourId())) {
+                return ResponseEntity.ok(hotTourBookingPipeline.submit(bookingDTO, username));
+            }
+            return ResponseEntity.ok(bookingService.createBooking(bookingDTO, username));
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(new MessageResponse(e.getReason()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/hot-tours")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Set<Long>> getHotTours() {
+        return ResponseEntity.ok(hotTourBookingPipeline.getHotTourIds());
+    }
+    
+    @PutMapping("/hot-tours/{tourId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> setHotTour(@PathVariable Long tourId, @RequestParam boolean enabled) {
+        if (enabled) {
+            hotTourBookingPipeline.enable(tourId);
+        } else {
+            hotTourBookingPipeline.disable(tourId);
+        }
+        return ResponseEntity.ok().build();
     }
     
     @GetMapping("/my-bookings")
@@ -32,10 +77,49 @@ public class BookingController {
         return ResponseEntity.ok(bookingService.getCustomerBookings(username));
     }
     
+    // Paged when a cursor or size is sent; the bare path still returns the full list for older clients
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
-    public ResponseEntity<List<BookingDTO>> getAllBookings() {
-        return ResponseEntity.ok(bookingService.getAllBookings());
+    public ResponseEntity<?> getAllBookings(@RequestParam(required = false) String cursor,
+                                            @RequestParam(required = false) Integer size,
+                                            @RequestParam(defaultValue = "desc") String direction) {
+        if (cursor == null && size == null) {
+            return ResponseEntity.ok(bookingService.getAllBookings());
+        }
+        return ResponseEntity.ok(bookingService.getBookingsPage(cursor, size, direction));
+    }
+    
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    public ResponseEntity<StreamingResponseBody> exportBookings(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String status) {
+        // validated here: once the body streams, the 200 is committed and an error could only truncate it
+        BookingExportService.Format exportFormat;
+        Booking.BookingStatus bookingStatus;
+        try {
+            exportFormat = BookingExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown export format: " + format);
+        }
+        try {
+            bookingStatus = status != null ? Booking.BookingStatus.valueOf(status.toUpperCase()) : null;
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown booking status: " + status);
+        }
+        MediaType mediaType = exportFormat == BookingExportService.Format.CSV
+                ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : new MediaType("application", "x-ndjson", StandardCharsets.UTF_8);
+        String filename = "bookings." + format.toLowerCase();
+        
+        StreamingResponseBody body = outputStream -> bookingExportService.export(exportFormat, from, to, bookingStatus,
+                outputStream);
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
     }
     
     @GetMapping("/{id}")
@@ -44,6 +128,19 @@ public class BookingController {
         return ResponseEntity.ok(bookingService.getBookingById(id));
     }
     
+    @PutMapping("/{id}/cancel")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> cancelBooking(@PathVariable Long id, Authentication authentication) {
+        boolean privileged = authentication.getAuthorities().stream()
+                .anyMatch(authority -> authority.getAuthority().equals("ROLE_ADMIN")
+                        || authority.getAuthority().equals("ROLE_STAFF"));
+        try {
+            return ResponseEntity.ok(bookingService.cancelBooking(id, authentication.getName(), privileged));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+    }
+    
     @PutMapping("/{id}/status")
     @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
     public ResponseEntity<BookingDTO> updateBookingStatus(@PathVariable Long id, @RequestParam String status) {
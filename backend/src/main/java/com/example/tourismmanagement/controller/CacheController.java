@@ -0,0 +1,30 @@
+package com.example.tourismmanagement.controller;
+
+import com.example.tourismmanagement.service.TourCatalogCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/admin/cache")
+public class CacheController {
+    @Autowired
+    private TourCatalogCache tourCatalogCache;
+    
+    @GetMapping("/tours")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getTourCacheStats() {
+        return ResponseEntity.ok(tourCatalogCache.getStats());
+    }
+    
+    @DeleteMapping("/tours")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> clearTourCache() {
+        tourCatalogCache.invalidateAll();
+        return ResponseEntity.ok().build();
+    }
+}
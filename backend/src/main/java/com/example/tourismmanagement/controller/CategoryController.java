@@ -1,11 +1,15 @@
 package com.example.tourismmanagement.controller;
 
 import com.example.tourismmanagement.model.Category;
+import com.example.tourismmanagement.service.CatalogResponseSnapshots;
 import com.example.tourismmanagement.service.CategoryService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -16,14 +20,34 @@ public class CategoryController {
     @Autowired
     private CategoryService categoryService;
     
+    @Autowired
+    private CatalogResponseSnapshots catalogResponseSnapshots;
+    
     @GetMapping
-    public ResponseEntity<List<Category>> getAllCategories() {
-        return ResponseEntity.ok(categoryService.getAllCategories());
+    public ResponseEntity<?> getAllCategories(WebRequest webRequest) {
+        long version = categoryService.getVersion();
+        CatalogResponseSnapshots.Snapshot snapshot = catalogResponseSnapshots.getCategories(version);
+        CatalogResponseSnapshots.Encoding encoding = snapshot != null
+                ? CatalogResponseSnapshots.Encoding.negotiate(webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING))
+                : CatalogResponseSnapshots.Encoding.IDENTITY;
+        if (webRequest.checkNotModified(etag(version, encoding), categoryService.getLastModified())) {
+            return null;
+        }
+        if (snapshot != null) {
+            return snapshot.toResponse(encoding);
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .body(categoryService.getAllCategories());
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<Category> getCategoryById(@PathVariable Long id) {
-        return ResponseEntity.ok(categoryService.getCategoryById(id));
+    public ResponseEntity<Category> getCategoryById(@PathVariable Long id, WebRequest webRequest) {
+        long version = categoryService.getVersion();
+        if (webRequest.checkNotModified(etag(version, CatalogResponseSnapshots.Encoding.IDENTITY),
+                categoryService.getLastModified())) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(categoryService.getCategoryById(id));
     }
     
     @PostMapping
@@ -44,4 +68,9 @@ public class CategoryController {
         categoryService.deleteCategory(id);
         return ResponseEntity.ok().build();
     }
+    
+    // categories change rarely, so one counter validates the list and every single category
+    private static String etag(long version, CatalogResponseSnapshots.Encoding encoding) {
+        return "\"categories-" + version + encoding.etagSuffix() + "\"";
+    }
 }
@@ -0,0 +1,52 @@
+package com.example.tourismmanagement.controller;
+
+import com.example.tourismmanagement.dto.MessageResponse;
+import com.example.tourismmanagement.service.LiveUpdateService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/stream")
+public class LiveUpdateController {
+    @Autowired
+    private LiveUpdateService liveUpdateService;
+    
+    // "seats" events for the given tours
+    @GetMapping(value = "/tours", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> streamTours(@RequestParam List<Long> ids) {
+        try {
+            return ResponseEntity.ok(liveUpdateService.subscribeTours(ids));
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).contentType(MediaType.APPLICATION_JSON)
+                    .body(new MessageResponse(e.getReason()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+                    .body(new MessageResponse(e.getMessage()));
+        }
+    }
+    
+    // "booking" events for the caller's bookings, plus "seats" events for any tours given
+    @GetMapping(value = "/bookings", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> streamMyBookings(@RequestParam(required = false) List<Long> tourIds,
+                                              Authentication authentication) {
+        try {
+            return ResponseEntity.ok(liveUpdateService.subscribeBookings(authentication.getName(),
+                    tourIds != null ? tourIds : List.of()));
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).contentType(MediaType.APPLICATION_JSON)
+                    .body(new MessageResponse(e.getReason()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+                    .body(new MessageResponse(e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.tourismmanagement.controller;
+
+import com.example.tourismmanagement.dto.MessageResponse;
+import com.example.tourismmanagement.dto.PaymentCallbackRequest;
+import com.example.tourismmanagement.service.PaymentIngestionService;
+import com.example.tourismmanagement.service.SettlementReconciliationService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+@RestController
+@RequestMapping("/api/payments")
+public class PaymentController {
+    @Autowired
+    private PaymentIngestionService paymentIngestionService;
+    
+    @Autowired
+    private SettlementReconciliationService settlementReconciliationService;
+    
+    @Value("${payment.gateway.token}")
+    private String gatewayToken;
+    
+    // Called by the payment gateway (or a local stub), authenticated by the shared gateway token
+    @PostMapping("/callback")
+    public ResponseEntity<?> callback(@RequestHeader(value = "X-Gateway-Token", required = false) String token,
+                                      @Valid @RequestBody PaymentCallbackRequest request) {
+        if (token == null || !MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+                gatewayToken.getBytes(StandardCharsets.UTF_8))) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new MessageResponse("Invalid gateway token"));
+        }
+        try {
+            boolean accepted = paymentIngestionService.accept(request);
+            return ResponseEntity.accepted().body(new MessageResponse(accepted ? "Accepted" : "Duplicate"));
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(new MessageResponse(e.getReason()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+    }
+    
+    // Reconciles a file already dropped into the settlement directory; only its name is accepted
+    @PostMapping("/reconciliations")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> reconcile(@RequestParam String file) {
+        try {
+            return ResponseEntity.ok(settlementReconciliationService.reconcile(file));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+    }
+}
@@ -1,13 +1,26 @@
 package com.example.tourismmanagement.controller;
 
+import com.example.tourismmanagement.dto.MessageResponse;
 import com.example.tourismmanagement.dto.TourDTO;
+import com.example.tourismmanagement.dto.TourSearchCriteria;
+import com.example.tourismmanagement.model.Tour;
+import com.example.tourismmanagement.service.AvailabilityCalendar;
+import com.example.tourismmanagement.service.CatalogResponseSnapshots;
+import com.example.tourismmanagement.service.TourSearchService;
 import com.example.tourismmanagement.service.TourService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.List;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
@@ -17,19 +30,102 @@ public class TourController {
     @Autowired
     private TourService tourService;
     
+    @Autowired
+    private TourSearchService tourSearchService;
+    
+    @Autowired
+    private AvailabilityCalendar availabilityCalendar;
+    
+    @Autowired
+    private CatalogResponseSnapshots catalogResponseSnapshots;
+    
+    // Paged when a cursor or size is sent; the bare path still returns the full list for older clients
     @GetMapping
-    public ResponseEntity<List<TourDTO>> getAllTours() {
-        return ResponseEntity.ok(tourService.getAllTours());
+    public ResponseEntity<?> getAllTours(@RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) Integer size,
+                                         @RequestParam(defaultValue = "createdAt") String sort,
+                                         @RequestParam(defaultValue = "asc") String direction,
+                                         WebRequest webRequest) {
+        // the version is read before the tours, so a 304 never confirms an older listing
+        long version = tourService.getCatalogVersion();
+        if (cursor == null && size == null) {
+            CatalogResponseSnapshots.Snapshot snapshot = catalogResponseSnapshots.getTours(version);
+            CatalogResponseSnapshots.Encoding encoding = snapshot != null
+                    ? CatalogResponseSnapshots.Encoding.negotiate(webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING))
+                    : CatalogResponseSnapshots.Encoding.IDENTITY;
+            String etag = "\"tours-" + version + encoding.etagSuffix() + "\"";
+            if (webRequest.checkNotModified(etag, tourService.getCatalogLastModified())) {
+                return null;
+            }
+            if (snapshot != null) {
+                return snapshot.toResponse(encoding);
+            }
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .body(tourService.getAllTours());
+        }
+        if (webRequest.checkNotModified("\"tours-" + version + "\"", tourService.getCatalogLastModified())) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache())
+                .body(tourService.getToursPage(cursor, size, sort, direction));
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<TourDTO> getTourById(@PathVariable Long id) {
-        return ResponseEntity.ok(tourService.getTourById(id));
+    public ResponseEntity<TourDTO> getTourById(@PathVariable Long id, WebRequest webRequest) {
+        TourDTO tour = tourService.getTourById(id);
+        long lastModified = tour.getUpdatedAt() != null
+                ? tour.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+        if (webRequest.checkNotModified("\"tour-" + id + "-" + tour.getVersion() + "\"", lastModified)) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(tour);
     }
     
+    // Paged with facet counts when page or size is sent; otherwise the plain list older clients expect
     @GetMapping("/search")
-    public ResponseEntity<List<TourDTO>> searchTours(@RequestParam String destination) {
-        return ResponseEntity.ok(tourService.searchByDestination(destination));
+    public ResponseEntity<?> searchTours(@ModelAttribute TourSearchCriteria criteria,
+                                         @RequestParam(required = false) Integer page,
+                                         @RequestParam(required = false) Integer size,
+                                         @RequestParam(required = false) String sort,
+                                         @RequestParam(defaultValue = "asc") String direction) {
+        try {
+            if (page == null && size == null) {
+                return ResponseEntity.ok(tourSearchService.searchAll(criteria));
+            }
+            return ResponseEntity.ok(tourSearchService.search(criteria, page, size, sort, direction));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/available")
+    public ResponseEntity<List<TourDTO>> getAvailableTours() {
+        TourSearchCriteria criteria = new TourSearchCriteria();
+        criteria.setStatus(Tour.TourStatus.AVAILABLE.name());
+        criteria.setMinSeats(1);
+        return ResponseEntity.ok(tourSearchService.searchAll(criteria));
+    }
+    
+    // Defaults to the rest of the current month
+    @GetMapping("/calendar")
+    public ResponseEntity<?> getAvailabilityCalendar(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String destination,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(defaultValue = "day") String granularity) {
+        try {
+            return ResponseEntity.ok(availabilityCalendar.getCalendar(from, to, destination, categoryId, granularity));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/category/{categoryId}")
+    public ResponseEntity<List<TourDTO>> getToursByCategory(@PathVariable Long categoryId) {
+        TourSearchCriteria criteria = new TourSearchCriteria();
+        criteria.setCategoryId(categoryId);
+        return ResponseEntity.ok(tourSearchService.searchAll(criteria));
     }
     
     @PostMapping
@@ -40,8 +136,14 @@ public class TourController {
     
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
-    public ResponseEntity<TourDTO> updateTour(@PathVariable Long id, @Valid @RequestBody TourDTO tourDTO) {
-        return ResponseEntity.ok(tourService.updateTour(id, tourDTO));
+    public ResponseEntity<?> updateTour(@PathVariable Long id, @Valid @RequestBody TourDTO tourDTO) {
+        try {
+            return ResponseEntity.ok(tourService.updateTour(id, tourDTO));
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(new MessageResponse(e.getReason()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
     }
     
     @DeleteMapping("/{id}")
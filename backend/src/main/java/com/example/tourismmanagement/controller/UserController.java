@@ -0,0 +1,55 @@
+package com.example.tourismmanagement.controller;
+
+import com.example.tourismmanagement.dto.MessageResponse;
+import com.example.tourismmanagement.dto.UserDTO;
+import com.example.tourismmanagement.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/users")
+public class UserController {
+    @Autowired
+    private UserService userService;
+    
+    // Paged when a cursor or size is sent; the bare path still returns the full list the admin screen reads
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getUsers(@RequestParam(required = false) String cursor,
+                                      @RequestParam(required = false) Integer size,
+                                      @RequestParam(defaultValue = "asc") String direction) {
+        if (cursor == null && size == null) {
+            return ResponseEntity.ok(userService.getAllUsers());
+        }
+        return ResponseEntity.ok(userService.getUsersPage(cursor, size, direction));
+    }
+    
+    @GetMapping("/{id}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    public ResponseEntity<UserDTO> getUserById(@PathVariable Long id) {
+        return ResponseEntity.ok(userService.getUserById(id));
+    }
+    
+    @PutMapping("/{id}/role")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> updateRole(@PathVariable Long id, @RequestParam String role) {
+        try {
+            return ResponseEntity.ok(userService.updateRole(id, role));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+    }
+    
+    @PutMapping("/{id}/active")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> updateActive(@PathVariable Long id, @RequestParam boolean active) {
+        try {
+            return ResponseEntity.ok(userService.updateActive(id, active));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.tourismmanagement.controller;
+
+import com.example.tourismmanagement.dto.MessageResponse;
+import com.example.tourismmanagement.dto.WaitlistEntryDTO;
+import com.example.tourismmanagement.service.WaitlistService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/waitlist")
+public class WaitlistController {
+    @Autowired
+    private WaitlistService waitlistService;
+    
+    @PostMapping
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> join(@Valid @RequestBody WaitlistEntryDTO request, Authentication authentication) {
+        try {
+            return ResponseEntity.ok(waitlistService.join(request, authentication.getName()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/my-entries")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<List<WaitlistEntryDTO>> getMyEntries(Authentication authentication) {
+        return ResponseEntity.ok(waitlistService.getMyEntries(authentication.getName()));
+    }
+    
+    @PutMapping("/{id}/claim")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> claim(@PathVariable Long id, Authentication authentication) {
+        try {
+            return ResponseEntity.ok(waitlistService.claim(id, authentication.getName()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+    }
+    
+    @DeleteMapping("/{id}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> leave(@PathVariable Long id, Authentication authentication) {
+        try {
+            waitlistService.leave(id, authentication.getName());
+            return ResponseEntity.ok(new MessageResponse("Left the waitlist"));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+    }
+}
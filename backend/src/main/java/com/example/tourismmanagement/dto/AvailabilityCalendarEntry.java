@@ -0,0 +1,19 @@
+package com.example.tourismmanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+public class AvailabilityCalendarEntry {
+    private String destination;
+    private Long categoryId;
+    private String categoryName;
+    private LocalDate date; // first day of the bucket
+    private int tours;
+    private long availableSeats;
+    private BigDecimal minPrice;
+}
@@ -1,12 +1,16 @@
 package com.example.tourismmanagement.dto;
 
+import com.example.tourismmanagement.model.Booking;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 @Data
+@NoArgsConstructor
 public class BookingDTO {
     private Long id;
     
@@ -23,8 +27,29 @@ public class BookingDTO {
     private String status;
     private String paymentStatus;
     private String specialRequests;
+    private LocalDateTime createdAt;
+    private LocalDateTime holdExpiresAt;
     
     // For response
     private String tourName;
     private String customerName;
+    
+    // Used by BookingRepository constructor-expression queries
+    public BookingDTO(Long id, Long tourId, String tourName, Long customerId, String customerName,
+                      Integer numberOfPeople, BigDecimal totalAmount, Booking.BookingStatus status,
+                      Booking.PaymentStatus paymentStatus, String specialRequests, LocalDateTime createdAt,
+                      LocalDateTime holdExpiresAt) {
+        this.id = id;
+        this.tourId = tourId;
+        this.tourName = tourName;
+        this.customerId = customerId;
+        this.customerName = customerName;
+        this.numberOfPeople = numberOfPeople;
+        this.totalAmount = totalAmount;
+        this.status = status.name();
+        this.paymentStatus = paymentStatus != null ? paymentStatus.name() : null;
+        this.specialRequests = specialRequests;
+        this.createdAt = createdAt;
+        this.holdExpiresAt = holdExpiresAt;
+    }
 }
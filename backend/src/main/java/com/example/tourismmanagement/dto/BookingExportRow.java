@@ -0,0 +1,55 @@
+package com.example.tourismmanagement.dto;
+
+import com.example.tourismmanagement.model.Booking;
+import com.example.tourismmanagement.model.Payment;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+public class BookingExportRow {
+    private Long bookingId;
+    private LocalDateTime createdAt;
+    private Long tourId;
+    private String tourName;
+    private Long customerId;
+    private String customerName;
+    private String customerEmail;
+    private Integer numberOfPeople;
+    private BigDecimal totalAmount;
+    private String status;
+    private String paymentStatus;
+    private Long paymentId;
+    private BigDecimal paymentAmount;
+    private String paymentMethod;
+    private String paymentState;
+    private String transactionId;
+    private LocalDateTime paymentDate;
+    
+    // Used by BookingRepository.streamExportRows
+    public BookingExportRow(Long bookingId, LocalDateTime createdAt, Long tourId, String tourName,
+                            Long customerId, String customerName, String customerEmail,
+                            Integer numberOfPeople, BigDecimal totalAmount,
+                            Booking.BookingStatus status, Booking.PaymentStatus paymentStatus,
+                            Long paymentId, BigDecimal paymentAmount, Payment.PaymentMethod paymentMethod,
+                            Payment.PaymentStatus paymentState, String transactionId, LocalDateTime paymentDate) {
+        this.bookingId = bookingId;
+        this.createdAt = createdAt;
+        this.tourId = tourId;
+        this.tourName = tourName;
+        this.customerId = customerId;
+        this.customerName = customerName;
+        this.customerEmail = customerEmail;
+        this.numberOfPeople = numberOfPeople;
+        this.totalAmount = totalAmount;
+        this.status = status.name();
+        this.paymentStatus = paymentStatus != null ? paymentStatus.name() : null;
+        this.paymentId = paymentId;
+        this.paymentAmount = paymentAmount;
+        this.paymentMethod = paymentMethod != null ? paymentMethod.name() : null;
+        this.paymentState = paymentState != null ? paymentState.name() : null;
+        this.transactionId = transactionId;
+        this.paymentDate = paymentDate;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.tourismmanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class BookingHold {
+    private Long bookingId;
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,12 @@
+package com.example.tourismmanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class FacetCount {
+    private String key;
+    private String label;
+    private long count;
+}
@@ -0,0 +1,33 @@
+package com.example.tourismmanagement.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentCallbackRequest {
+    @NotBlank(message = "Transaction ID is required")
+    @Size(max = 100, message = "Transaction ID must be at most 100 characters")
+    private String transactionId;
+    
+    @NotNull(message = "Booking ID is required")
+    private Long bookingId;
+    
+    @NotNull(message = "Amount is required")
+    @DecimalMin(value = "0.0", inclusive = false, message = "Amount must be positive")
+    private BigDecimal amount;
+    
+    @NotBlank(message = "Payment method is required")
+    private String paymentMethod; // CASH, CREDIT_CARD, DEBIT_CARD, BANK_TRANSFER, E_WALLET
+    
+    @NotBlank(message = "Status is required")
+    private String status; // PENDING, COMPLETED, FAILED
+}
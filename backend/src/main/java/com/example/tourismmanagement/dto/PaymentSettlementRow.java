@@ -0,0 +1,16 @@
+package com.example.tourismmanagement.dto;
+
+import com.example.tourismmanagement.model.Payment;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+// The columns of a payment that a gateway settlement file reports, read in transaction id order
+@Data
+@AllArgsConstructor
+public class PaymentSettlementRow {
+    private String transactionId;
+    private BigDecimal amount;
+    private Payment.PaymentStatus status;
+}
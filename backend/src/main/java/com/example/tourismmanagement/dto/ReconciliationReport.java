@@ -0,0 +1,19 @@
+package com.example.tourismmanagement.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class ReconciliationReport {
+    private String file;
+    private String reportFile;
+    private long lines;
+    private long matched;
+    private long missing;
+    private long missingInFile;
+    private long amountMismatches;
+    private long statusMismatches;
+    private long malformed;
+    private long elapsedMs;
+}
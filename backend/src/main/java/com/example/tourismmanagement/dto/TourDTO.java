@@ -5,6 +5,7 @@ import lombok.Data;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Data
 public class TourDTO {
@@ -46,4 +47,11 @@ public class TourDTO {
     private String excluded;
     private Long categoryId;
     private String categoryName;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private Long version;
+    
+    // Set through /api/images/{id}/cover
+    private Long coverImageId;
+    private String thumbnailUrl;
 }
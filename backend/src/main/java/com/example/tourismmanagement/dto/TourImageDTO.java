@@ -0,0 +1,25 @@
+package com.example.tourismmanagement.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+public class TourImageDTO {
+    private Long id;
+    private Long tourId;
+    private String originalFilename;
+    private String contentType;
+    private Long sizeBytes;
+    private Integer width;
+    private Integer height;
+    private String status;
+    private LocalDateTime createdAt;
+    
+    // Served with long-lived cache headers; variants are the original until processing finishes
+    private String originalUrl;
+    private String largeUrl;
+    private String thumbnailUrl;
+}
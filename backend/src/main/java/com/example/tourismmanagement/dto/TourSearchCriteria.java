@@ -0,0 +1,31 @@
+package com.example.tourismmanagement.dto;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+public class TourSearchCriteria {
+    private String q;
+    private String destination; // alias of q sent by the existing frontend
+    private Long categoryId;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate startDate;
+    
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate endDate;
+    
+    private String status;
+    private Integer minSeats;
+    private Integer minDuration;
+    private Integer maxDuration;
+    
+    public String getText() {
+        return q != null && !q.isBlank() ? q : destination;
+    }
+}
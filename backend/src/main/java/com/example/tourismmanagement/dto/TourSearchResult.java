@@ -0,0 +1,18 @@
+package com.example.tourismmanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class TourSearchResult {
+    private List<TourDTO> items;
+    private long total;
+    private int page;
+    private int size;
+    private List<FacetCount> categories;
+    private List<FacetCount> priceRanges;
+    private List<FacetCount> months;
+}
@@ -0,0 +1,24 @@
+package com.example.tourismmanagement.dto;
+
+import com.example.tourismmanagement.model.Tour;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+public class TourSnapshotRow {
+    private Long id;
+    private BigDecimal price;
+    private Integer availableSeats;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Integer duration;
+    private Tour.TourStatus status;
+    private Long categoryId;
+    private String categoryName;
+    private String destination;
+    private Long version;
+}
@@ -0,0 +1,18 @@
+package com.example.tourismmanagement.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class UserDTO {
+    private Long id;
+    private String username;
+    private String email;
+    private String fullName;
+    private String phone;
+    private String address;
+    private String role;
+    private Boolean active;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,42 @@
+package com.example.tourismmanagement.dto;
+
+import com.example.tourismmanagement.model.WaitlistEntry;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+public class WaitlistEntryDTO {
+    private Long id;
+    
+    @NotNull(message = "Tour ID is required")
+    private Long tourId;
+    
+    @NotNull(message = "Number of people is required")
+    @Min(value = 1, message = "Number of people must be at least 1")
+    private Integer numberOfPeople;
+    
+    private String status;
+    private LocalDateTime offerExpiresAt;
+    private LocalDateTime createdAt;
+    
+    // For response
+    private String tourName;
+    private Long position; // customers ahead in the queue, while WAITING
+    
+    // Used by WaitlistRepository constructor-expression queries
+    public WaitlistEntryDTO(Long id, Long tourId, String tourName, Integer numberOfPeople,
+                            WaitlistEntry.WaitlistStatus status, LocalDateTime offerExpiresAt, LocalDateTime createdAt) {
+        this.id = id;
+        this.tourId = tourId;
+        this.tourName = tourName;
+        this.numberOfPeople = numberOfPeople;
+        this.status = status.name();
+        this.offerExpiresAt = offerExpiresAt;
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.tourismmanagement.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when a booking is cancelled and its seats released, and again when a payment arrives
+ * for a booking that is already cancelled; listeners run after the transaction commits.
+ */
+@Getter
+@AllArgsConstructor
+public class BookingCancelledEvent {
+    private final Long bookingId;
+    private final boolean refundDue;
+}
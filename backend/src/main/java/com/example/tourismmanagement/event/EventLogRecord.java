@@ -0,0 +1,19 @@
+package com.example.tourismmanagement.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One entry of the local event log. Offsets start at 0 and grow by one per record; the outbox
+ * id ties the record back to the row it was relayed from.
+ */
+@Getter
+@AllArgsConstructor
+public class EventLogRecord {
+    private final long offset;
+    private final long outboxId;
+    private final String eventType;
+    private final long aggregateId;
+    private final long createdAtMillis;
+    private final String payload;
+}
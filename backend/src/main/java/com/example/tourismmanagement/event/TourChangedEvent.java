@@ -0,0 +1,18 @@
+package com.example.tourismmanagement.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published whenever a tour row changes; listeners run after the writing transaction commits.
+ */
+@Getter
+@AllArgsConstructor
+public class TourChangedEvent {
+    private final Long tourId;
+    private final Type type;
+    
+    public enum Type {
+        CREATED, UPDATED, DELETED, SEATS_CHANGED
+    }
+}
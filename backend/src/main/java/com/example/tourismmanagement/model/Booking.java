@@ -9,9 +9,13 @@ import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Set;
 
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = {
+        @Index(name = "idx_bookings_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_bookings_status_hold_expires_at", columnList = "status, hold_expires_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -45,6 +49,9 @@ public class Booking {
     @Column(columnDefinition = "TEXT")
     private String specialRequests;
     
+    // Unpaid PENDING bookings are cancelled and their seats released after this
+    private LocalDateTime holdExpiresAt;
+    
     @CreationTimestamp
     @Column(updatable = false)
     private LocalDateTime createdAt;
@@ -52,8 +59,9 @@ public class Booking {
     @UpdateTimestamp
     private LocalDateTime updatedAt;
     
-    @OneToOne(mappedBy = "booking", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
-    private Payment payment;
+    // One row per gateway transaction; a retry after a failed attempt adds a row
+    @OneToMany(mappedBy = "booking", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    private Set<Payment> payments;
     
     public enum BookingStatus {
         PENDING, CONFIRMED, CANCELLED, COMPLETED
@@ -0,0 +1,39 @@
+package com.example.tourismmanagement.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+// A domain event written in the transaction that caused it; the relay moves it to the event log and deletes it
+@Entity
+@Table(name = "outbox_events")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 40)
+    private EventType eventType;
+    
+    @Column(nullable = false)
+    private Long aggregateId;
+    
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+    
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+    
+    public enum EventType {
+        BOOKING_CREATED, BOOKING_STATUS_CHANGED, TOUR_CREATED, TOUR_UPDATED, TOUR_DELETED
+    }
+}
@@ -10,7 +10,11 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = {
+        // gateway callbacks are deduplicated on the transaction id
+        @Index(name = "uk_payments_transaction_id", columnList = "transaction_id", unique = true),
+        @Index(name = "idx_payments_booking_id", columnList = "booking_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -19,7 +23,7 @@ public class Payment {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @OneToOne(fetch = FetchType.LAZY)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "booking_id", nullable = false)
     private Booking booking;
     
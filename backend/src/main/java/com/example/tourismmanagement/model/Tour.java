@@ -13,7 +13,14 @@ import java.time.LocalDateTime;
 import java.util.Set;
 
 @Entity
-@Table(name = "tours")
+@Table(name = "tours", indexes = {
+        @Index(name = "idx_tours_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_tours_price_id", columnList = "price, id"),
+        @Index(name = "idx_tours_status_start_date", columnList = "status, start_date"),
+        @Index(name = "idx_tours_status_price", columnList = "status, price"),
+        @Index(name = "idx_tours_category_status_start_date", columnList = "category_id, status, start_date"),
+        @Index(name = "idx_tours_start_date_price", columnList = "start_date, price")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -52,6 +59,9 @@ public class Tour {
     @Column(length = 500)
     private String imageUrl;
     
+    // one of the tour's uploaded images, shown as its thumbnail in listings
+    private Long coverImageId;
+    
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 20)
     private TourStatus status = TourStatus.AVAILABLE;
@@ -72,6 +82,10 @@ public class Tour {
     @UpdateTimestamp
     private LocalDateTime updatedAt;
     
+    @Version
+    @Column(nullable = false)
+    private Long version = 0L;
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id")
     private Category category;
@@ -0,0 +1,53 @@
+package com.example.tourismmanagement.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "tour_images", indexes = {
+        @Index(name = "idx_tour_images_tour_id_id", columnList = "tour_id, id"),
+        @Index(name = "idx_tour_images_status", columnList = "status")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TourImage {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "tour_id", nullable = false)
+    private Tour tour;
+    
+    @Column(length = 255)
+    private String originalFilename;
+    
+    // detected from the file itself, not taken from the upload
+    @Column(nullable = false, length = 50)
+    private String contentType;
+    
+    @Column(nullable = false)
+    private Long sizeBytes;
+    
+    private Integer width;
+    
+    private Integer height;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ImageStatus status = ImageStatus.PROCESSING;
+    
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+    
+    public enum ImageStatus {
+        PROCESSING, READY, FAILED
+    }
+}
@@ -11,7 +11,9 @@ import java.time.LocalDateTime;
 import java.util.Set;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_created_at_id", columnList = "created_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -45,6 +47,10 @@ public class User {
     @Column(nullable = false)
     private Boolean active = true;
     
+    // Bumped on deactivation or role change so tokens issued earlier stop being accepted
+    @Column(nullable = false)
+    private Integer tokenVersion = 0;
+    
     @CreationTimestamp
     @Column(updatable = false)
     private LocalDateTime createdAt;
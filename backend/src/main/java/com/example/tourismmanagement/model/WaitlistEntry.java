@@ -0,0 +1,55 @@
+package com.example.tourismmanagement.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "waitlist_entries", indexes = {
+        // head of a tour's queue is the lowest WAITING id, one index seek
+        @Index(name = "idx_waitlist_tour_status_id", columnList = "tour_id, status, id"),
+        @Index(name = "idx_waitlist_status_offer_expires_at", columnList = "status, offer_expires_at"),
+        @Index(name = "idx_waitlist_status_held_until", columnList = "status, held_until")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitlistEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "tour_id", nullable = false)
+    private Tour tour;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "customer_id", nullable = false)
+    private User customer;
+    
+    @Column(nullable = false)
+    private Integer numberOfPeople;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private WaitlistStatus status = WaitlistStatus.WAITING;
+    
+    // While OFFERED the seats are already taken from the tour and kept for this customer until then
+    private LocalDateTime offerExpiresAt;
+    
+    // While WAITING: freed seats too few for this party are kept from other bookings until then. Once
+    // past, the entry has been passed over and no longer holds seats, though it keeps its place
+    private LocalDateTime heldUntil;
+    
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+    
+    public enum WaitlistStatus {
+        WAITING, OFFERED, CLAIMED, EXPIRED, CANCELLED
+    }
+}
@@ -1,15 +1,119 @@
 package com.example.tourismmanagement.repository;
 
+import com.example.tourismmanagement.dto.BookingDTO;
+import com.example.tourismmanagement.dto.BookingExportRow;
+import com.example.tourismmanagement.dto.BookingHold;
 import com.example.tourismmanagement.model.Booking;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
+    // Reads only the columns BookingDTO needs, joined in one statement instead of lazy-loading tour/customer per row
+    String SELECT_BOOKING_DTO = "select new com.example.tourismmanagement.dto.BookingDTO(" +
+            "b.id, t.id, t.name, c.id, c.fullName, b.numberOfPeople, b.totalAmount, " +
+            "b.status, b.paymentStatus, b.specialRequests, b.createdAt, b.holdExpiresAt) " +
+            "from Booking b join b.tour t join b.customer c ";
+    
     List<Booking> findByCustomerId(Long customerId);
     List<Booking> findByTourId(Long tourId);
     List<Booking> findByStatus(Booking.BookingStatus status);
     List<Booking> findByCustomerIdAndStatus(Long customerId, Booking.BookingStatus status);
+    
+    @Query(SELECT_BOOKING_DTO + "order by b.id")
+    List<BookingDTO> findAllBookingDTOs();
+    
+    @Query("select new com.example.tourismmanagement.dto.BookingHold(b.id, b.holdExpiresAt) from Booking b " +
+            "where b.status = :status and b.paymentStatus = :paymentStatus and b.holdExpiresAt is not null")
+    List<BookingHold> findHolds(@Param("status") Booking.BookingStatus status,
+                                @Param("paymentStatus") Booking.PaymentStatus paymentStatus);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Booking b join fetch b.tour where b.id = :id")
+    Optional<Booking> findByIdForUpdate(@Param("id") Long id);
+    
+    // ascending id order so concurrent batch writers lock bookings in the same order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Booking b where b.id in :ids order by b.id")
+    List<Booking> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Booking b where b.tour.id = :tourId and b.status in :statuses order by b.id")
+    List<Booking> findByTourIdAndStatusInForUpdate(@Param("tourId") Long tourId,
+                                                   @Param("statuses") Collection<Booking.BookingStatus> statuses,
+                                                   Limit limit);
+    
+    @Query("select b.id from Booking b where b.status = :status and b.paymentStatus in :paymentStatuses")
+    List<Long> findIdsByStatusAndPaymentStatusIn(@Param("status") Booking.BookingStatus status,
+                                                 @Param("paymentStatuses") Collection<Booking.PaymentStatus> paymentStatuses);
+    
+    // Row locks make the status check and the seat release one decision against concurrent payments
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Booking b where b.id in :ids and b.status = :status " +
+            "and b.paymentStatus = :paymentStatus and b.holdExpiresAt <= :now")
+    List<Booking> findExpiredHoldsForUpdate(@Param("ids") Collection<Long> ids,
+                                            @Param("status") Booking.BookingStatus status,
+                                            @Param("paymentStatus") Booking.PaymentStatus paymentStatus,
+                                            @Param("now") LocalDateTime now);
+    
+    @Query(SELECT_BOOKING_DTO + "where c.username = :username order by b.id")
+    List<BookingDTO> findBookingDTOsByCustomerUsername(@Param("username") String username);
+    
+    @Query(SELECT_BOOKING_DTO + "where b.id = :id")
+    Optional<BookingDTO> findBookingDTOById(@Param("id") Long id);
+    
+    // Keyset pages on (createdAt, id): each page seeks past the last row instead of skipping with OFFSET
+    @Query(SELECT_BOOKING_DTO + "order by b.createdAt desc, b.id desc")
+    List<BookingDTO> findFirstBookingDTOsNewestFirst(Limit limit);
+    
+    @Query(SELECT_BOOKING_DTO + "where b.createdAt < :createdAt or (b.createdAt = :createdAt and b.id < :id) " +
+            "order by b.createdAt desc, b.id desc")
+    List<BookingDTO> findBookingDTOsNewestFirstAfter(@Param("createdAt") LocalDateTime createdAt,
+                                                     @Param("id") Long id, Limit limit);
+    
+    @Query(SELECT_BOOKING_DTO + "order by b.createdAt asc, b.id asc")
+    List<BookingDTO> findFirstBookingDTOsOldestFirst(Limit limit);
+    
+    @Query(SELECT_BOOKING_DTO + "where b.createdAt > :createdAt or (b.createdAt = :createdAt and b.id > :id) " +
+            "order by b.createdAt asc, b.id asc")
+    List<BookingDTO> findBookingDTOsOldestFirstAfter(@Param("createdAt") LocalDateTime createdAt,
+                                                     @Param("id") Long id, Limit limit);
+    
+    // Forward-only cursor for exports: rows are projections, so nothing accumulates in the persistence context
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("select new com.example.tourismmanagement.dto.BookingExportRow(" +
+            "b.id, b.createdAt, t.id, t.name, c.id, c.fullName, c.email, b.numberOfPeople, b.totalAmount, " +
+            "b.status, b.paymentStatus, p.id, p.amount, p.paymentMethod, p.status, p.transactionId, p.paymentDate) " +
+            "from Booking b join b.tour t join b.customer c " +
+            // the booking's effective payment: the paid transaction if there is one, else the latest attempt
+            "left join b.payments p on p.id = coalesce(" +
+            "(select max(pp.id) from Payment pp where pp.booking = b and pp.status in " +
+            "(com.example.tourismmanagement.model.Payment.PaymentStatus.COMPLETED, " +
+            "com.example.tourismmanagement.model.Payment.PaymentStatus.REFUNDED)), " +
+            "(select max(pl.id) from Payment pl where pl.booking = b)) " +
+            "where (:from is null or b.createdAt >= :from) " +
+            "and (:to is null or b.createdAt < :to) " +
+            "and (:status is null or b.status = :status) " +
+            "order by b.id")
+    Stream<BookingExportRow> streamExportRows(@Param("from") LocalDateTime from,
+                                              @Param("to") LocalDateTime to,
+                                              @Param("status") Booking.BookingStatus status);
 }
@@ -0,0 +1,13 @@
+package com.example.tourismmanagement.repository;
+
+import com.example.tourismmanagement.model.OutboxEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    List<OutboxEvent> findByOrderByIdAsc(Limit limit);
+}
@@ -1,13 +1,25 @@
 package com.example.tourismmanagement.repository;
 
+import com.example.tourismmanagement.dto.PaymentSettlementRow;
 import com.example.tourismmanagement.model.Payment;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
-    Optional<Payment> findByBookingId(Long bookingId);
+    List<Payment> findByBookingId(Long bookingId);
     Optional<Payment> findByTransactionId(String transactionId);
+    List<Payment> findByBookingIdIn(Collection<Long> bookingIds);
+    
+    // Walks the unique transaction_id index; the column must use a binary collation for this order
+    @Query("select new com.example.tourismmanagement.dto.PaymentSettlementRow(p.transactionId, p.amount, p.status) " +
+            "from Payment p where p.transactionId >= :from order by p.transactionId")
+    List<PaymentSettlementRow> findSettlementRowsFrom(@Param("from") String from, Limit limit);
 }
@@ -0,0 +1,31 @@
+package com.example.tourismmanagement.repository;
+
+import com.example.tourismmanagement.model.TourImage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TourImageRepository extends JpaRepository<TourImage, Long> {
+    List<TourImage> findByTourIdOrderByIdAsc(Long tourId);
+    
+    boolean existsByIdAndTourId(Long id, Long tourId);
+    
+    @Query("select i.id from TourImage i where i.status = :status order by i.id")
+    List<Long> findIdsByStatus(@Param("status") TourImage.ImageStatus status);
+    
+    @Query("select i.id from TourImage i where i.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+    
+    // an update rather than save, so an image deleted during processing is not written back
+    @Transactional
+    @Modifying
+    @Query("update TourImage i set i.status = :status where i.id = :id")
+    int updateStatus(@Param("id") Long id, @Param("status") TourImage.ImageStatus status);
+}
@@ -1,17 +1,70 @@
 package com.example.tourismmanagement.repository;
 
+import com.example.tourismmanagement.dto.TourSnapshotRow;
 import com.example.tourismmanagement.model.Tour;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface TourRepository extends JpaRepository<Tour, Long> {
+public interface TourRepository extends JpaRepository<Tour, Long>, JpaSpecificationExecutor<Tour> {
+    String SELECT_SNAPSHOT_ROW = "select new com.example.tourismmanagement.dto.TourSnapshotRow(" +
+            "t.id, t.price, t.availableSeats, t.startDate, t.endDate, t.duration, t.status, c.id, c.name, t.destination, " +
+            "t.version) " +
+            "from Tour t left join t.category c ";
+    
     List<Tour> findByDestinationContaining(String destination);
     List<Tour> findByStatus(Tour.TourStatus status);
     List<Tour> findByCategoryId(Long categoryId);
     List<Tour> findByStartDateBetween(LocalDate startDate, LocalDate endDate);
     List<Tour> findByPriceLessThanEqual(java.math.BigDecimal price);
+    
+    @Query("select t.id from Tour t order by t.id")
+    List<Long> findAllIds();
+    
+    @Query("select t from Tour t left join fetch t.category where t.id in :ids")
+    List<Tour> findAllWithCategoryByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query(SELECT_SNAPSHOT_ROW + "order by t.id")
+    List<TourSnapshotRow> findSnapshotRows();
+    
+    @Query(SELECT_SNAPSHOT_ROW + "where t.id in :ids")
+    List<TourSnapshotRow> findSnapshotRowsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query(SELECT_SNAPSHOT_ROW + "where t.id = :id")
+    Optional<TourSnapshotRow> findSnapshotRow(@Param("id") Long id);
+    
+    // status is assigned first: MySQL evaluates SET assignments left to right. Bulk updates skip
+    // @UpdateTimestamp, so updatedAt is set here to keep Last-Modified on single tours moving
+    @Modifying
+    @Query("update Tour t set " +
+            "t.status = case when t.availableSeats = :seats then :full else t.status end, " +
+            "t.availableSeats = t.availableSeats - :seats, " +
+            "t.version = t.version + 1, " +
+            "t.updatedAt = local datetime " +
+            "where t.id = :id and t.status = :available and t.availableSeats >= :seats")
+    int reserveSeats(@Param("id") Long id,
+                     @Param("seats") int seats,
+                     @Param("available") Tour.TourStatus available,
+                     @Param("full") Tour.TourStatus full);
+    
+    @Modifying
+    @Query("update Tour t set " +
+            "t.status = case when t.status = :full then :available else t.status end, " +
+            "t.availableSeats = t.availableSeats + :seats, " +
+            "t.version = t.version + 1, " +
+            "t.updatedAt = local datetime " +
+            "where t.id = :id and t.availableSeats + :seats <= t.maxParticipants")
+    int releaseSeats(@Param("id") Long id,
+                     @Param("seats") int seats,
+                     @Param("available") Tour.TourStatus available,
+                     @Param("full") Tour.TourStatus full);
 }
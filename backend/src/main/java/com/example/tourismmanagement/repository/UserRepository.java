@@ -2,14 +2,23 @@ package com.example.tourismmanagement.repository;
 
 import com.example.tourismmanagement.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User> {
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
     Boolean existsByUsername(String username);
     Boolean existsByEmail(String email);
+    List<User> findByUsernameIn(Collection<String> usernames);
+    
+    @Query("select case when u.active = true then u.tokenVersion else -1 end from User u where u.id = :id")
+    Optional<Integer> findAcceptedTokenVersion(@Param("id") Long id);
 }
@@ -0,0 +1,73 @@
+package com.example.tourismmanagement.repository;
+
+import com.example.tourismmanagement.dto.WaitlistEntryDTO;
+import com.example.tourismmanagement.model.WaitlistEntry;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WaitlistRepository extends JpaRepository<WaitlistEntry, Long> {
+    String SELECT_WAITLIST_DTO = "select new com.example.tourismmanagement.dto.WaitlistEntryDTO(" +
+            "w.id, t.id, t.name, w.numberOfPeople, w.status, w.offerExpiresAt, w.createdAt) " +
+            "from WaitlistEntry w join w.tour t join w.customer c ";
+    
+    long countByTourIdAndStatus(Long tourId, WaitlistEntry.WaitlistStatus status);
+    
+    long countByTourIdAndStatusAndIdLessThan(Long tourId, WaitlistEntry.WaitlistStatus status, Long id);
+    
+    boolean existsByTourIdAndStatus(Long tourId, WaitlistEntry.WaitlistStatus status);
+    
+    // An entry holds the tour's free seats until it has been passed over
+    @Query("select count(w) > 0 from WaitlistEntry w where w.tour.id = :tourId and w.status = :status " +
+            "and (w.heldUntil is null or w.heldUntil > :now)")
+    boolean isHoldingSeats(@Param("tourId") Long tourId, @Param("status") WaitlistEntry.WaitlistStatus status,
+                           @Param("now") LocalDateTime now);
+    
+    // the part of a queue past one offer round, once that round found nobody the seats are held for
+    @Modifying
+    @Query("update WaitlistEntry w set w.heldUntil = :now where w.tour.id = :tourId and w.status = :status " +
+            "and w.heldUntil is null and w.id > :afterId")
+    int passOverAfter(@Param("tourId") Long tourId, @Param("status") WaitlistEntry.WaitlistStatus status,
+                      @Param("afterId") Long afterId, @Param("now") LocalDateTime now);
+    
+    @Query("select distinct w.tour.id from WaitlistEntry w where w.status = :status " +
+            "and w.heldUntil > :from and w.heldUntil <= :to")
+    List<Long> findTourIdsWithHoldsEndingBetween(@Param("status") WaitlistEntry.WaitlistStatus status,
+                                                 @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    boolean existsByTourIdAndCustomerIdAndStatusIn(Long tourId, Long customerId,
+                                                   Collection<WaitlistEntry.WaitlistStatus> statuses);
+    
+    @Query(SELECT_WAITLIST_DTO + "where c.username = :username order by w.id")
+    List<WaitlistEntryDTO> findDTOsByCustomerUsername(@Param("username") String username);
+    
+    @Query(SELECT_WAITLIST_DTO + "where w.id = :id")
+    Optional<WaitlistEntryDTO> findDTOById(@Param("id") Long id);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select w from WaitlistEntry w join fetch w.customer where w.id = :id")
+    Optional<WaitlistEntry> findByIdForUpdate(@Param("id") Long id);
+    
+    // Locks only the queue head; concurrent drains of the same tour take turns here, not on the tour row
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select w from WaitlistEntry w where w.tour.id = :tourId and w.status = :status order by w.id")
+    List<WaitlistEntry> findHeadForUpdate(@Param("tourId") Long tourId,
+                                          @Param("status") WaitlistEntry.WaitlistStatus status, Limit limit);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select w from WaitlistEntry w join fetch w.tour where w.status = :status and w.offerExpiresAt <= :now " +
+            "order by w.offerExpiresAt")
+    List<WaitlistEntry> findExpiredOffersForUpdate(@Param("status") WaitlistEntry.WaitlistStatus status,
+                                                   @Param("now") LocalDateTime now, Limit limit);
+}
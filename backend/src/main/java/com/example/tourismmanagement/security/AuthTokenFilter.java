@@ -1,10 +1,12 @@
 package com.example.tourismmanagement.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -23,15 +25,22 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
     
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+    
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+    
+    @Value("${auth.jwt.stateless:true}")
+    private boolean stateless;
+    
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
-                
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            UserDetails userDetails = jwt != null ? authenticate(jwt) : null;
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -45,6 +54,42 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
     
+    private UserDetails authenticate(String jwt) {
+        UserDetailsImpl cached = verifiedTokenCache.get(jwt);
+        if (cached != null) {
+            return tokenVersionRegistry.isAccepted(cached.getId(), cached.getTokenVersion()) ? cached : null;
+        }
+        
+        Claims claims = jwtUtils.parseClaims(jwt);
+        if (claims == null || verifiedTokenCache.isLoggedOut(jwt)) {
+            return null;
+        }
+        
+        UserDetails userDetails = resolveUser(claims);
+        if (userDetails instanceof UserDetailsImpl principal
+                && !verifiedTokenCache.put(jwt, principal, claims.getExpiration())) {
+            return null;
+        }
+        return userDetails;
+    }
+    
+    private UserDetails resolveUser(Claims claims) {
+        Long userId = claims.get(JwtUtils.CLAIM_USER_ID, Long.class);
+        String role = claims.get(JwtUtils.CLAIM_ROLE, String.class);
+        Integer tokenVersion = claims.get(JwtUtils.CLAIM_TOKEN_VERSION, Integer.class);
+        
+        // Tokens issued before the identity claims existed still go through the database
+        if (stateless && userId != null && role != null && tokenVersion != null) {
+            if (!tokenVersionRegistry.isAccepted(userId, tokenVersion)) {
+                return null;
+            }
+            return UserDetailsImpl.fromClaims(userId, claims.getSubject(), role, tokenVersion);
+        }
+        
+        UserDetails userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+        return userDetails.isEnabled() ? userDetails : null;
+    }
+    
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
         
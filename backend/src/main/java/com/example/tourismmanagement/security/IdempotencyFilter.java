@@ -0,0 +1,288 @@
+package com.example.tourismmanagement.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Makes client retries of booking and payment creation safe. The first response to a POST with
+ * an {@code Idempotency-Key} header is kept in memory for a while and replayed, status and body,
+ * to any later request of the same user with the same key, without reaching the controller.
+ * A duplicate arriving while the original is still running waits for its outcome instead of
+ * running a second time.
+ * <p>
+ * Only final answers are kept: successes and client errors, except the ones that say "try again"
+ * (408, 425, 429). When the original fails with one of those, a server error or an exception,
+ * the key is freed and the next retry runs normally; services report retryable failures as 503
+ * for this reason. The store is local to this instance.
+ * <p>
+ * The body is read whether or not the client sent its length, up to
+ * {@code idempotency.max-body-bytes}; a larger one is refused with 413 rather than let through
+ * unguarded.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+    
+    @Value("${idempotency.paths:/api/bookings}")
+    private String paths;
+    
+    @Value("${idempotency.ttl-seconds:86400}")
+    private long ttlSeconds;
+    
+    @Value("${idempotency.max-entries:100000}")
+    private long maxEntries;
+    
+    @Value("${idempotency.max-body-bytes:65536}")
+    private int maxBodyBytes;
+    
+    @Value("${idempotency.wait-ms:10000}")
+    private long waitMs;
+    
+    private Set<String> guardedPaths;
+    private Cache<String, Entry> entries;
+    
+    @PostConstruct
+    public void init() {
+        guardedPaths = Arrays.stream(paths.split(","))
+                .map(String::trim)
+                .filter(path -> !path.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+    
+    public long size() {
+        return entries.estimatedSize();
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || request.getHeader(HEADER) == null
+                || !guardedPaths.contains(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String key = request.getHeader(HEADER).trim();
+        // anonymous requests are rejected further down the chain anyway
+        if (authentication == null || !authentication.isAuthenticated()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            reject(response, HttpStatus.BAD_REQUEST, "Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        
+        // chunked requests carry no length, so the stream itself is what is bounded
+        byte[] body = request.getContentLengthLong() > maxBodyBytes
+                ? null : request.getInputStream().readNBytes(maxBodyBytes + 1);
+        if (body == null || body.length > maxBodyBytes) {
+            reject(response, HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Requests with an Idempotency-Key are limited to " + maxBodyBytes + " bytes");
+            return;
+        }
+        String scope = authentication.getName() + '\n' + request.getRequestURI() + '\n' + key;
+        String fingerprint = fingerprint(body);
+        
+        while (true) {
+            Entry entry = new Entry(fingerprint);
+            Entry existing = entries.asMap().putIfAbsent(scope, entry);
+            if (existing == null) {
+                execute(scope, entry, new CachedBodyRequest(request, body), response, filterChain);
+                return;
+            }
+            if (!existing.fingerprint.equals(fingerprint)) {
+                reject(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                        "Idempotency-Key was already used with a different request");
+                return;
+            }
+            StoredResponse stored = await(existing);
+            if (stored == null && existing.outcome.isDone()) {
+                // the original failed and gave the key up; run this one instead
+                entries.asMap().remove(scope, existing);
+                continue;
+            }
+            if (stored == null) {
+                reject(response, HttpStatus.CONFLICT, "A request with this Idempotency-Key is still in progress");
+                return;
+            }
+            replay(stored, response);
+            return;
+        }
+    }
+    
+    private void execute(String scope, Entry entry, HttpServletRequest request, HttpServletResponse response,
+                         FilterChain filterChain) throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        StoredResponse stored = null;
+        try {
+            filterChain.doFilter(request, wrapper);
+            if (isFinal(wrapper.getStatus())) {
+                stored = new StoredResponse(wrapper.getStatus(), wrapper.getContentType(), wrapper.getContentAsByteArray());
+            }
+        } finally {
+            if (stored == null) {
+                entries.asMap().remove(scope, entry);
+            }
+            entry.outcome.complete(stored);
+            wrapper.copyBodyToResponse();
+        }
+    }
+    
+    private static boolean isFinal(int status) {
+        return status >= 200 && status < 300
+                || status >= 400 && status < 500 && status != 408 && status != 425 && status != 429;
+    }
+    
+    private StoredResponse await(Entry entry) throws IOException {
+        try {
+            return entry.outcome.get(waitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the original request", e);
+        }
+    }
+    
+    private static void replay(StoredResponse stored, HttpServletResponse response) throws IOException {
+        response.setStatus(stored.status);
+        if (stored.contentType != null) {
+            response.setContentType(stored.contentType);
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(stored.body.length);
+        response.getOutputStream().write(stored.body);
+    }
+    
+    private static void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write("{\"message\":\"" + message + "\"}");
+    }
+    
+    private static String fingerprint(byte[] body) {
+        try {
+            return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private static final class Entry {
+        private final String fingerprint;
+        private final CompletableFuture<StoredResponse> outcome = new CompletableFuture<>();
+        
+        private Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+    
+    private static final class StoredResponse {
+        private final int status;
+        private final String contentType;
+        private final byte[] body;
+        
+        private StoredResponse(int status, String contentType, byte[] body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+        }
+    }
+    
+    // The body has already been read for the fingerprint, so the controller reads this copy
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+        
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+        
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+                
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+                
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+                
+                @Override
+                public int read() {
+                    return in.read();
+                }
+                
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+        
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+        
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+        
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.tourismmanagement.security;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs BCrypt verification on a small fixed pool instead of Tomcat worker threads. When the
+ * pool and its short queue are full, new logins are refused with 503 straight away so a login
+ * storm cannot take the threads that serve the rest of the API.
+ */
+@Component
+public class PasswordVerificationExecutor {
+    @Value("${auth.login.threads:0}")
+    private int threads;
+    
+    @Value("${auth.login.queue-capacity:64}")
+    private int queueCapacity;
+    
+    @Value("${auth.login.timeout-ms:5000}")
+    private long timeoutMs;
+    
+    private ThreadPoolExecutor executor;
+    
+    @PostConstruct
+    public void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "login-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    /**
+     * Runs the verification, failing the result with a TimeoutException after the configured
+     * timeout. A verification still queued when its caller times out is removed and never run.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        FutureTask<Void> queued = new FutureTask<>(() -> {
+            if (!result.isDone()) {
+                try {
+                    result.complete(task.get());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            }
+        }, null);
+        try {
+            executor.execute(queued);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Too many login attempts right now, please try again shortly"));
+        }
+        result.orTimeout(timeoutMs, TimeUnit.MILLISECONDS).whenComplete((value, error) -> {
+            if (error instanceof TimeoutException && queued.cancel(false)) {
+                executor.remove(queued);
+            }
+        });
+        return result;
+    }
+    
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.tourismmanagement.security;
+
+import com.example.tourismmanagement.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Remembers the token version each user currently accepts (-1 once deactivated). Entries are
+ * dropped on local changes and expire quickly, so other instances pick up a revocation within
+ * the TTL at the cost of one indexed lookup per user rather than one per request.
+ */
+@Component
+public class TokenVersionRegistry {
+    private static final int REVOKED = -1;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+    
+    @Value("${auth.jwt.revocation-check-ttl-seconds:30}")
+    private long ttlSeconds;
+    
+    @Value("${auth.jwt.revocation-check-max-users:100000}")
+    private long maxUsers;
+    
+    private LoadingCache<Long, Integer> acceptedVersions;
+    
+    @PostConstruct
+    public void init() {
+        acceptedVersions = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build(userId -> userRepository.findAcceptedTokenVersion(userId).orElse(REVOKED));
+    }
+    
+    public boolean isAccepted(Long userId, Integer tokenVersion) {
+        Integer accepted = acceptedVersions.get(userId);
+        return tokenVersion != null && accepted != REVOKED && accepted.equals(tokenVersion);
+    }
+    
+    public void evict(Long userId) {
+        acceptedVersions.invalidate(userId);
+        verifiedTokenCache.evictUser(userId);
+    }
+}
@@ -24,6 +24,11 @@ public class UserDetailsImpl implements UserDetails {
     @JsonIgnore
     private String password;
     
+    @JsonIgnore
+    private Integer tokenVersion;
+    
+    private boolean active;
+    
     private Collection<? extends GrantedAuthority> authorities;
     
     public static UserDetailsImpl build(User user) {
@@ -35,10 +40,32 @@ public class UserDetailsImpl implements UserDetails {
                 user.getEmail(),
                 user.getFullName(),
                 user.getPassword(),
+                user.getTokenVersion(),
+                Boolean.TRUE.equals(user.getActive()),
+                Collections.singletonList(authority)
+        );
+    }
+    
+    // Principal for the stateless JWT path: only what the token carries, no database row behind it
+    public static UserDetailsImpl fromClaims(Long id, String username, String role, Integer tokenVersion) {
+        GrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + role);
+        
+        return new UserDetailsImpl(
+                id,
+                username,
+                null,
+                null,
+                null,
+                tokenVersion,
+                true,
                 Collections.singletonList(authority)
         );
     }
     
+    public String getRole() {
+        return authorities.iterator().next().getAuthority().replace("ROLE_", "");
+    }
+    
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return authorities;
@@ -71,6 +98,6 @@ public class UserDetailsImpl implements UserDetails {
     
     @Override
     public boolean isEnabled() {
-        return true;
+        return active;
     }
 }
@@ -4,13 +4,14 @@ import com.example.tourismmanagement.model.User;
 import com.example.tourismmanagement.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
     @Autowired
     private UserRepository userRepository;
     
@@ -22,4 +23,15 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         
         return UserDetailsImpl.build(user);
     }
+    
+    // Called after a successful login when the stored hash was made with a different BCrypt strength
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + userDetails.getUsername()));
+        user.setPassword(newPassword);
+        
+        return UserDetailsImpl.build(userRepository.save(user));
+    }
 }
@@ -0,0 +1,144 @@
+package com.example.tourismmanagement.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Principals of bearer tokens whose signature has already been checked, keyed by a SHA-256
+ * digest of the token so raw tokens are never held in memory. Entries never outlive the token's
+ * own expiry. Logged-out tokens are remembered until they expire so they cannot be re-verified
+ * and re-cached; that list has no size bound, since evicting an entry early would make its token
+ * valid again, and it is local to this instance.
+ */
+@Component
+public class VerifiedTokenCache {
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+    
+    @Value("${auth.jwt.verified-cache.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${auth.jwt.verified-cache.max-size:50000}")
+    private long maxSize;
+    
+    @Value("${auth.jwt.verified-cache.max-ttl-seconds:900}")
+    private long maxTtlSeconds;
+    
+    private Cache<String, Entry> verified;
+    private Cache<String, Entry> loggedOut;
+    
+    @PostConstruct
+    public void init() {
+        verified = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilTokenExpiry(TimeUnit.SECONDS.toNanos(maxTtlSeconds)))
+                .build();
+        loggedOut = Caffeine.newBuilder()
+                .expireAfter(new UntilTokenExpiry(Long.MAX_VALUE))
+                .build();
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public UserDetailsImpl get(String token) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry = verified.getIfPresent(digest(token));
+        return entry != null ? entry.principal : null;
+    }
+    
+    /**
+     * Caches the principal unless the token has been logged out; returns false when it has.
+     */
+    public boolean put(String token, UserDetailsImpl principal, Date expiration) {
+        String key = digest(token);
+        if (enabled && expiration != null) {
+            verified.put(key, new Entry(principal, expiration.getTime()));
+        }
+        // logout() denylists before it invalidates, so a logout racing this put is either seen
+        // here or removes the entry itself
+        if (loggedOut.getIfPresent(key) != null) {
+            verified.invalidate(key);
+            return false;
+        }
+        return true;
+    }
+    
+    public boolean isLoggedOut(String token) {
+        return loggedOut.getIfPresent(digest(token)) != null;
+    }
+    
+    public void logout(String token, Date expiration) {
+        String key = digest(token);
+        if (expiration != null) {
+            loggedOut.put(key, new Entry(null, expiration.getTime()));
+        }
+        verified.invalidate(key);
+    }
+    
+    public void evictUser(Long userId) {
+        verified.asMap().values().removeIf(entry -> userId.equals(entry.principal.getId()));
+    }
+    
+    public long size() {
+        return verified.estimatedSize();
+    }
+    
+    private static String digest(String token) {
+        byte[] hash = SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getEncoder().withoutPadding().encodeToString(hash);
+    }
+    
+    private static final class Entry {
+        private final UserDetailsImpl principal;
+        private final long expiresAtMillis;
+        
+        private Entry(UserDetailsImpl principal, long expiresAtMillis) {
+            this.principal = principal;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+    
+    private static final class UntilTokenExpiry implements Expiry<String, Entry> {
+        private final long maxNanos;
+        
+        private UntilTokenExpiry(long maxNanos) {
+            this.maxNanos = maxNanos;
+        }
+        
+        @Override
+        public long expireAfterCreate(String key, Entry entry, long currentTime) {
+            long remainingMillis = Math.max(0, entry.expiresAtMillis - System.currentTimeMillis());
+            return Math.min(maxNanos, TimeUnit.MILLISECONDS.toNanos(remainingMillis));
+        }
+        
+        @Override
+        public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, entry, currentTime);
+        }
+        
+        @Override
+        public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
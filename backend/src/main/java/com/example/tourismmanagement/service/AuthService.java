@@ -7,7 +7,10 @@ import com.example.tourismmanagement.dto.RegisterRequest;
 import com.example.tourismmanagement.model.User;
 import com.example.tourismmanagement.repository.UserRepository;
 import com.example.tourismmanagement.security.JwtUtils;
+import com.example.tourismmanagement.security.PasswordVerificationExecutor;
 import com.example.tourismmanagement.security.UserDetailsImpl;
+import com.example.tourismmanagement.security.VerifiedTokenCache;
+import io.jsonwebtoken.Claims;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -16,6 +19,8 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+
 @Service
 public class AuthService {
     @Autowired
@@ -30,12 +35,21 @@ public class AuthService {
     @Autowired
     private JwtUtils jwtUtils;
     
-    public JwtResponse login(LoginRequest loginRequest) {
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+    
+    @Autowired
+    private PasswordVerificationExecutor passwordVerificationExecutor;
+    
+    public CompletableFuture<JwtResponse> login(LoginRequest loginRequest) {
+        return passwordVerificationExecutor.submit(() -> authenticate(loginRequest));
+    }
+    
+    private JwtResponse authenticate(LoginRequest loginRequest) {
         Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword())
         );
         
-        SecurityContextHolder.getContext().setAuthentication(authentication);
         String jwt = jwtUtils.generateJwtToken(authentication);
         
         UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
@@ -54,6 +68,17 @@ public class AuthService {
         );
     }
     
+    public MessageResponse logout(String token) {
+        Claims claims = token != null ? jwtUtils.parseClaims(token) : null;
+        if (claims == null) {
+            throw new RuntimeException("Error: Invalid token!");
+        }
+        
+        verifiedTokenCache.logout(token, claims.getExpiration());
+        SecurityContextHolder.clearContext();
+        return new MessageResponse("Logged out successfully!");
+    }
+    
     public MessageResponse register(RegisterRequest registerRequest) {
         if (userRepository.existsByUsername(registerRequest.getUsername())) {
             throw new RuntimeException("Error: Username is already taken!");
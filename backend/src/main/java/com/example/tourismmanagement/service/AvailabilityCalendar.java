@@ -0,0 +1,273 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.dto.AvailabilityCalendarEntry;
+import com.example.tourismmanagement.dto.TourSnapshotRow;
+import com.example.tourismmanagement.event.TourChangedEvent;
+import com.example.tourismmanagement.model.Tour;
+import com.example.tourismmanagement.repository.TourRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Open departures per destination, category and start date: how many bookable tours leave that
+ * day, their seats left and the lowest price. Each tour's contribution is remembered, so a seat
+ * or date change moves just that tour between day cells instead of recounting anything; changes
+ * arrive through {@link TourChangedEvent}. Weeks are summed from the day cells when asked for.
+ */
+@Component
+public class AvailabilityCalendar {
+    static final int MAX_RANGE_DAYS = 366;
+    
+    @Autowired
+    private TourRepository tourRepository;
+    
+    private volatile Map<String, Group> groups = new ConcurrentHashMap<>();
+    // guarded by this
+    private final Map<Long, Contribution> contributions = new HashMap<>();
+    // guarded by this; the last version applied per tour, so a slower read of an older one cannot undo it
+    private final Map<Long, Long> versions = new HashMap<>();
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        rebuild(tourRepository.findSnapshotRows());
+    }
+    
+    public synchronized void rebuild(List<TourSnapshotRow> rows) {
+        Map<String, Group> fresh = new ConcurrentHashMap<>();
+        contributions.clear();
+        versions.clear();
+        for (TourSnapshotRow row : rows) {
+            versions.put(row.getId(), TourCatalogSnapshot.versionOf(row));
+            Contribution contribution = Contribution.of(row);
+            if (contribution != null) {
+                contributions.put(row.getId(), contribution);
+                add(fresh, contribution);
+            }
+        }
+        groups = fresh;
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTourChanged(TourChangedEvent event) {
+        if (event.getType() == TourChangedEvent.Type.DELETED) {
+            remove(event.getTourId());
+            return;
+        }
+        tourRepository.findSnapshotRow(event.getTourId())
+                .ifPresentOrElse(this::apply, () -> remove(event.getTourId()));
+    }
+    
+    public synchronized void apply(TourSnapshotRow row) {
+        long version = TourCatalogSnapshot.versionOf(row);
+        Long held = versions.get(row.getId());
+        if (held != null && version < held) {
+            return;
+        }
+        versions.put(row.getId(), version);
+        Contribution next = Contribution.of(row);
+        Contribution previous = next != null ? contributions.put(row.getId(), next) : contributions.remove(row.getId());
+        if (previous != null) {
+            subtract(groups, previous);
+        }
+        if (next != null) {
+            add(groups, next);
+        }
+    }
+    
+    public synchronized void remove(Long tourId) {
+        versions.put(tourId, Long.MAX_VALUE);
+        Contribution previous = contributions.remove(tourId);
+        if (previous != null) {
+            subtract(groups, previous);
+        }
+    }
+    
+    /**
+     * Calendar rows for departures between {@code from} and {@code to} inclusive, ordered by
+     * destination, category and date. {@code destination} matches any destination containing it,
+     * ignoring case and diacritics.
+     *
+     * @param granularity "day", or "week" for buckets starting on Monday
+     */
+    public List<AvailabilityCalendarEntry> getCalendar(LocalDate from, LocalDate to, String destination, Long categoryId,
+                                                       String granularity) {
+        LocalDate start = from != null ? from : LocalDate.now();
+        LocalDate end = to != null ? to : start.withDayOfMonth(start.lengthOfMonth());
+        if (end.isBefore(start)) {
+            throw new RuntimeException("Calendar end date must not be before its start date");
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= MAX_RANGE_DAYS) {
+            throw new RuntimeException("Calendar range cannot exceed " + MAX_RANGE_DAYS + " days");
+        }
+        boolean weekly;
+        if (granularity == null || "day".equalsIgnoreCase(granularity)) {
+            weekly = false;
+        } else if ("week".equalsIgnoreCase(granularity)) {
+            weekly = true;
+        } else {
+            throw new RuntimeException("Invalid calendar granularity: " + granularity);
+        }
+        
+        String destinationFilter = destination != null && !destination.isBlank()
+                ? TourSearchIndex.fold(destination).trim() : null;
+        List<Group> matching = new ArrayList<>();
+        for (Group group : groups.values()) {
+            if ((categoryId == null || categoryId.equals(group.categoryId))
+                    && (destinationFilter == null || group.foldedDestination.contains(destinationFilter))) {
+                matching.add(group);
+            }
+        }
+        matching.sort(Comparator.comparing((Group group) -> group.foldedDestination)
+                .thenComparing(group -> group.categoryId, Comparator.nullsFirst(Comparator.naturalOrder())));
+        
+        List<AvailabilityCalendarEntry> entries = new ArrayList<>();
+        for (Group group : matching) {
+            ConcurrentNavigableMap<Integer, DayCell> days =
+                    group.days.subMap((int) start.toEpochDay(), true, (int) end.toEpochDay(), true);
+            int bucket = Integer.MIN_VALUE;
+            int tours = 0;
+            long seats = 0;
+            long minPriceCents = Long.MAX_VALUE;
+            for (Map.Entry<Integer, DayCell> day : days.entrySet()) {
+                int dayBucket = weekly ? day.getKey() - Math.floorMod(day.getKey() + 3, 7) : day.getKey();
+                if (dayBucket != bucket && tours > 0) {
+                    entries.add(entry(group, bucket, tours, seats, minPriceCents));
+                    tours = 0;
+                    seats = 0;
+                    minPriceCents = Long.MAX_VALUE;
+                }
+                bucket = dayBucket;
+                DayCell cell = day.getValue();
+                tours += cell.priceCents.length;
+                seats += cell.seats;
+                minPriceCents = Math.min(minPriceCents, cell.priceCents[0]);
+            }
+            if (tours > 0) {
+                entries.add(entry(group, bucket, tours, seats, minPriceCents));
+            }
+        }
+        return entries;
+    }
+    
+    private static AvailabilityCalendarEntry entry(Group group, int day, int tours, long seats, long minPriceCents) {
+        // weekly buckets are keyed by their Monday, which can fall just before the requested range
+        return new AvailabilityCalendarEntry(group.destination, group.categoryId, group.categoryName,
+                LocalDate.ofEpochDay(day), tours, seats, BigDecimal.valueOf(minPriceCents, 2));
+    }
+    
+    private static void add(Map<String, Group> groups, Contribution contribution) {
+        Group group = groups.computeIfAbsent(contribution.groupKey, key -> new Group(contribution));
+        group.categoryName = contribution.categoryName;
+        group.days.compute(contribution.day, (day, cell) -> cell == null
+                ? new DayCell(contribution.seats, new long[]{contribution.priceCents})
+                : cell.plus(contribution));
+    }
+    
+    private static void subtract(Map<String, Group> groups, Contribution contribution) {
+        Group group = groups.get(contribution.groupKey);
+        if (group == null) {
+            return;
+        }
+        group.days.computeIfPresent(contribution.day, (day, cell) -> cell.minus(contribution));
+        if (group.days.isEmpty()) {
+            groups.remove(contribution.groupKey, group);
+        }
+    }
+    
+    private static final class Group {
+        final String destination;
+        final String foldedDestination;
+        final Long categoryId;
+        volatile String categoryName;
+        final ConcurrentSkipListMap<Integer, DayCell> days = new ConcurrentSkipListMap<>();
+        
+        Group(Contribution contribution) {
+            destination = contribution.destination;
+            foldedDestination = contribution.foldedDestination;
+            categoryId = contribution.categoryId;
+            categoryName = contribution.categoryName;
+        }
+    }
+    
+    /**
+     * One day of one group; replaced rather than modified. Prices are kept sorted, one per tour,
+     * so the minimum survives the cheapest tour selling out.
+     */
+    private static final class DayCell {
+        final long seats;
+        final long[] priceCents;
+        
+        DayCell(long seats, long[] priceCents) {
+            this.seats = seats;
+            this.priceCents = priceCents;
+        }
+        
+        DayCell plus(Contribution contribution) {
+            int at = Arrays.binarySearch(priceCents, contribution.priceCents);
+            int insert = at >= 0 ? at : -at - 1;
+            long[] prices = new long[priceCents.length + 1];
+            System.arraycopy(priceCents, 0, prices, 0, insert);
+            prices[insert] = contribution.priceCents;
+            System.arraycopy(priceCents, insert, prices, insert + 1, priceCents.length - insert);
+            return new DayCell(seats + contribution.seats, prices);
+        }
+        
+        DayCell minus(Contribution contribution) {
+            int at = Arrays.binarySearch(priceCents, contribution.priceCents);
+            if (at < 0) {
+                return this;
+            }
+            if (priceCents.length == 1) {
+                return null;
+            }
+            long[] prices = new long[priceCents.length - 1];
+            System.arraycopy(priceCents, 0, prices, 0, at);
+            System.arraycopy(priceCents, at + 1, prices, at, prices.length - at);
+            return new DayCell(seats - contribution.seats, prices);
+        }
+    }
+    
+    /**
+     * What one tour currently adds to the calendar; only bookable tours with seats left count.
+     */
+    private static final class Contribution {
+        final String groupKey;
+        final String destination;
+        final String foldedDestination;
+        final Long categoryId;
+        final String categoryName;
+        final int day;
+        final int seats;
+        final long priceCents;
+        
+        private Contribution(TourSnapshotRow row) {
+            destination = row.getDestination();
+            foldedDestination = TourSearchIndex.fold(row.getDestination());
+            categoryId = row.getCategoryId();
+            categoryName = row.getCategoryName();
+            groupKey = foldedDestination + "|" + categoryId;
+            day = (int) row.getStartDate().toEpochDay();
+            seats = row.getAvailableSeats();
+            priceCents = row.getPrice().movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+        }
+        
+        static Contribution of(TourSnapshotRow row) {
+            if (row.getStatus() != Tour.TourStatus.AVAILABLE || row.getAvailableSeats() <= 0) {
+                return null;
+            }
+            return new Contribution(row);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.dto.BookingExportRow;
+import com.example.tourismmanagement.model.Booking;
+import com.example.tourismmanagement.repository.BookingRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes bookings joined with their payments straight to an output stream, one row at a time,
+ * so exporting the whole table needs the same heap as exporting a single day.
+ */
+@Service
+public class BookingExportService {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String CSV_HEADER = "booking_id,created_at,tour_id,tour_name,customer_id,customer_name,"
+            + "customer_email,number_of_people,total_amount,status,payment_status,payment_id,payment_amount,"
+            + "payment_method,payment_state,transaction_id,payment_date";
+    
+    public enum Format {
+        NDJSON, CSV
+    }
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private TransactionTemplate readOnlyTransaction;
+    
+    @PostConstruct
+    public void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+    
+    /**
+     * Arguments are parsed by the caller: once rows are being written the response is already
+     * committed and a bad parameter could only truncate it.
+     */
+    public void export(Format format, LocalDate from, LocalDate to, Booking.BookingStatus bookingStatus,
+                       OutputStream outputStream) {
+        LocalDateTime fromTime = from != null ? from.atStartOfDay() : null;
+        LocalDateTime toTime = to != null ? to.plusDays(1).atStartOfDay() : null;
+        
+        // The stream holds an open result set, so it has to be consumed inside the transaction
+        readOnlyTransaction.executeWithoutResult(tx -> {
+            try (Stream<BookingExportRow> rows = bookingRepository.streamExportRows(fromTime, toTime, bookingStatus)) {
+                if (format == Format.CSV) {
+                    writeCsv(rows.iterator(), outputStream);
+                } else {
+                    writeNdjson(rows.iterator(), outputStream);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+    
+    private void writeNdjson(Iterator<BookingExportRow> rows, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        boolean empty = !rows.hasNext();
+        try (SequenceWriter sequence = objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(writer)) {
+            while (rows.hasNext()) {
+                sequence.write(rows.next());
+            }
+        }
+        if (!empty) {
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+    
+    private void writeCsv(Iterator<BookingExportRow> rows, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        while (rows.hasNext()) {
+            BookingExportRow row = rows.next();
+            writeCsvValue(writer, row.getBookingId(), true);
+            writeCsvValue(writer, row.getCreatedAt(), false);
+            writeCsvValue(writer, row.getTourId(), false);
+            writeCsvValue(writer, row.getTourName(), false);
+            writeCsvValue(writer, row.getCustomerId(), false);
+            writeCsvValue(writer, row.getCustomerName(), false);
+            writeCsvValue(writer, row.getCustomerEmail(), false);
+            writeCsvValue(writer, row.getNumberOfPeople(), false);
+            writeCsvValue(writer, row.getTotalAmount() != null ? row.getTotalAmount().toPlainString() : null, false);
+            writeCsvValue(writer, row.getStatus(), false);
+            writeCsvValue(writer, row.getPaymentStatus(), false);
+            writeCsvValue(writer, row.getPaymentId(), false);
+            writeCsvValue(writer, row.getPaymentAmount() != null ? row.getPaymentAmount().toPlainString() : null, false);
+            writeCsvValue(writer, row.getPaymentMethod(), false);
+            writeCsvValue(writer, row.getPaymentState(), false);
+            writeCsvValue(writer, row.getTransactionId(), false);
+            writeCsvValue(writer, row.getPaymentDate(), false);
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+    
+    private void writeCsvValue(Writer writer, Object value, boolean first) throws IOException {
+        if (!first) {
+            writer.write(',');
+        }
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
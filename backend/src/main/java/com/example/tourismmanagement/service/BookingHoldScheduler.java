@@ -0,0 +1,211 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.dto.BookingHold;
+import com.example.tourismmanagement.model.Booking;
+import com.example.tourismmanagement.model.OutboxEvent;
+import com.example.tourismmanagement.repository.BookingRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gives the seats of unpaid PENDING bookings back once their hold runs out. Deadlines sit in a
+ * hashed timer wheel: scheduling is O(1), and each tick only looks at the holds hashed to its
+ * slot, so nothing scans the bookings table while it waits. Due holds are cancelled in batches,
+ * each batch in one transaction together with the seat release.
+ * <p>
+ * The wheel lives in memory; on startup it is refilled from the holds still open in the
+ * database, and holds that ran out while the application was down expire on the first tick.
+ */
+@Service
+public class BookingHoldScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(BookingHoldScheduler.class);
+    
+    private static final int WHEEL_SLOTS = 512;
+    private static final long RETRY_DELAY_MS = 30000;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+    
+    @Autowired
+    private OutboxService outboxService;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${booking.hold.ttl-minutes:15}")
+    private long ttlMinutes;
+    
+    @Value("${booking.hold.tick-ms:1000}")
+    private long tickMs;
+    
+    @Value("${booking.hold.batch-size:200}")
+    private int batchSize;
+    
+    @SuppressWarnings("unchecked")
+    private final Queue<Hold>[] wheel = new Queue[WHEEL_SLOTS];
+    private final long startMillis = System.currentTimeMillis();
+    private volatile long currentTick;
+    private volatile boolean running = true;
+    
+    private TransactionTemplate transactionTemplate;
+    private Thread worker;
+    
+    @PostConstruct
+    public void init() {
+        for (int slot = 0; slot < WHEEL_SLOTS; slot++) {
+            wheel[slot] = new ConcurrentLinkedQueue<>();
+        }
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        worker = new Thread(this::run, "booking-hold-expiry");
+        worker.setDaemon(true);
+        worker.start();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        worker.interrupt();
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        List<BookingHold> holds = bookingRepository.findHolds(Booking.BookingStatus.PENDING, Booking.PaymentStatus.UNPAID);
+        holds.forEach(hold -> schedule(hold.getBookingId(), hold.getExpiresAt()));
+        if (!holds.isEmpty()) {
+            logger.info("Rescheduled {} open booking holds", holds.size());
+        }
+    }
+    
+    public boolean isEnabled() {
+        return ttlMinutes > 0;
+    }
+    
+    /**
+     * Deadline for a hold starting now, or null when holds are disabled.
+     */
+    public LocalDateTime newDeadline() {
+        return isEnabled() ? LocalDateTime.now().plusMinutes(ttlMinutes) : null;
+    }
+    
+    public void schedule(Long bookingId, LocalDateTime expiresAt) {
+        if (bookingId == null || expiresAt == null) {
+            return;
+        }
+        schedule(bookingId, expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+    
+    private void schedule(Long bookingId, long dueMillis) {
+        long dueTick = Math.max(Math.floorDiv(dueMillis - startMillis + tickMs - 1, tickMs), currentTick + 1);
+        // a hold added to a slot the worker has just passed waits one more revolution, never less
+        wheel[(int) (dueTick % WHEEL_SLOTS)].add(new Hold(bookingId, dueTick));
+    }
+    
+    public int getScheduledCount() {
+        int count = 0;
+        for (Queue<Hold> slot : wheel) {
+            count += slot.size();
+        }
+        return count;
+    }
+    
+    private void run() {
+        while (running) {
+            try {
+                long sleepMs = startMillis + (currentTick + 1) * tickMs - System.currentTimeMillis();
+                if (sleepMs > 0) {
+                    TimeUnit.MILLISECONDS.sleep(sleepMs);
+                }
+                long tick = currentTick + 1;
+                currentTick = tick;
+                List<Long> due = drainDue(wheel[(int) (tick % WHEEL_SLOTS)], tick);
+                for (int from = 0; from < due.size(); from += batchSize) {
+                    expireBatch(due.subList(from, Math.min(from + batchSize, due.size())));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Booking hold expiry tick failed", e);
+            }
+        }
+    }
+    
+    private static List<Long> drainDue(Queue<Hold> slot, long tick) {
+        List<Long> due = new ArrayList<>();
+        for (int remaining = slot.size(); remaining > 0; remaining--) {
+            Hold hold = slot.poll();
+            if (hold == null) {
+                break;
+            }
+            if (hold.dueTick <= tick) {
+                due.add(hold.bookingId);
+            } else {
+                slot.add(hold);
+            }
+        }
+        return due;
+    }
+    
+    private void expireBatch(List<Long> bookingIds) {
+        try {
+            int expired = expire(bookingIds);
+            if (expired > 0) {
+                logger.info("Expired {} unpaid booking holds", expired);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not expire {} booking holds, retrying later: {}", bookingIds.size(), e.getMessage());
+            long retryAt = System.currentTimeMillis() + RETRY_DELAY_MS;
+            bookingIds.forEach(id -> schedule(id, retryAt));
+        }
+    }
+    
+    /**
+     * Cancels those of the given bookings that are still unpaid, PENDING and past their deadline,
+     * and returns their seats with one release per tour. Returns how many were cancelled.
+     */
+    int expire(Collection<Long> bookingIds) {
+        Integer expired = transactionTemplate.execute(status -> {
+            List<Booking> bookings = bookingRepository.findExpiredHoldsForUpdate(bookingIds,
+                    Booking.BookingStatus.PENDING, Booking.PaymentStatus.UNPAID, LocalDateTime.now());
+            Map<Long, Integer> seatsByTour = new TreeMap<>();
+            for (Booking booking : bookings) {
+                booking.setStatus(Booking.BookingStatus.CANCELLED);
+                outboxService.record(OutboxEvent.EventType.BOOKING_STATUS_CHANGED, booking.getId(),
+                        BookingService.statusChange(booking));
+                seatsByTour.merge(booking.getTour().getId(), booking.getNumberOfPeople(), Integer::sum);
+            }
+            // ascending tour order keeps lock acquisition consistent with other batch writers
+            seatsByTour.forEach(seatInventoryService::releaseSeats);
+            return bookings.size();
+        });
+        return expired != null ? expired : 0;
+    }
+    
+    private static final class Hold {
+        private final Long bookingId;
+        private final long dueTick;
+        
+        private Hold(Long bookingId, long dueTick) {
+            this.bookingId = bookingId;
+            this.dueTick = dueTick;
+        }
+    }
+}
@@ -1,22 +1,44 @@
 package com.example.tourismmanagement.service;
 
 import com.example.tourismmanagement.dto.BookingDTO;
+import com.example.tourismmanagement.dto.CursorPage;
+import com.example.tourismmanagement.event.BookingCancelledEvent;
+import com.example.tourismmanagement.event.TourChangedEvent;
 import com.example.tourismmanagement.model.Booking;
+import com.example.tourismmanagement.model.OutboxEvent;
 import com.example.tourismmanagement.model.Tour;
 import com.example.tourismmanagement.model.User;
+import com.example.tourismmanagement.model.WaitlistEntry;
 import com.example.tourismmanagement.repository.BookingRepository;
 import com.example.tourismmanagement.repository.TourRepository;
 import com.example.tourismmanagement.repository.UserRepository;
+import com.example.tourismmanagement.repository.WaitlistRepository;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @Service
 public class BookingService {
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final EnumSet<Booking.BookingStatus> ACTIVE = EnumSet.of(Booking.BookingStatus.PENDING,
+            Booking.BookingStatus.CONFIRMED);
+    
     @Autowired
     private BookingRepository bookingRepository;
     
@@ -26,67 +48,229 @@ public class BookingService {
     @Autowired
     private UserRepository userRepository;
     
-    @Transactional
+    @Autowired
+    private WaitlistRepository waitlistRepository;
+    
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+    
+    @Autowired
+    private BookingHoldScheduler bookingHoldScheduler;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private OutboxService outboxService;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${booking.cancel.batch-size:100}")
+    private int cancelBatchSize;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // batches also run from after-commit listeners, where REQUIRED would join the finished transaction
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+    
     public BookingDTO createBooking(BookingDTO bookingDTO, String username) {
+        return seatInventoryService.executeWithRetry(() -> doCreateBooking(bookingDTO, username));
+    }
+    
+    private BookingDTO doCreateBooking(BookingDTO bookingDTO, String username) {
         User customer = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
+        refuseWhileWaitlistHoldsSeats(bookingDTO.getTourId());
+        
+        // Conditional decrement instead of read-check-write, so concurrent bookings cannot oversell
+        seatInventoryService.reserveSeats(bookingDTO.getTourId(), bookingDTO.getNumberOfPeople());
         
         Tour tour = tourRepository.findById(bookingDTO.getTourId())
                 .orElseThrow(() -> new RuntimeException("Tour not found"));
-        
-        if (tour.getAvailableSeats() < bookingDTO.getNumberOfPeople()) {
-            throw new RuntimeException("Not enough available seats");
+        return saveHeldBooking(tour, customer, bookingDTO.getNumberOfPeople(), bookingDTO.getSpecialRequests());
+    }
+    
+    /**
+     * Seats freed on a tour with a queue belong to its head, even when they are too few for it yet,
+     * until the head's hold runs out; see {@link WaitlistService}.
+     */
+    void refuseWhileWaitlistHoldsSeats(Long tourId) {
+        if (waitlistRepository.isHoldingSeats(tourId, WaitlistEntry.WaitlistStatus.WAITING, LocalDateTime.now())) {
+            throw new RuntimeException("Customers are waiting for this tour, please join the waitlist");
         }
-        
+    }
+    
+    /**
+     * Books seats that were already taken from the tour on the customer's behalf, as a waitlist
+     * offer does; the booking gets the usual unpaid hold. Must run inside the caller's transaction.
+     */
+    BookingDTO createReservedBooking(Tour tour, User customer, int numberOfPeople) {
+        return saveHeldBooking(tour, customer, numberOfPeople, null);
+    }
+    
+    private BookingDTO saveHeldBooking(Tour tour, User customer, int numberOfPeople, String specialRequests) {
         Booking booking = new Booking();
         booking.setTour(tour);
         booking.setCustomer(customer);
-        booking.setNumberOfPeople(bookingDTO.getNumberOfPeople());
-        booking.setTotalAmount(tour.getPrice().multiply(BigDecimal.valueOf(bookingDTO.getNumberOfPeople())));
+        booking.setNumberOfPeople(numberOfPeople);
+        booking.setTotalAmount(tour.getPrice().multiply(BigDecimal.valueOf(numberOfPeople)));
         booking.setStatus(Booking.BookingStatus.PENDING);
         booking.setPaymentStatus(Booking.PaymentStatus.UNPAID);
-        booking.setSpecialRequests(bookingDTO.getSpecialRequests());
-        
-        // Update available seats
-        tour.setAvailableSeats(tour.getAvailableSeats() - bookingDTO.getNumberOfPeople());
-        tourRepository.save(tour);
+        booking.setSpecialRequests(specialRequests);
+        booking.setHoldExpiresAt(bookingHoldScheduler.newDeadline());
         
         Booking savedBooking = bookingRepository.save(booking);
-        return convertToDTO(savedBooking);
+        // a hold whose transaction rolls back finds no PENDING booking when it comes due
+        bookingHoldScheduler.schedule(savedBooking.getId(), savedBooking.getHoldExpiresAt());
+        BookingDTO dto = convertToDTO(savedBooking);
+        outboxService.record(OutboxEvent.EventType.BOOKING_CREATED, dto.getId(), dto);
+        return dto;
     }
     
     public List<BookingDTO> getCustomerBookings(String username) {
-        User customer = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        return bookingRepository.findByCustomerId(customer.getId()).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return bookingRepository.findBookingDTOsByCustomerUsername(username);
     }
     
     public List<BookingDTO> getAllBookings() {
-        return bookingRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return bookingRepository.findAllBookingDTOs();
+    }
+    
+    public CursorPage<BookingDTO> getBookingsPage(String cursor, Integer size, String direction) {
+        int pageSize = KeysetCursor.clampPageSize(size, DEFAULT_PAGE_SIZE, MAX_PAGE_SIZE);
+        // one extra row tells us whether another page exists
+        Limit limit = Limit.of(pageSize + 1);
+        boolean oldestFirst = "asc".equalsIgnoreCase(direction);
+        
+        List<BookingDTO> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = oldestFirst
+                    ? bookingRepository.findFirstBookingDTOsOldestFirst(limit)
+                    : bookingRepository.findFirstBookingDTOsNewestFirst(limit);
+        } else {
+            KeysetCursor<LocalDateTime> after = KeysetCursor.decode(cursor, LocalDateTime::parse);
+            rows = oldestFirst
+                    ? bookingRepository.findBookingDTOsOldestFirstAfter(after.getSortValue(), after.getId(), limit)
+                    : bookingRepository.findBookingDTOsNewestFirstAfter(after.getSortValue(), after.getId(), limit);
+        }
+        
+        boolean hasMore = rows.size() > pageSize;
+        List<BookingDTO> items = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            BookingDTO last = items.get(items.size() - 1);
+            nextCursor = KeysetCursor.encode(last.getCreatedAt(), last.getId());
+        }
+        return new CursorPage<>(items, nextCursor, hasMore);
     }
     
     public BookingDTO getBookingById(Long id) {
-        Booking booking = bookingRepository.findById(id)
+        return bookingRepository.findBookingDTOById(id)
                 .orElseThrow(() -> new RuntimeException("Booking not found"));
-        return convertToDTO(booking);
     }
     
     @Transactional
     public BookingDTO updateBookingStatus(Long id, String status) {
+        Booking.BookingStatus newStatus = Booking.BookingStatus.valueOf(status);
+        if (newStatus == Booking.BookingStatus.CANCELLED) {
+            return cancelBooking(id, null, true);
+        }
         Booking booking = bookingRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Booking not found"));
+        if (booking.getStatus() == Booking.BookingStatus.CANCELLED) {
+            throw new RuntimeException("Cancelled bookings cannot be reopened");
+        }
         
-        booking.setStatus(Booking.BookingStatus.valueOf(status));
+        booking.setStatus(newStatus);
         Booking updatedBooking = bookingRepository.save(booking);
+        outboxService.record(OutboxEvent.EventType.BOOKING_STATUS_CHANGED, id, statusChange(updatedBooking));
         return convertToDTO(updatedBooking);
     }
     
-    private BookingDTO convertToDTO(Booking booking) {
+    /**
+     * Cancels the booking and gives its seats back to the tour in the same transaction; a paid
+     * booking is refunded afterwards by the {@link RefundWorker}.
+     *
+     * @param privileged staff may cancel any booking, customers only their own
+     */
+    @Transactional
+    public BookingDTO cancelBooking(Long id, String username, boolean privileged) {
+        Booking booking = bookingRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new RuntimeException("Booking not found"));
+        if (!privileged && !booking.getCustomer().getUsername().equals(username)) {
+            throw new RuntimeException("You can only cancel your own bookings");
+        }
+        if (booking.getStatus() == Booking.BookingStatus.CANCELLED) {
+            throw new RuntimeException("Booking is already cancelled");
+        }
+        if (booking.getStatus() == Booking.BookingStatus.COMPLETED) {
+            throw new RuntimeException("Completed bookings cannot be cancelled");
+        }
+        
+        markCancelled(booking);
+        seatInventoryService.releaseSeats(booking.getTour().getId(), booking.getNumberOfPeople());
+        return convertToDTO(booking);
+    }
+    
+    /**
+     * Cancels every active booking of a tour, a batch per transaction so no single transaction
+     * keeps hundreds of booking rows and the tour row locked. Returns how many were cancelled.
+     */
+    public int cancelTourBookings(Long tourId) {
+        int cancelled = 0;
+        while (true) {
+            Integer batch = transactionTemplate.execute(status -> {
+                List<Booking> bookings = bookingRepository.findByTourIdAndStatusInForUpdate(tourId, ACTIVE,
+                        Limit.of(cancelBatchSize));
+                int seats = 0;
+                for (Booking booking : bookings) {
+                    markCancelled(booking);
+                    seats += booking.getNumberOfPeople();
+                }
+                seatInventoryService.releaseSeats(tourId, seats);
+                return bookings.size();
+            });
+            if (batch == null || batch == 0) {
+                return cancelled;
+            }
+            cancelled += batch;
+        }
+    }
+    
+    // An operator setting a tour to CANCELLED through updateTour cancels its bookings too
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTourChanged(TourChangedEvent event) {
+        if (event.getType() != TourChangedEvent.Type.UPDATED) {
+            return;
+        }
+        tourRepository.findById(event.getTourId())
+                .filter(tour -> tour.getStatus() == Tour.TourStatus.CANCELLED)
+                .ifPresent(tour -> cancelTourBookings(tour.getId()));
+    }
+    
+    private void markCancelled(Booking booking) {
+        booking.setStatus(Booking.BookingStatus.CANCELLED);
+        outboxService.record(OutboxEvent.EventType.BOOKING_STATUS_CHANGED, booking.getId(), statusChange(booking));
+        eventPublisher.publishEvent(new BookingCancelledEvent(booking.getId(),
+                RefundWorker.REFUNDABLE.contains(booking.getPaymentStatus())));
+    }
+    
+    // Status events carry ids and states only, so batch cancellations need no customer or tour loads
+    static Map<String, Object> statusChange(Booking booking) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("id", booking.getId());
+        payload.put("tourId", booking.getTour().getId());
+        payload.put("customerId", booking.getCustomer().getId());
+        payload.put("status", booking.getStatus().name());
+        payload.put("paymentStatus", booking.getPaymentStatus().name());
+        return payload;
+    }
+    
+    BookingDTO convertToDTO(Booking booking) {
         BookingDTO dto = new BookingDTO();
         dto.setId(booking.getId());
         dto.setTourId(booking.getTour().getId());
@@ -98,6 +282,8 @@ public class BookingService {
         dto.setStatus(booking.getStatus().name());
         dto.setPaymentStatus(booking.getPaymentStatus().name());
         dto.setSpecialRequests(booking.getSpecialRequests());
+        dto.setCreatedAt(booking.getCreatedAt());
+        dto.setHoldExpiresAt(booking.getHoldExpiresAt());
         return dto;
     }
 }
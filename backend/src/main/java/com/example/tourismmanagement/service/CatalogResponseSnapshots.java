@@ -0,0 +1,275 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.event.TourChangedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized and compressed bodies of the full tour listing and the category list. A background
+ * thread rebuilds a body whenever the version it was built from is no longer current, so requests
+ * only pick an encoding and copy bytes. A request that finds its snapshot out of date is served
+ * the normal way and wakes the rebuild.
+ */
+@Component
+public class CatalogResponseSnapshots {
+    private static final Logger logger = LoggerFactory.getLogger(CatalogResponseSnapshots.class);
+    
+    @Autowired
+    private TourService tourService;
+    
+    @Autowired
+    private CategoryService categoryService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${catalog.response-snapshots.enabled:true}")
+    private boolean enabled;
+    
+    // also catches changes whose version moved after the event that woke the rebuild
+    @Value("${catalog.response-snapshots.poll-ms:1000}")
+    private long pollMs;
+    
+    private final Semaphore wakeUp = new Semaphore(0);
+    private volatile boolean running = true;
+    private volatile Snapshot tours;
+    private volatile Snapshot categories;
+    private Thread worker;
+    
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        worker = new Thread(this::run, "catalog-response-snapshots");
+        worker.setDaemon(true);
+        worker.start();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+    
+    /**
+     * The tour listing as of {@code version}, or null when no snapshot of that version exists yet.
+     */
+    public Snapshot getTours(long version) {
+        return current(tours, version);
+    }
+    
+    public Snapshot getCategories(long version) {
+        return current(categories, version);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTourChanged(TourChangedEvent event) {
+        wakeUp.release();
+    }
+    
+    /**
+     * Brings both snapshots up to date; returns how many were rebuilt.
+     */
+    int rebuild() {
+        int rebuilt = 0;
+        Snapshot toursSnapshot = rebuildIfStale(tours, tourService::getCatalogVersion, tourService::getAllTours);
+        if (toursSnapshot != tours) {
+            tours = toursSnapshot;
+            rebuilt++;
+        }
+        Snapshot categoriesSnapshot = rebuildIfStale(categories, categoryService::getVersion,
+                categoryService::getAllCategories);
+        if (categoriesSnapshot != categories) {
+            categories = categoriesSnapshot;
+            rebuilt++;
+        }
+        return rebuilt;
+    }
+    
+    private Snapshot current(Snapshot snapshot, long version) {
+        if (snapshot != null && snapshot.version == version) {
+            return snapshot;
+        }
+        if (enabled) {
+            wakeUp.release();
+        }
+        return null;
+    }
+    
+    // the version is read before the body, so a snapshot is never newer than it claims
+    private Snapshot rebuildIfStale(Snapshot snapshot, LongSupplier version, Supplier<Object> body) {
+        long current = version.getAsLong();
+        if (snapshot != null && snapshot.version == current) {
+            return snapshot;
+        }
+        try {
+            return Snapshot.of(current, objectMapper.writeValueAsBytes(body.get()));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not serialize catalog snapshot", e);
+        }
+    }
+    
+    private void run() {
+        while (running) {
+            try {
+                wakeUp.tryAcquire(pollMs, TimeUnit.MILLISECONDS);
+                wakeUp.drainPermits();
+                rebuild();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.warn("Catalog response snapshot rebuild failed: {}", e.getMessage());
+            }
+        }
+    }
+    
+    public enum Encoding {
+        IDENTITY(null), GZIP("gzip"), DEFLATE("deflate");
+        
+        private final String token;
+        
+        Encoding(String token) {
+            this.token = token;
+        }
+        
+        /**
+         * Picks gzip over deflate over identity among the codings the Accept-Encoding header does
+         * not refuse with q=0.
+         */
+        public static Encoding negotiate(String acceptEncoding) {
+            if (acceptEncoding == null || acceptEncoding.isBlank()) {
+                return IDENTITY;
+            }
+            boolean gzip = false;
+            boolean deflate = false;
+            boolean wildcard = false;
+            for (String part : acceptEncoding.split(",")) {
+                String[] params = part.split(";");
+                String coding = params[0].trim().toLowerCase();
+                boolean accepted = true;
+                for (int i = 1; i < params.length; i++) {
+                    String param = params[i].trim();
+                    if (param.startsWith("q=")) {
+                        try {
+                            accepted = Double.parseDouble(param.substring(2)) > 0;
+                        } catch (NumberFormatException e) {
+                            accepted = false;
+                        }
+                    }
+                }
+                if (!accepted) {
+                    continue;
+                }
+                switch (coding) {
+                    case "gzip", "x-gzip" -> gzip = true;
+                    case "deflate" -> deflate = true;
+                    case "*" -> wildcard = true;
+                    default -> {
+                    }
+                }
+            }
+            if (gzip || wildcard) {
+                return GZIP;
+            }
+            return deflate ? DEFLATE : IDENTITY;
+        }
+        
+        public String etagSuffix() {
+            return token == null ? "" : "-" + token;
+        }
+    }
+    
+    public static final class Snapshot {
+        private final long version;
+        private final byte[] plain;
+        private final byte[] gzip;
+        private final byte[] deflate;
+        
+        private Snapshot(long version, byte[] plain, byte[] gzip, byte[] deflate) {
+            this.version = version;
+            this.plain = plain;
+            this.gzip = gzip;
+            this.deflate = deflate;
+        }
+        
+        static Snapshot of(long version, byte[] plain) throws IOException {
+            return new Snapshot(version, plain, gzip(plain), deflate(plain));
+        }
+        
+        public long getVersion() {
+            return version;
+        }
+        
+        public byte[] getBody(Encoding encoding) {
+            return switch (encoding) {
+                case GZIP -> gzip;
+                case DEFLATE -> deflate;
+                case IDENTITY -> plain;
+            };
+        }
+        
+        /**
+         * The body as stored; the bytes are shared and written out as they are.
+         */
+        public ResponseEntity<byte[]> toResponse(Encoding encoding) {
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .cacheControl(CacheControl.noCache())
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING);
+            if (encoding.token != null) {
+                response.header(HttpHeaders.CONTENT_ENCODING, encoding.token);
+            }
+            return response.body(getBody(encoding));
+        }
+        
+        private static byte[] gzip(byte[] plain) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(plain.length / 4);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+                {
+                    def.setLevel(Deflater.BEST_COMPRESSION);
+                }
+            }) {
+                gzip.write(plain);
+            }
+            return out.toByteArray();
+        }
+        
+        // HTTP "deflate" is the zlib format, which is what Deflater writes by default
+        private static byte[] deflate(byte[] plain) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(plain.length / 4);
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+            try (OutputStream deflate = new DeflaterOutputStream(out, deflater)) {
+                deflate.write(plain);
+            } finally {
+                deflater.end();
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -6,12 +6,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class CategoryService {
     @Autowired
     private CategoryRepository categoryRepository;
     
+    // bumped after every committed write; starts from the clock so it never repeats across restarts
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+    private volatile long lastModified = System.currentTimeMillis();
+    
     public List<Category> getAllCategories() {
         return categoryRepository.findAll();
     }
@@ -25,7 +30,9 @@ public class CategoryService {
         if (categoryRepository.existsByName(category.getName())) {
             throw new RuntimeException("Category with this name already exists");
         }
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        changed();
+        return saved;
     }
     
     public Category updateCategory(Long id, Category categoryDetails) {
@@ -35,12 +42,28 @@ public class CategoryService {
         category.setName(categoryDetails.getName());
         category.setDescription(categoryDetails.getDescription());
         
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        changed();
+        return saved;
     }
     
     public void deleteCategory(Long id) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Category not found with id: " + id));
         categoryRepository.delete(category);
+        changed();
+    }
+    
+    public long getVersion() {
+        return version.get();
+    }
+    
+    public long getLastModified() {
+        return lastModified;
+    }
+    
+    private void changed() {
+        lastModified = System.currentTimeMillis();
+        version.incrementAndGet();
     }
 }
@@ -0,0 +1,429 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.event.EventLogRecord;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of domain events on local disk, split into fixed-size segment files that are
+ * memory-mapped. Every record gets the next offset; a segment file is named after the offset of
+ * its first record, so finding where an offset lives is a floor lookup on the segment names.
+ * <p>
+ * Record layout: {@code int length, int crc32} of the body, then the body {@code long offset,
+ * long outboxId, long createdAtMillis, long aggregateId, short typeLength, type, int
+ * payloadLength, payload}. A zero length ends a segment; segments are preallocated, so untouched
+ * space reads as zeros. On startup the last segment is scanned up to the first record that is
+ * missing or fails its checksum, and appending resumes there.
+ * <p>
+ * There is one writer (the {@link OutboxRelay}); readers tail the log through cursors and see a
+ * record once the writer has published the new end of the segment.
+ */
+@Component
+public class EventLog {
+    private static final Logger logger = LoggerFactory.getLogger(EventLog.class);
+    
+    private static final int HEADER_BYTES = 8;
+    private static final int FIXED_BODY_BYTES = 8 + 8 + 8 + 8 + 2 + 4;
+    private static final String SUFFIX = ".log";
+    
+    @Value("${outbox.log.dir:event-log}")
+    private String dir;
+    
+    @Value("${outbox.log.segment-bytes:67108864}")
+    private int segmentBytes;
+    
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final Object appendSignal = new Object();
+    private final List<Subscription> subscriptions = new ArrayList<>();
+    private final CRC32 crc = new CRC32();
+    
+    private Path directory;
+    private Segment active;
+    private volatile long nextOffset;
+    
+    @PostConstruct
+    public void init() {
+        try {
+            directory = Paths.get(dir).toAbsolutePath();
+            Files.createDirectories(directory);
+            List<Long> bases;
+            try (Stream<Path> files = Files.list(directory)) {
+                bases = files.map(path -> path.getFileName().toString())
+                        .filter(name -> name.endsWith(SUFFIX))
+                        .map(name -> Long.parseLong(name.substring(0, name.length() - SUFFIX.length())))
+                        .sorted()
+                        .toList();
+            }
+            for (Long base : bases) {
+                segments.put(base, Segment.open(segmentPath(base), base, segmentBytes));
+            }
+            if (segments.isEmpty()) {
+                active = Segment.open(segmentPath(0), 0, segmentBytes);
+                active.activate(0);
+                segments.put(0L, active);
+            } else {
+                active = segments.lastEntry().getValue();
+                recover(active);
+            }
+            logger.info("Event log at {} opened with {} segments, next offset {}", directory, segments.size(),
+                    nextOffset);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open event log in " + dir, e);
+        }
+    }
+    
+    @PreDestroy
+    public void close() {
+        synchronized (subscriptions) {
+            subscriptions.forEach(Subscription::close);
+        }
+        synchronized (this) {
+            force();
+            segments.values().forEach(Segment::close);
+        }
+    }
+    
+    public long getNextOffset() {
+        return nextOffset;
+    }
+    
+    public int getSegmentCount() {
+        return segments.size();
+    }
+    
+    /**
+     * Appends the records in order and returns the offset of the first. They become visible to
+     * readers together; call {@link #force()} to make them durable.
+     */
+    public synchronized long append(List<Entry> entries) {
+        long first = nextOffset;
+        long offset = first;
+        for (Entry entry : entries) {
+            byte[] type = entry.eventType.getBytes(StandardCharsets.UTF_8);
+            byte[] payload = entry.payload.getBytes(StandardCharsets.UTF_8);
+            int length = FIXED_BODY_BYTES + type.length + payload.length;
+            if (HEADER_BYTES + length > segmentBytes - 4) {
+                throw new IllegalArgumentException("Event of " + length + " bytes does not fit a log segment");
+            }
+            if (active.end + HEADER_BYTES + length > segmentBytes - 4) {
+                roll(offset);
+            }
+            MappedByteBuffer buf = active.buffer;
+            int p = active.end + HEADER_BYTES;
+            buf.putLong(p, offset);
+            buf.putLong(p + 8, entry.outboxId);
+            buf.putLong(p + 16, entry.createdAtMillis);
+            buf.putLong(p + 24, entry.aggregateId);
+            buf.putShort(p + 32, (short) type.length);
+            buf.put(p + 34, type);
+            buf.putInt(p + 34 + type.length, payload.length);
+            buf.put(p + 38 + type.length, payload);
+            crc.reset();
+            crc.update(buf.slice(p, length));
+            buf.putInt(active.end + 4, (int) crc.getValue());
+            // the length goes last: a reader that sees it sees the whole record
+            buf.putInt(active.end, length);
+            active.end += HEADER_BYTES + length;
+            offset++;
+        }
+        active.published = active.end;
+        nextOffset = offset;
+        synchronized (appendSignal) {
+            appendSignal.notifyAll();
+        }
+        return first;
+    }
+    
+    public synchronized void force() {
+        active.buffer.force();
+    }
+    
+    /**
+     * Outbox ids of up to {@code count} records at the end of the log, the ones a relay that
+     * stopped between appending and deleting may still find in the outbox.
+     */
+    public synchronized Set<Long> tailOutboxIds(int count) {
+        long from = Math.max(0, nextOffset - count);
+        Set<Long> ids = new HashSet<>();
+        Cursor cursor = cursor(from);
+        for (List<EventLogRecord> batch = cursor.poll(count); !batch.isEmpty(); batch = cursor.poll(count)) {
+            batch.forEach(record -> ids.add(record.getOutboxId()));
+        }
+        return ids;
+    }
+    
+    public Cursor cursor(long fromOffset) {
+        return new Cursor(Math.max(0, Math.min(fromOffset, nextOffset)));
+    }
+    
+    /**
+     * Delivers records from {@code fromOffset} on to the handler, at most {@code maxBatch} at a
+     * time, on a thread of its own. The next batch is read only after the handler returns, so a
+     * slow consumer falls behind in the log instead of piling records up in memory. A handler
+     * that throws gets the same batch again after a pause.
+     */
+    public Subscription subscribe(String name, long fromOffset, int maxBatch, Consumer<List<EventLogRecord>> handler) {
+        Subscription subscription = new Subscription(name, cursor(fromOffset), maxBatch, handler);
+        synchronized (subscriptions) {
+            subscriptions.add(subscription);
+        }
+        subscription.thread.start();
+        return subscription;
+    }
+    
+    boolean awaitAppend(long offset, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (appendSignal) {
+            while (nextOffset <= offset) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                appendSignal.wait(remaining);
+            }
+        }
+        return true;
+    }
+    
+    private void roll(long baseOffset) {
+        // an explicit end marker, in case the space after the last record is not zeros
+        active.buffer.putInt(active.end, 0);
+        active.buffer.force();
+        active.published = active.end;
+        active.sealed = true;
+        Segment next = Segment.open(segmentPath(baseOffset), baseOffset, segmentBytes);
+        next.activate(0);
+        segments.put(baseOffset, next);
+        active = next;
+    }
+    
+    private void recover(Segment segment) {
+        long offset = segment.baseOffset;
+        int p = 0;
+        while (p + HEADER_BYTES <= segmentBytes) {
+            int length = segment.buffer.getInt(p);
+            if (length <= 0 || p + HEADER_BYTES + length > segmentBytes) {
+                break;
+            }
+            crc.reset();
+            crc.update(segment.buffer.slice(p + HEADER_BYTES, length));
+            if ((int) crc.getValue() != segment.buffer.getInt(p + 4)
+                    || segment.buffer.getLong(p + HEADER_BYTES) != offset) {
+                logger.warn("Event log segment {} has a torn record at byte {}, truncating", segment.baseOffset, p);
+                break;
+            }
+            offset++;
+            p += HEADER_BYTES + length;
+        }
+        segment.activate(p);
+        nextOffset = offset;
+    }
+    
+    private Path segmentPath(long baseOffset) {
+        return directory.resolve(String.format("%020d%s", baseOffset, SUFFIX));
+    }
+    
+    public static final class Entry {
+        private final long outboxId;
+        private final String eventType;
+        private final long aggregateId;
+        private final long createdAtMillis;
+        private final String payload;
+        
+        public Entry(long outboxId, String eventType, long aggregateId, long createdAtMillis, String payload) {
+            this.outboxId = outboxId;
+            this.eventType = eventType;
+            this.aggregateId = aggregateId;
+            this.createdAtMillis = createdAtMillis;
+            this.payload = payload;
+        }
+    }
+    
+    /**
+     * Reads the log forward from an offset. Not thread-safe; each consumer keeps its own.
+     */
+    public final class Cursor {
+        private long offset;
+        private Segment segment;
+        private int position;
+        
+        private Cursor(long fromOffset) {
+            Map.Entry<Long, Segment> floor = segments.floorEntry(fromOffset);
+            segment = floor != null ? floor.getValue() : segments.firstEntry().getValue();
+            offset = segment.baseOffset;
+            position = 0;
+            // skip to the requested offset by record lengths alone
+            while (offset < fromOffset && hasRecord()) {
+                position += HEADER_BYTES + segment.buffer.getInt(position);
+                offset++;
+            }
+        }
+        
+        public long getOffset() {
+            return offset;
+        }
+        
+        public List<EventLogRecord> poll(int max) {
+            List<EventLogRecord> records = new ArrayList<>(Math.min(max, 256));
+            while (records.size() < max) {
+                if (!hasRecord()) {
+                    Segment next = segment.sealed ? segments.get(offset) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    segment = next;
+                    position = 0;
+                    continue;
+                }
+                records.add(read());
+            }
+            return records;
+        }
+        
+        private boolean hasRecord() {
+            if (position + HEADER_BYTES > segment.published) {
+                return false;
+            }
+            return segment.buffer.getInt(position) > 0;
+        }
+        
+        private EventLogRecord read() {
+            MappedByteBuffer buf = segment.buffer;
+            int length = buf.getInt(position);
+            int p = position + HEADER_BYTES;
+            int typeLength = buf.getShort(p + 32);
+            byte[] type = new byte[typeLength];
+            buf.get(p + 34, type);
+            byte[] payload = new byte[buf.getInt(p + 34 + typeLength)];
+            buf.get(p + 38 + typeLength, payload);
+            EventLogRecord record = new EventLogRecord(buf.getLong(p), buf.getLong(p + 8),
+                    new String(type, StandardCharsets.UTF_8), buf.getLong(p + 24), buf.getLong(p + 16),
+                    new String(payload, StandardCharsets.UTF_8));
+            position += HEADER_BYTES + length;
+            offset++;
+            return record;
+        }
+    }
+    
+    public final class Subscription {
+        private final String name;
+        private final Cursor cursor;
+        private final int maxBatch;
+        private final Consumer<List<EventLogRecord>> handler;
+        private final Thread thread;
+        private volatile long position;
+        private volatile boolean running = true;
+        
+        private Subscription(String name, Cursor cursor, int maxBatch, Consumer<List<EventLogRecord>> handler) {
+            this.name = name;
+            this.cursor = cursor;
+            this.maxBatch = maxBatch;
+            this.handler = handler;
+            this.position = cursor.getOffset();
+            this.thread = new Thread(this::run, "event-log-" + name);
+            this.thread.setDaemon(true);
+        }
+        
+        // Offset of the next record this subscription will deliver
+        public long getPosition() {
+            return position;
+        }
+        
+        public void close() {
+            running = false;
+            thread.interrupt();
+        }
+        
+        private void run() {
+            List<EventLogRecord> batch = List.of();
+            while (running) {
+                try {
+                    if (batch.isEmpty()) {
+                        batch = cursor.poll(maxBatch);
+                        if (batch.isEmpty()) {
+                            awaitAppend(cursor.getOffset(), 1000);
+                            continue;
+                        }
+                    }
+                    handler.accept(batch);
+                    position = cursor.getOffset();
+                    batch = List.of();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (RuntimeException e) {
+                    logger.warn("Event log consumer {} failed at offset {}, retrying: {}", name, position, e.getMessage());
+                    try {
+                        TimeUnit.SECONDS.sleep(1);
+                    } catch (InterruptedException interrupted) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+    }
+    
+    private static final class Segment {
+        private final long baseOffset;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int end;
+        private volatile int published;
+        private volatile boolean sealed;
+        
+        private Segment(long baseOffset, FileChannel channel, MappedByteBuffer buffer) {
+            this.baseOffset = baseOffset;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+        
+        private static Segment open(Path path, long baseOffset, int size) {
+            try {
+                FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+                Segment segment = new Segment(baseOffset, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+                // segments before the last one are complete
+                segment.published = size;
+                segment.sealed = true;
+                return segment;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot open event log segment " + path, e);
+            }
+        }
+        
+        private void activate(int end) {
+            this.end = end;
+            published = end;
+            sealed = false;
+        }
+        
+        private void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.warn("Cannot close event log segment {}", baseOffset, e);
+            }
+        }
+    }
+}
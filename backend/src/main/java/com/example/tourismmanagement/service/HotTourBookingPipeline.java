@@ -0,0 +1,348 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.dto.BookingDTO;
+import com.example.tourismmanagement.model.Booking;
+import com.example.tourismmanagement.model.OutboxEvent;
+import com.example.tourismmanagement.model.Tour;
+import com.example.tourismmanagement.model.User;
+import com.example.tourismmanagement.repository.BookingRepository;
+import com.example.tourismmanagement.repository.TourRepository;
+import com.example.tourismmanagement.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Optional "hot tour" booking path: requests for one tour are queued to a single writer thread,
+ * which reserves seats for a whole batch of callers and commits them in one transaction.
+ */
+@Service
+public class HotTourBookingPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(HotTourBookingPipeline.class);
+    
+    private static final int QUEUED = 0;
+    private static final int TAKEN = 1;
+    private static final int ABANDONED = 2;
+    
+    @Autowired
+    private BookingService bookingService;
+    
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+    
+    @Autowired
+    private BookingHoldScheduler bookingHoldScheduler;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    @Autowired
+    private TourRepository tourRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private OutboxService outboxService;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${booking.hot-tour.ids:}")
+    private String configuredHotTourIds;
+    
+    @Value("${booking.hot-tour.queue-capacity:1000}")
+    private int queueCapacity;
+    
+    @Value("${booking.hot-tour.batch-size:200}")
+    private int batchSize;
+    
+    @Value("${booking.hot-tour.timeout-ms:5000}")
+    private long timeoutMs;
+    
+    private final Map<Long, TourLane> lanes = new ConcurrentHashMap<>();
+    
+    private TransactionTemplate transactionTemplate;
+    
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        Arrays.stream(configuredHotTourIds.split(","))
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .map(Long::valueOf)
+                .forEach(this::enable);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        lanes.keySet().forEach(this::disable);
+    }
+    
+    public boolean isHot(Long tourId) {
+        return tourId != null && lanes.containsKey(tourId);
+    }
+    
+    public Set<Long> getHotTourIds() {
+        return Set.copyOf(lanes.keySet());
+    }
+    
+    public void enable(Long tourId) {
+        lanes.computeIfAbsent(tourId, id -> {
+            TourLane lane = new TourLane(id);
+            lane.start();
+            return lane;
+        });
+    }
+    
+    public void disable(Long tourId) {
+        TourLane lane = lanes.remove(tourId);
+        if (lane != null) {
+            lane.stop();
+        }
+    }
+    
+    public BookingDTO submit(BookingDTO bookingDTO, String username) {
+        TourLane lane = lanes.get(bookingDTO.getTourId());
+        if (lane == null) {
+            return bookingService.createBooking(bookingDTO, username);
+        }
+        
+        PendingBooking pending = new PendingBooking(bookingDTO, username);
+        if (!lane.queue.offer(pending)) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Tour is receiving too many bookings, please try again shortly");
+        }
+        
+        try {
+            return pending.result.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (pending.state.compareAndSet(QUEUED, ABANDONED)) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "Booking request timed out in queue, please try again");
+            }
+            // Already picked up by the writer: its commit is in flight, so give it one more timeout to finish
+            return awaitTaken(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for booking");
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+    
+    private BookingDTO awaitTaken(PendingBooking pending) {
+        try {
+            return pending.result.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // the commit may still land, so the caller is told to look before booking again
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Booking is still being confirmed, check your bookings before trying again");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for booking");
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+    
+    private RuntimeException unwrap(ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException cause) {
+            return cause;
+        }
+        return new RuntimeException(e.getCause());
+    }
+    
+    private void processBatch(Long tourId, List<PendingBooking> batch) {
+        List<PendingBooking> taken = batch.stream()
+                .filter(pending -> pending.state.compareAndSet(QUEUED, TAKEN))
+                .collect(Collectors.toList());
+        if (taken.isEmpty()) {
+            return;
+        }
+        
+        Map<PendingBooking, BookingDTO> accepted;
+        try {
+            accepted = transactionTemplate.execute(status -> commitBatch(tourId, taken));
+        } catch (RuntimeException e) {
+            logger.warn("Group commit for hot tour {} failed, falling back to single bookings: {}", tourId, e.getMessage());
+            taken.forEach(this::bookIndividually);
+            return;
+        }
+        
+        for (PendingBooking pending : taken) {
+            BookingDTO dto = accepted.get(pending);
+            if (dto != null) {
+                bookingHoldScheduler.schedule(dto.getId(), dto.getHoldExpiresAt());
+                pending.result.complete(dto);
+            } else if (!pending.result.isDone()) {
+                pending.result.completeExceptionally(new RuntimeException("Not enough available seats"));
+            }
+        }
+    }
+    
+    private Map<PendingBooking, BookingDTO> commitBatch(Long tourId, List<PendingBooking> taken) {
+        Tour tour = tourRepository.findById(tourId).orElse(null);
+        if (tour == null) {
+            taken.forEach(pending -> pending.result.completeExceptionally(new RuntimeException("Tour not found")));
+            return Map.of();
+        }
+        try {
+            bookingService.refuseWhileWaitlistHoldsSeats(tourId);
+        } catch (RuntimeException e) {
+            taken.forEach(pending -> pending.result.completeExceptionally(new RuntimeException(e.getMessage())));
+            return Map.of();
+        }
+        
+        Map<String, User> customers = userRepository.findByUsernameIn(
+                        taken.stream().map(pending -> pending.username).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(User::getUsername, Function.identity()));
+        
+        // Allocate seats in arrival order against one snapshot, then take them all with one conditional decrement
+        int remaining = tour.getStatus() == Tour.TourStatus.AVAILABLE ? tour.getAvailableSeats() : 0;
+        int reserved = 0;
+        List<PendingBooking> granted = new ArrayList<>();
+        List<Booking> bookings = new ArrayList<>();
+        for (PendingBooking pending : taken) {
+            User customer = customers.get(pending.username);
+            int seats = pending.request.getNumberOfPeople();
+            if (customer == null) {
+                pending.result.completeExceptionally(new RuntimeException("User not found"));
+                continue;
+            }
+            if (seats > remaining) {
+                continue;
+            }
+            remaining -= seats;
+            reserved += seats;
+            granted.add(pending);
+            bookings.add(newBooking(tour, customer, pending.request));
+        }
+        if (reserved == 0) {
+            return Map.of();
+        }
+        
+        if (!seatInventoryService.tryReserveSeats(tourId, reserved)) {
+            // Someone outside the pipeline changed the tour since the snapshot; let the caller fall back
+            throw new RuntimeException("Seat snapshot for tour " + tourId + " is stale");
+        }
+        
+        List<Booking> saved = bookingRepository.saveAll(bookings);
+        Map<PendingBooking, BookingDTO> accepted = new HashMap<>();
+        for (int i = 0; i < granted.size(); i++) {
+            BookingDTO dto = bookingService.convertToDTO(saved.get(i));
+            outboxService.record(OutboxEvent.EventType.BOOKING_CREATED, dto.getId(), dto);
+            accepted.put(granted.get(i), dto);
+        }
+        return accepted;
+    }
+    
+    private void bookIndividually(PendingBooking pending) {
+        if (pending.result.isDone()) {
+            return;
+        }
+        try {
+            pending.result.complete(bookingService.createBooking(pending.request, pending.username));
+        } catch (RuntimeException e) {
+            pending.result.completeExceptionally(e);
+        }
+    }
+    
+    private Booking newBooking(Tour tour, User customer, BookingDTO request) {
+        Booking booking = new Booking();
+        booking.setTour(tour);
+        booking.setCustomer(customer);
+        booking.setNumberOfPeople(request.getNumberOfPeople());
+        booking.setTotalAmount(tour.getPrice().multiply(BigDecimal.valueOf(request.getNumberOfPeople())));
+        booking.setStatus(Booking.BookingStatus.PENDING);
+        booking.setPaymentStatus(Booking.PaymentStatus.UNPAID);
+        booking.setSpecialRequests(request.getSpecialRequests());
+        booking.setHoldExpiresAt(bookingHoldScheduler.newDeadline());
+        return booking;
+    }
+    
+    private static class PendingBooking {
+        private final BookingDTO request;
+        private final String username;
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+        private final CompletableFuture<BookingDTO> result = new CompletableFuture<>();
+        
+        private PendingBooking(BookingDTO request, String username) {
+            this.request = request;
+            this.username = username;
+        }
+    }
+    
+    private class TourLane implements Runnable {
+        private final Long tourId;
+        private final BlockingQueue<PendingBooking> queue;
+        private final Thread writer;
+        private volatile boolean running = true;
+        
+        private TourLane(Long tourId) {
+            this.tourId = tourId;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.writer = new Thread(this, "hot-tour-" + tourId);
+            this.writer.setDaemon(true);
+        }
+        
+        private void start() {
+            writer.start();
+        }
+        
+        private void stop() {
+            running = false;
+        }
+        
+        @Override
+        public void run() {
+            List<PendingBooking> batch = new ArrayList<>(batchSize);
+            while (running || !queue.isEmpty()) {
+                try {
+                    PendingBooking first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    processBatch(tourId, batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (RuntimeException e) {
+                    logger.error("Hot tour {} writer failed on a batch", tourId, e);
+                    batch.forEach(pending -> pending.result.completeExceptionally(e));
+                } finally {
+                    batch.clear();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,472 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.dto.TourImageDTO;
+import com.example.tourismmanagement.model.Tour;
+import com.example.tourismmanagement.model.TourImage;
+import com.example.tourismmanagement.repository.TourImageRepository;
+import com.example.tourismmanagement.repository.TourRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Stores tour images under {@code image.storage.dir}, one directory per image id holding the
+ * original and its JPEG variants. Uploads are moved to disk as they arrive and only their header
+ * is read on the request thread; decoding and resizing run on a bounded pool, and an upload that
+ * finds the pool's queue full is refused with 503.
+ * <p>
+ * Variant files are written once and never change, so they can be served with long-lived cache
+ * headers. Until an image has been processed its variants are served from the original.
+ */
+@Service
+public class ImageService {
+    private static final Logger logger = LoggerFactory.getLogger(ImageService.class);
+    private static final int ID_CHUNK_SIZE = 1000;
+    
+    @Autowired
+    private TourImageRepository tourImageRepository;
+    
+    @Autowired
+    private TourRepository tourRepository;
+    
+    @Autowired
+    private TourService tourService;
+    
+    @Value("${image.storage.dir:images}")
+    private String storageDir;
+    
+    @Value("${image.processing.threads:2}")
+    private int threads;
+    
+    @Value("${image.processing.queue-capacity:64}")
+    private int queueCapacity;
+    
+    // rejects decompression bombs before anything is decoded
+    @Value("${image.max-pixels:50000000}")
+    private long maxPixels;
+    
+    @Value("${image.large-size:1280}")
+    private int largeSize;
+    
+    @Value("${image.thumbnail-size:320}")
+    private int thumbnailSize;
+    
+    @Value("${image.jpeg-quality:0.85}")
+    private float jpegQuality;
+    
+    private Path root;
+    private ThreadPoolExecutor processor;
+    
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(storageDir).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+        AtomicInteger threadNumber = new AtomicInteger();
+        processor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "image-processor-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        processor.execute(this::recover);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        processor.shutdownNow();
+    }
+    
+    public TourImageDTO upload(Long tourId, MultipartFile file) {
+        if (file.isEmpty()) {
+            throw new RuntimeException("Image file is empty");
+        }
+        Tour tour = tourRepository.findById(tourId)
+                .orElseThrow(() -> new RuntimeException("Tour not found with id: " + tourId));
+        Path incoming = root.resolve("upload-" + UUID.randomUUID() + ".tmp");
+        try {
+            // parts above the multipart threshold are already on disk; this moves them rather than copying
+            file.transferTo(incoming.toFile());
+            Probe probe = probe(incoming);
+            
+            TourImage image = new TourImage();
+            image.setTour(tour);
+            image.setOriginalFilename(file.getOriginalFilename());
+            image.setContentType(probe.format.contentType);
+            image.setWidth(probe.width);
+            image.setHeight(probe.height);
+            image.setSizeBytes(Files.size(incoming));
+            image = tourImageRepository.save(image);
+            
+            Long imageId = image.getId();
+            try {
+                Path directory = directory(imageId);
+                Files.createDirectories(directory);
+                Files.move(incoming, directory.resolve(Variant.ORIGINAL.fileName + "." + probe.format.extension),
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                // no row may stay PROCESSING without its original
+                tourImageRepository.deleteById(imageId);
+                deleteFiles(imageId);
+                throw e;
+            }
+            try {
+                processor.execute(() -> process(imageId));
+            } catch (RejectedExecutionException e) {
+                tourImageRepository.deleteById(imageId);
+                deleteFiles(imageId);
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Image processing is busy, please try again");
+            }
+            if (tour.getCoverImageId() == null) {
+                tourService.setCoverImage(tourId, imageId);
+            }
+            return convertToDTO(image);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not store image: " + e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(incoming);
+            } catch (IOException e) {
+                logger.warn("Could not remove upload {}: {}", incoming, e.getMessage());
+            }
+        }
+    }
+    
+    public List<TourImageDTO> getTourImages(Long tourId) {
+        return tourImageRepository.findByTourIdOrderByIdAsc(tourId).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+    
+    public void deleteImage(Long id) {
+        TourImage image = tourImageRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Image not found with id: " + id));
+        Long tourId = image.getTour().getId();
+        tourRepository.findById(tourId)
+                .filter(tour -> id.equals(tour.getCoverImageId()))
+                .ifPresent(tour -> tourService.setCoverImage(tourId, null));
+        tourImageRepository.delete(image);
+        deleteFiles(id);
+    }
+    
+    /**
+     * The file to send for a variant, or null when the image does not exist. Reads only the file
+     * system, so serving an image costs no query.
+     */
+    public StoredFile locate(Long id, Variant variant) throws IOException {
+        Path directory = directory(id);
+        if (variant != Variant.ORIGINAL) {
+            Path generated = directory.resolve(variant.fileName + ".jpg");
+            if (Files.isRegularFile(generated)) {
+                return new StoredFile(generated, "image/jpeg", Files.size(generated), true);
+            }
+        }
+        for (Format format : Format.values()) {
+            Path original = directory.resolve(Variant.ORIGINAL.fileName + "." + format.extension);
+            if (Files.isRegularFile(original)) {
+                return new StoredFile(original, format.contentType, Files.size(original), variant == Variant.ORIGINAL);
+            }
+        }
+        return null;
+    }
+    
+    public static String url(Long id, Variant variant) {
+        return "/api/images/" + id + "/" + variant.fileName;
+    }
+    
+    /**
+     * Writes the large and thumbnail variants of a stored original and marks the image READY, or
+     * FAILED when the original is missing or cannot be decoded.
+     */
+    void process(Long id) {
+        TourImage.ImageStatus status = TourImage.ImageStatus.READY;
+        try {
+            StoredFile original = locate(id, Variant.ORIGINAL);
+            if (original == null) {
+                throw new IOException("original is missing");
+            }
+            Path directory = directory(id);
+            BufferedImage decoded = decode(original.getPath(), largeSize);
+            BufferedImage large = scale(decoded, largeSize);
+            writeJpeg(large, directory.resolve(Variant.LARGE.fileName + ".jpg"));
+            writeJpeg(scale(large, thumbnailSize), directory.resolve(Variant.THUMB.fileName + ".jpg"));
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not process image {}: {}", id, e.getMessage());
+            status = TourImage.ImageStatus.FAILED;
+        }
+        if (tourImageRepository.updateStatus(id, status) == 0) {
+            // deleted while it was being processed
+            deleteFiles(id);
+        }
+    }
+    
+    // Images left PROCESSING by a restart are queued again; directories without a row are removed
+    private void recover() {
+        for (Long id : tourImageRepository.findIdsByStatus(TourImage.ImageStatus.PROCESSING)) {
+            try {
+                processor.execute(() -> process(id));
+            } catch (RejectedExecutionException e) {
+                logger.warn("Image queue full, image {} stays PROCESSING until the next restart", id);
+            }
+        }
+        List<Long> stored = new ArrayList<>();
+        try (Stream<Path> entries = Files.list(root)) {
+            entries.forEach(entry -> {
+                String name = entry.getFileName().toString();
+                if (name.startsWith("upload-")) {
+                    deleteQuietly(entry);
+                } else if (name.chars().allMatch(Character::isDigit)) {
+                    stored.add(Long.valueOf(name));
+                }
+            });
+        } catch (IOException e) {
+            logger.warn("Could not scan image directory {}: {}", root, e.getMessage());
+            return;
+        }
+        for (int from = 0; from < stored.size(); from += ID_CHUNK_SIZE) {
+            List<Long> chunk = new ArrayList<>(stored.subList(from, Math.min(from + ID_CHUNK_SIZE, stored.size())));
+            chunk.removeAll(tourImageRepository.findExistingIds(chunk));
+            chunk.forEach(this::deleteFiles);
+        }
+    }
+    
+    private Probe probe(Path file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new RuntimeException("Only JPEG, PNG and GIF images are supported");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                Format format = Format.of(reader.getFormatName());
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new RuntimeException("Image is larger than " + maxPixels / 1_000_000 + " megapixels");
+                }
+                return new Probe(format, width, height);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+    
+    private BufferedImage decode(Path file, int targetSize) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                throw new IOException("No reader for " + file.getFileName());
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                // skip pixels while decoding when the original is far larger than needed; scaling smooths the rest
+                int step = Math.max(1, Math.max(reader.getWidth(0), reader.getHeight(0)) / (targetSize * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+    
+    /**
+     * Fits the image into a {@code maxSide} square on a white background, halving at most once per
+     * step so bilinear filtering does not skip source pixels.
+     */
+    static BufferedImage scale(BufferedImage source, int maxSide) {
+        double ratio = Math.min(1.0, (double) maxSide / Math.max(source.getWidth(), source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(current, 0, 0, width, height, Color.WHITE, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+    
+    // written next to the target and renamed, so a variant is either absent or complete
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(temporary.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+    
+    private Path directory(Long id) {
+        return root.resolve(Long.toString(id));
+    }
+    
+    private void deleteFiles(Long id) {
+        deleteQuietly(directory(id));
+    }
+    
+    private void deleteQuietly(Path path) {
+        try {
+            FileSystemUtils.deleteRecursively(path);
+        } catch (IOException e) {
+            logger.warn("Could not delete {}: {}", path, e.getMessage());
+        }
+    }
+    
+    private TourImageDTO convertToDTO(TourImage image) {
+        TourImageDTO dto = new TourImageDTO();
+        dto.setId(image.getId());
+        dto.setTourId(image.getTour().getId());
+        dto.setOriginalFilename(image.getOriginalFilename());
+        dto.setContentType(image.getContentType());
+        dto.setSizeBytes(image.getSizeBytes());
+        dto.setWidth(image.getWidth());
+        dto.setHeight(image.getHeight());
+        dto.setStatus(image.getStatus().name());
+        dto.setCreatedAt(image.getCreatedAt());
+        dto.setOriginalUrl(url(image.getId(), Variant.ORIGINAL));
+        dto.setLargeUrl(url(image.getId(), Variant.LARGE));
+        dto.setThumbnailUrl(url(image.getId(), Variant.THUMB));
+        return dto;
+    }
+    
+    public enum Variant {
+        ORIGINAL("original"), LARGE("large"), THUMB("thumb");
+        
+        private final String fileName;
+        
+        Variant(String fileName) {
+            this.fileName = fileName;
+        }
+        
+        public static Variant fromPath(String value) {
+            for (Variant variant : values()) {
+                if (variant.fileName.equals(value)) {
+                    return variant;
+                }
+            }
+            return null;
+        }
+    }
+    
+    private enum Format {
+        JPEG("jpeg", "jpg", "image/jpeg"), PNG("png", "png", "image/png"), GIF("gif", "gif", "image/gif");
+        
+        private final String readerName;
+        private final String extension;
+        private final String contentType;
+        
+        Format(String readerName, String extension, String contentType) {
+            this.readerName = readerName;
+            this.extension = extension;
+            this.contentType = contentType;
+        }
+        
+        static Format of(String readerName) {
+            for (Format format : values()) {
+                if (format.readerName.equalsIgnoreCase(readerName)) {
+                    return format;
+                }
+            }
+            throw new RuntimeException("Only JPEG, PNG and GIF images are supported");
+        }
+    }
+    
+    private static final class Probe {
+        private final Format format;
+        private final int width;
+        private final int height;
+        
+        Probe(Format format, int width, int height) {
+            this.format = format;
+            this.width = width;
+            this.height = height;
+        }
+    }
+    
+    public static final class StoredFile {
+        private final Path path;
+        private final String contentType;
+        private final long size;
+        private final boolean immutable;
+        
+        StoredFile(Path path, String contentType, long size, boolean immutable) {
+            this.path = path;
+            this.contentType = contentType;
+            this.size = size;
+            this.immutable = immutable;
+        }
+        
+        public Path getPath() {
+            return path;
+        }
+        
+        public String getContentType() {
+            return contentType;
+        }
+        
+        public long getSize() {
+            return size;
+        }
+        
+        // false while a variant is stood in for by the original
+        public boolean isImmutable() {
+            return immutable;
+        }
+    }
+}
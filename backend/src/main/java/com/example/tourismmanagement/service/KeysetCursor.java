@@ -0,0 +1,51 @@
+package com.example.tourismmanagement.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.function.Function;
+
+/**
+ * Opaque page cursor holding the sort key and id of the last row a client has seen.
+ */
+public final class KeysetCursor<T> {
+    private static final char SEPARATOR = '|';
+    
+    private final T sortValue;
+    private final Long id;
+    
+    private KeysetCursor(T sortValue, Long id) {
+        this.sortValue = sortValue;
+        this.id = id;
+    }
+    
+    public T getSortValue() {
+        return sortValue;
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public static String encode(Object sortValue, Long id) {
+        String raw = sortValue + String.valueOf(SEPARATOR) + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public static <T> KeysetCursor<T> decode(String cursor, Function<String, T> sortValueParser) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            return new KeysetCursor<>(sortValueParser.apply(raw.substring(0, separator)),
+                    Long.valueOf(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid page cursor");
+        }
+    }
+    
+    public static int clampPageSize(Integer size, int defaultSize, int maxSize) {
+        if (size == null || size <= 0) {
+            return defaultSize;
+        }
+        return Math.min(size, maxSize);
+    }
+}
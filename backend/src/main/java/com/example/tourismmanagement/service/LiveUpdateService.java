@@ -0,0 +1,467 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.dto.TourSnapshotRow;
+import com.example.tourismmanagement.event.EventLogRecord;
+import com.example.tourismmanagement.event.TourChangedEvent;
+import com.example.tourismmanagement.model.OutboxEvent;
+import com.example.tourismmanagement.model.User;
+import com.example.tourismmanagement.repository.TourRepository;
+import com.example.tourismmanagement.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes seat counts of watched tours and booking status changes of the signed-in customer to
+ * Server-Sent Event streams.
+ * <p>
+ * Seat changes are coalesced: a changed tour is only marked dirty, and every
+ * {@code live-updates.coalesce-ms} one query reads the current counts of all dirty tours, whose
+ * events are serialized once and shared by every connection watching them. Booking changes are
+ * read from the {@link EventLog}, so only committed changes are pushed.
+ * <p>
+ * Idle connections hold no thread. Each connection keeps at most one pending event per tour or
+ * booking, a newer one replacing the older, and is written by a small shared pool. A client that
+ * does not read falls behind by distinct tours and bookings only; once more than
+ * {@code live-updates.max-pending-events} are waiting it is disconnected and has to reconnect.
+ * The limit is never below what one connection can legitimately have pending at once: every tour
+ * it watches, a heartbeat and a booking change.
+ * <p>
+ * A client whose socket stops draining blocks the write in progress until the container's write
+ * timeout. The flush thread watches write deadlines: a write stuck for longer than
+ * {@code live-updates.write-timeout-ms} gets its connection dropped and a spare thread added to
+ * the pool for as long as it stays stuck, so other clients keep their writers.
+ */
+@Service
+public class LiveUpdateService {
+    private static final Logger logger = LoggerFactory.getLogger(LiveUpdateService.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    
+    @Autowired
+    private TourRepository tourRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private EventLog eventLog;
+    
+    @Value("${live-updates.coalesce-ms:250}")
+    private long coalesceMs;
+    
+    @Value("${live-updates.heartbeat-ms:20000}")
+    private long heartbeatMs;
+    
+    @Value("${live-updates.timeout-ms:1800000}")
+    private long timeoutMs;
+    
+    @Value("${live-updates.max-connections:50000}")
+    private int maxConnections;
+    
+    @Value("${live-updates.max-tours-per-connection:50}")
+    private int maxToursPerConnection;
+    
+    @Value("${live-updates.max-pending-events:32}")
+    private int maxPendingEvents;
+    
+    @Value("${live-updates.writer-threads:4}")
+    private int writerThreads;
+    
+    @Value("${live-updates.write-timeout-ms:5000}")
+    private long writeTimeoutMs;
+    
+    @Value("${live-updates.max-stalled-writers:64}")
+    private int maxStalledWriters;
+    
+    private final Map<Long, Set<Connection>> byTour = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Connection>> byCustomer = new ConcurrentHashMap<>();
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private final Set<Long> dirtyTours = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private volatile boolean running = true;
+    
+    private int pendingLimit;
+    // guarded by writers
+    private int stalledWriters;
+    private ThreadPoolExecutor writers;
+    private EventLog.Subscription bookingEvents;
+    private Thread flusher;
+    
+    @PostConstruct
+    public void init() {
+        pendingLimit = Math.max(maxPendingEvents, maxToursPerConnection + 2);
+        AtomicInteger threadNumber = new AtomicInteger();
+        writers = new ThreadPoolExecutor(writerThreads, writerThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "live-update-writer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        bookingEvents = eventLog.subscribe("live-updates", eventLog.getNextOffset(), 500, this::onBookingEvents);
+        flusher = new Thread(this::run, "live-update-flush");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        flusher.interrupt();
+        bookingEvents.close();
+        connections.forEach(Connection::close);
+        writers.shutdownNow();
+    }
+    
+    /**
+     * Opens a stream of seat counts for the given tours; the current counts are sent first.
+     */
+    public SseEmitter subscribeTours(Collection<Long> tourIds) {
+        if (tourIds.isEmpty() || tourIds.size() > maxToursPerConnection) {
+            throw new RuntimeException("Between 1 and " + maxToursPerConnection + " tour ids are required");
+        }
+        Connection connection = open(Set.copyOf(tourIds), null);
+        return start(connection, tourIds);
+    }
+    
+    /**
+     * Opens a stream of status changes of the customer's bookings, plus seat counts for any
+     * tours given.
+     */
+    public SseEmitter subscribeBookings(String username, Collection<Long> tourIds) {
+        if (tourIds.size() > maxToursPerConnection) {
+            throw new RuntimeException("At most " + maxToursPerConnection + " tour ids are allowed");
+        }
+        User customer = userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        Connection connection = open(Set.copyOf(tourIds), customer.getId());
+        return start(connection, tourIds);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTourChanged(TourChangedEvent event) {
+        if (byTour.containsKey(event.getTourId())) {
+            dirtyTours.add(event.getTourId());
+        }
+    }
+    
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+    
+    /**
+     * Sends the current seat counts of every tour changed since the last flush to its watchers.
+     */
+    void flushSeats() {
+        if (dirtyTours.isEmpty()) {
+            return;
+        }
+        List<Long> tourIds = new ArrayList<>(dirtyTours);
+        dirtyTours.removeAll(tourIds);
+        readSeats(tourIds).forEach((tourId, data) -> {
+            Set<Connection> watchers = byTour.get(tourId);
+            if (watchers != null) {
+                watchers.forEach(connection -> connection.enqueue("seats:" + tourId, "seats", data));
+            }
+        });
+    }
+    
+    void sendHeartbeats() {
+        connections.forEach(Connection::heartbeat);
+    }
+    
+    void checkWriteDeadlines() {
+        long now = System.currentTimeMillis();
+        connections.forEach(connection -> connection.checkWriteDeadline(now));
+    }
+    
+    int getStalledWriterCount() {
+        synchronized (writers) {
+            return stalledWriters;
+        }
+    }
+    
+    // the stuck thread is out of the pool's reach until its write fails, so another one stands in
+    private boolean borrowWriter() {
+        synchronized (writers) {
+            if (stalledWriters >= maxStalledWriters) {
+                return false;
+            }
+            stalledWriters++;
+            writers.setMaximumPoolSize(writerThreads + stalledWriters);
+            writers.setCorePoolSize(writerThreads + stalledWriters);
+            return true;
+        }
+    }
+    
+    private void returnWriter() {
+        synchronized (writers) {
+            stalledWriters--;
+            writers.setCorePoolSize(writerThreads + stalledWriters);
+            writers.setMaximumPoolSize(writerThreads + stalledWriters);
+        }
+    }
+    
+    private Connection open(Set<Long> tourIds, Long customerId) {
+        if (connectionCount.incrementAndGet() > maxConnections) {
+            connectionCount.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many live update connections");
+        }
+        Connection connection = new Connection(new SseEmitter(timeoutMs), tourIds, customerId);
+        connection.emitter.onCompletion(connection::unregister);
+        connection.emitter.onTimeout(connection::close);
+        connection.emitter.onError(error -> connection.close());
+        connections.add(connection);
+        tourIds.forEach(tourId -> byTour.compute(tourId, (id, watchers) -> add(watchers, connection)));
+        if (customerId != null) {
+            byCustomer.compute(customerId, (id, watchers) -> add(watchers, connection));
+        }
+        return connection;
+    }
+    
+    private SseEmitter start(Connection connection, Collection<Long> tourIds) {
+        try {
+            readSeats(tourIds).forEach((tourId, data) -> connection.enqueue("seats:" + tourId, "seats", data));
+        } catch (RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+        return connection.emitter;
+    }
+    
+    // inside compute, so a set is never emptied and dropped while a connection is being added to it
+    private static Set<Connection> add(Set<Connection> watchers, Connection connection) {
+        Set<Connection> result = watchers != null ? watchers : ConcurrentHashMap.newKeySet();
+        result.add(connection);
+        return result;
+    }
+    
+    private static Set<Connection> remove(Set<Connection> watchers, Connection connection) {
+        watchers.remove(connection);
+        return watchers.isEmpty() ? null : watchers;
+    }
+    
+    private Map<Long, String> readSeats(Collection<Long> tourIds) {
+        Map<Long, String> seats = new LinkedHashMap<>();
+        if (tourIds.isEmpty()) {
+            return seats;
+        }
+        for (TourSnapshotRow row : tourRepository.findSnapshotRowsByIdIn(tourIds)) {
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("tourId", row.getId());
+            data.put("availableSeats", row.getAvailableSeats());
+            data.put("status", row.getStatus().name());
+            seats.put(row.getId(), toJson(data));
+        }
+        return seats;
+    }
+    
+    private void onBookingEvents(List<EventLogRecord> records) {
+        for (EventLogRecord record : records) {
+            String type = record.getEventType();
+            if (!type.equals(OutboxEvent.EventType.BOOKING_CREATED.name())
+                    && !type.equals(OutboxEvent.EventType.BOOKING_STATUS_CHANGED.name())) {
+                continue;
+            }
+            try {
+                JsonNode payload = objectMapper.readTree(record.getPayload());
+                Set<Connection> watchers = byCustomer.get(payload.path("customerId").asLong());
+                if (watchers == null) {
+                    continue;
+                }
+                Map<String, Object> data = new LinkedHashMap<>();
+                data.put("id", payload.path("id").asLong());
+                data.put("tourId", payload.path("tourId").asLong());
+                data.put("status", payload.path("status").asText());
+                data.put("paymentStatus", payload.path("paymentStatus").asText());
+                String json = toJson(data);
+                watchers.forEach(connection -> connection.enqueue("booking:" + record.getAggregateId(), "booking", json));
+            } catch (JsonProcessingException e) {
+                logger.warn("Skipping unreadable {} event at offset {}", type, record.getOffset());
+            }
+        }
+    }
+    
+    private void run() {
+        long nextHeartbeat = System.currentTimeMillis() + heartbeatMs;
+        while (running) {
+            try {
+                Thread.sleep(coalesceMs);
+                flushSeats();
+                checkWriteDeadlines();
+                if (System.currentTimeMillis() >= nextHeartbeat) {
+                    sendHeartbeats();
+                    nextHeartbeat = System.currentTimeMillis() + heartbeatMs;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.warn("Live update flush failed: {}", e.getMessage());
+            }
+        }
+    }
+    
+    private static String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private final class Connection {
+        private final SseEmitter emitter;
+        private final Set<Long> tourIds;
+        private final Long customerId;
+        // keyed by tour or booking, so a newer state replaces one the client has not been sent yet
+        private final LinkedHashMap<String, SseEmitter.SseEventBuilder> pending = new LinkedHashMap<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean registered = new AtomicBoolean(true);
+        private volatile boolean closed;
+        // guarded by pending: when the write in progress started (0 when none), and whether it was given up on
+        private long writingSince;
+        private boolean stalled;
+        private boolean replaced;
+        
+        private Connection(SseEmitter emitter, Set<Long> tourIds, Long customerId) {
+            this.emitter = emitter;
+            this.tourIds = tourIds;
+            this.customerId = customerId;
+        }
+        
+        void enqueue(String key, String name, String data) {
+            put(key, SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        }
+        
+        void heartbeat() {
+            put("heartbeat", SseEmitter.event().comment(""));
+        }
+        
+        private void put(String key, SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return;
+            }
+            boolean overflow;
+            synchronized (pending) {
+                overflow = !pending.containsKey(key) && pending.size() >= pendingLimit;
+                if (!overflow) {
+                    pending.put(key, event);
+                }
+            }
+            if (overflow) {
+                logger.debug("Dropping a live update client that stopped reading");
+                close();
+                return;
+            }
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    writers.execute(this::drain);
+                } catch (RuntimeException e) {
+                    close();
+                }
+            }
+        }
+        
+        private void drain() {
+            while (true) {
+                List<SseEmitter.SseEventBuilder> batch;
+                synchronized (pending) {
+                    if (pending.isEmpty() || closed) {
+                        scheduled.set(false);
+                        return;
+                    }
+                    batch = new ArrayList<>(pending.values());
+                    pending.clear();
+                    writingSince = System.currentTimeMillis();
+                }
+                boolean failed = false;
+                try {
+                    for (SseEmitter.SseEventBuilder event : batch) {
+                        emitter.send(event);
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    failed = true;
+                }
+                boolean wasStalled;
+                boolean wasReplaced;
+                synchronized (pending) {
+                    writingSince = 0;
+                    wasStalled = stalled;
+                    wasReplaced = replaced;
+                }
+                if (wasReplaced) {
+                    returnWriter();
+                }
+                if (failed || wasStalled) {
+                    close();
+                    scheduled.set(false);
+                    return;
+                }
+            }
+        }
+        
+        void checkWriteDeadline(long now) {
+            synchronized (pending) {
+                if (writingSince == 0 || now - writingSince <= writeTimeoutMs || stalled) {
+                    return;
+                }
+                stalled = true;
+                replaced = borrowWriter();
+            }
+            logger.debug("Dropping a live update client whose socket stopped draining");
+            // completing the emitter would wait for the stuck write, so it is done once the write gives up
+            unregister();
+        }
+        
+        void close() {
+            closed = true;
+            unregister();
+            try {
+                emitter.complete();
+            } catch (RuntimeException e) {
+                // already completed by the container
+            }
+        }
+        
+        void unregister() {
+            if (!registered.compareAndSet(true, false)) {
+                return;
+            }
+            closed = true;
+            connections.remove(this);
+            connectionCount.decrementAndGet();
+            for (Long tourId : tourIds) {
+                byTour.computeIfPresent(tourId, (id, watchers) -> remove(watchers, this));
+            }
+            if (customerId != null) {
+                byCustomer.computeIfPresent(customerId, (id, watchers) -> remove(watchers, this));
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.model.OutboxEvent;
+import com.example.tourismmanagement.repository.OutboxEventRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves committed outbox rows into the {@link EventLog}: a batch is appended, forced to disk and
+ * only then deleted from the table. If the application stops in between, the rows are still in
+ * the outbox on startup but their records are at the tail of the log, so the relay checks the
+ * tail and deletes them without appending them twice.
+ * <p>
+ * Commits that write to the outbox wake the relay immediately; the poll interval only matters
+ * for rows written by another instance.
+ */
+@Service
+public class OutboxRelay {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+    
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    
+    @Autowired
+    private EventLog eventLog;
+    
+    @Value("${outbox.relay.batch-size:500}")
+    private int batchSize;
+    
+    @Value("${outbox.relay.poll-ms:1000}")
+    private long pollMs;
+    
+    private final Semaphore wakeUp = new Semaphore(0);
+    private volatile boolean running = true;
+    
+    private Set<Long> alreadyLogged;
+    private Thread worker;
+    
+    @PostConstruct
+    public void init() {
+        alreadyLogged = eventLog.tailOutboxIds(batchSize);
+        worker = new Thread(this::run, "outbox-relay");
+        worker.setDaemon(true);
+        worker.start();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        worker.interrupt();
+    }
+    
+    @TransactionalEventListener
+    public void onOutboxWritten(OutboxEvent event) {
+        wakeUp.release();
+    }
+    
+    private void run() {
+        while (running) {
+            try {
+                wakeUp.tryAcquire(pollMs, TimeUnit.MILLISECONDS);
+                // one relay pass handles every commit that woke us so far
+                wakeUp.drainPermits();
+                int relayed;
+                do {
+                    relayed = relay();
+                } while (relayed == batchSize);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Outbox relay failed, retrying", e);
+            }
+        }
+    }
+    
+    /**
+     * Relays one batch of the oldest outbox rows and returns how many rows it took off the table.
+     */
+    int relay() {
+        List<OutboxEvent> events = outboxEventRepository.findByOrderByIdAsc(Limit.of(batchSize));
+        if (events.isEmpty()) {
+            return 0;
+        }
+        List<EventLog.Entry> entries = new ArrayList<>(events.size());
+        List<Long> ids = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            ids.add(event.getId());
+            if (alreadyLogged.contains(event.getId())) {
+                continue;
+            }
+            entries.add(new EventLog.Entry(event.getId(), event.getEventType().name(), event.getAggregateId(),
+                    event.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), event.getPayload()));
+        }
+        if (!entries.isEmpty()) {
+            eventLog.append(entries);
+            eventLog.force();
+        }
+        outboxEventRepository.deleteAllByIdInBatch(ids);
+        if (!alreadyLogged.isEmpty()) {
+            alreadyLogged = Set.of();
+        }
+        return events.size();
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.model.OutboxEvent;
+import com.example.tourismmanagement.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Writes domain events to the outbox table. Recording joins the caller's transaction and refuses
+ * to run without one, so an event exists exactly when the change it describes was committed.
+ * {@link OutboxRelay} picks the rows up from there.
+ */
+@Service
+public class OutboxService {
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(OutboxEvent.EventType eventType, Long aggregateId, Object payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setEventType(eventType);
+        event.setAggregateId(aggregateId);
+        try {
+            event.setPayload(MAPPER.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize " + eventType + " payload", e);
+        }
+        outboxEventRepository.save(event);
+        // wakes the relay once this transaction commits
+        eventPublisher.publishEvent(event);
+    }
+}
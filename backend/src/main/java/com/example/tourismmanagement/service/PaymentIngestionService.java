@@ -0,0 +1,299 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.dto.PaymentCallbackRequest;
+import com.example.tourismmanagement.event.BookingCancelledEvent;
+import com.example.tourismmanagement.model.Booking;
+import com.example.tourismmanagement.model.Payment;
+import com.example.tourismmanagement.repository.BookingRepository;
+import com.example.tourismmanagement.repository.PaymentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Takes payment gateway callbacks and applies them to payments and bookings in batches. The
+ * callback itself only validates, deduplicates and queues, so bursts of retries are answered
+ * without a transaction.
+ * <p>
+ * Duplicates are recognised in three steps: callbacks still queued are found in memory, a
+ * Bloom filter over every transaction id seen by this instance says which transactions are
+ * certainly new, and only callbacks for transactions it cannot rule out are looked up through
+ * the unique transaction_id index. Settlement checks the database again, so the filter only ever saves
+ * work and never decides on its own.
+ * <p>
+ * A transaction only moves forward (PENDING, then FAILED or COMPLETED), so callbacks arriving out
+ * of order cannot undo a later state. Each transaction has its own payment row; once one of a
+ * booking's transactions is paid, callbacks for its other transactions are ignored.
+ */
+@Service
+public class PaymentIngestionService {
+    private static final Logger logger = LoggerFactory.getLogger(PaymentIngestionService.class);
+    
+    private static final EnumSet<Payment.PaymentStatus> CALLBACK_STATUSES = EnumSet.of(Payment.PaymentStatus.PENDING,
+            Payment.PaymentStatus.COMPLETED, Payment.PaymentStatus.FAILED);
+    
+    @Autowired
+    private PaymentRepository paymentRepository;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${payment.queue-capacity:10000}")
+    private int queueCapacity;
+    
+    @Value("${payment.batch-size:200}")
+    private int batchSize;
+    
+    @Value("${payment.dedupe.expected-transactions:1000000}")
+    private long expectedTransactions;
+    
+    @Value("${payment.dedupe.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+    
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+    private volatile boolean running = true;
+    
+    private BlockingQueue<Callback> queue;
+    private BloomFilter seen;
+    private TransactionTemplate transactionTemplate;
+    private Thread worker;
+    
+    @PostConstruct
+    public void init() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        seen = new BloomFilter(expectedTransactions, falsePositiveRate);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        worker = new Thread(this::run, "payment-settlement");
+        worker.setDaemon(true);
+        worker.start();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        worker.interrupt();
+    }
+    
+    /**
+     * Queues the callback for settlement. Returns false when it is a duplicate of one already
+     * queued or applied.
+     */
+    public boolean accept(PaymentCallbackRequest request) {
+        Callback callback = Callback.of(request);
+        String key = callback.key();
+        if (queued.contains(key)) {
+            return false;
+        }
+        if (seen.mightContain(callback.transactionId) && isApplied(callback)) {
+            return false;
+        }
+        if (!queued.add(key)) {
+            return false;
+        }
+        if (!queue.offer(callback)) {
+            queued.remove(key);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Payment queue is full, please retry");
+        }
+        seen.put(callback.transactionId);
+        return true;
+    }
+    
+    public int getQueuedCount() {
+        return queue.size();
+    }
+    
+    private boolean isApplied(Callback callback) {
+        return paymentRepository.findByTransactionId(callback.transactionId)
+                .map(payment -> rank(payment.getStatus()) >= rank(callback.status))
+                .orElse(false);
+    }
+    
+    private void run() {
+        List<Callback> batch = new ArrayList<>();
+        while (running) {
+            try {
+                Callback first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                settleBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.forEach(callback -> queued.remove(callback.key()));
+                batch.clear();
+            }
+        }
+    }
+    
+    private void settleBatch(List<Callback> batch) {
+        try {
+            settle(batch);
+        } catch (RuntimeException e) {
+            // one bad callback must not hold back the rest of the batch
+            logger.warn("Settling {} payment callbacks together failed, settling one by one: {}", batch.size(),
+                    e.getMessage());
+            for (Callback callback : batch) {
+                try {
+                    settle(List.of(callback));
+                } catch (RuntimeException single) {
+                    logger.error("Payment callback {} for booking {} could not be settled", callback.transactionId,
+                            callback.bookingId, single);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Applies the callbacks in one transaction: one query for the bookings, locked in id order,
+     * one for their payments, and the changed rows written at commit. Returns how many
+     * callbacks changed something.
+     */
+    int settle(List<Callback> callbacks) {
+        Integer applied = transactionTemplate.execute(status -> {
+            // the furthest state per transaction wins, whatever order the gateway sent them in
+            Map<String, Callback> latest = new LinkedHashMap<>();
+            for (Callback callback : callbacks) {
+                latest.merge(callback.transactionId, callback,
+                        (a, b) -> rank(b.status) > rank(a.status) ? b : a);
+            }
+            Set<Long> bookingIds = new TreeSet<>();
+            latest.values().forEach(callback -> bookingIds.add(callback.bookingId));
+            
+            Map<Long, Booking> bookings = new HashMap<>();
+            bookingRepository.findAllByIdInForUpdate(bookingIds).forEach(booking -> bookings.put(booking.getId(), booking));
+            Map<Long, List<Payment>> payments = new HashMap<>();
+            paymentRepository.findByBookingIdIn(bookingIds).forEach(payment ->
+                    payments.computeIfAbsent(payment.getBooking().getId(), id -> new ArrayList<>()).add(payment));
+            
+            int changed = 0;
+            for (Callback callback : latest.values()) {
+                Booking booking = bookings.get(callback.bookingId);
+                if (booking == null) {
+                    logger.warn("Payment callback {} refers to unknown booking {}", callback.transactionId,
+                            callback.bookingId);
+                    continue;
+                }
+                List<Payment> attempts = payments.computeIfAbsent(booking.getId(), id -> new ArrayList<>());
+                Payment payment = null;
+                Payment paid = null;
+                for (Payment attempt : attempts) {
+                    if (callback.transactionId.equals(attempt.getTransactionId())) {
+                        payment = attempt;
+                    } else if (attempt.getStatus() == Payment.PaymentStatus.COMPLETED
+                            || attempt.getStatus() == Payment.PaymentStatus.REFUNDED) {
+                        paid = attempt;
+                    }
+                }
+                if (payment != null && rank(payment.getStatus()) >= rank(callback.status)) {
+                    continue;
+                }
+                if (paid != null) {
+                    logger.warn("Booking {} is already paid by {}, ignoring transaction {}", booking.getId(),
+                            paid.getTransactionId(), callback.transactionId);
+                    continue;
+                }
+                if (payment == null) {
+                    // every attempt keeps its own row, so a failed one stays known to dedupe and reconciliation
+                    payment = new Payment();
+                    payment.setBooking(booking);
+                    payment.setTransactionId(callback.transactionId);
+                    attempts.add(payment);
+                }
+                payment.setAmount(callback.amount);
+                payment.setPaymentMethod(callback.method);
+                payment.setStatus(callback.status);
+                paymentRepository.save(payment);
+                if (callback.status == Payment.PaymentStatus.COMPLETED) {
+                    applyCompleted(booking, payment);
+                }
+                changed++;
+            }
+            return changed;
+        });
+        return applied != null ? applied : 0;
+    }
+    
+    private void applyCompleted(Booking booking, Payment payment) {
+        if (booking.getPaymentStatus() == Booking.PaymentStatus.REFUNDED) {
+            return;
+        }
+        booking.setPaymentStatus(payment.getAmount().compareTo(booking.getTotalAmount()) >= 0
+                ? Booking.PaymentStatus.PAID : Booking.PaymentStatus.PARTIAL);
+        if (booking.getStatus() == Booking.BookingStatus.CANCELLED) {
+            // money for a booking whose hold already ran out goes straight back
+            eventPublisher.publishEvent(new BookingCancelledEvent(booking.getId(), true));
+        }
+    }
+    
+    private static int rank(Payment.PaymentStatus status) {
+        return switch (status) {
+            case PENDING -> 0;
+            case FAILED -> 1;
+            case COMPLETED -> 2;
+            case REFUNDED -> 3;
+        };
+    }
+    
+    static final class Callback {
+        private final String transactionId;
+        private final Long bookingId;
+        private final BigDecimal amount;
+        private final Payment.PaymentMethod method;
+        private final Payment.PaymentStatus status;
+        
+        private Callback(String transactionId, Long bookingId, BigDecimal amount,
+                         Payment.PaymentMethod method, Payment.PaymentStatus status) {
+            this.transactionId = transactionId;
+            this.bookingId = bookingId;
+            this.amount = amount;
+            this.method = method;
+            this.status = status;
+        }
+        
+        static Callback of(PaymentCallbackRequest request) {
+            Payment.PaymentStatus status;
+            Payment.PaymentMethod method;
+            try {
+                status = Payment.PaymentStatus.valueOf(request.getStatus());
+                method = Payment.PaymentMethod.valueOf(request.getPaymentMethod());
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Unknown payment status or method");
+            }
+            if (!CALLBACK_STATUSES.contains(status)) {
+                throw new RuntimeException("Unsupported payment status: " + status);
+            }
+            return new Callback(request.getTransactionId().trim(), request.getBookingId(), request.getAmount(),
+                    method, status);
+        }
+        
+        String key() {
+            return transactionId + '\n' + status;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.event.BookingCancelledEvent;
+import com.example.tourismmanagement.model.Booking;
+import com.example.tourismmanagement.model.Payment;
+import com.example.tourismmanagement.repository.BookingRepository;
+import com.example.tourismmanagement.repository.PaymentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Refunds cancelled bookings off the request thread. A booking that is CANCELLED while still
+ * PAID or PARTIAL is a refund owed, so the table itself is the durable backlog: the queue only
+ * holds ids, and whatever it lost in a restart is found again on startup.
+ */
+@Service
+public class RefundWorker {
+    private static final Logger logger = LoggerFactory.getLogger(RefundWorker.class);
+    
+    static final EnumSet<Booking.PaymentStatus> REFUNDABLE = EnumSet.of(Booking.PaymentStatus.PAID,
+            Booking.PaymentStatus.PARTIAL);
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    @Autowired
+    private PaymentRepository paymentRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${booking.refund.max-attempts:3}")
+    private int maxAttempts;
+    
+    @Value("${booking.refund.retry-backoff-ms:5000}")
+    private long retryBackoffMs;
+    
+    private final BlockingQueue<Long> queue = new LinkedBlockingQueue<>();
+    private volatile boolean running = true;
+    
+    private TransactionTemplate transactionTemplate;
+    private Thread worker;
+    
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        worker = new Thread(this::run, "refund-worker");
+        worker.setDaemon(true);
+        worker.start();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        worker.interrupt();
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        List<Long> owed = bookingRepository.findIdsByStatusAndPaymentStatusIn(Booking.BookingStatus.CANCELLED, REFUNDABLE);
+        queue.addAll(owed);
+        if (!owed.isEmpty()) {
+            logger.info("Queued {} outstanding refunds", owed.size());
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingCancelled(BookingCancelledEvent event) {
+        if (event.isRefundDue()) {
+            queue.add(event.getBookingId());
+        }
+    }
+    
+    public int getQueuedCount() {
+        return queue.size();
+    }
+    
+    private void run() {
+        List<Long> batch = new ArrayList<>();
+        while (running) {
+            try {
+                Long first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch);
+                for (Long bookingId : batch) {
+                    refundWithRetry(bookingId);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    private void refundWithRetry(Long bookingId) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                refund(bookingId);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts) {
+                    logger.error("Refund for booking {} failed, it stays owed until the next restart", bookingId, e);
+                    return;
+                }
+                TimeUnit.MILLISECONDS.sleep(retryBackoffMs * attempt);
+            }
+        }
+    }
+    
+    /**
+     * Marks the payment and the booking REFUNDED if the booking is cancelled and still has money
+     * on it. Returns false when there was nothing (left) to refund.
+     */
+    boolean refund(Long bookingId) {
+        Boolean refunded = transactionTemplate.execute(status -> {
+            Booking booking = bookingRepository.findByIdForUpdate(bookingId).orElse(null);
+            if (booking == null || booking.getStatus() != Booking.BookingStatus.CANCELLED
+                    || !REFUNDABLE.contains(booking.getPaymentStatus())) {
+                return false;
+            }
+            paymentRepository.findByBookingId(bookingId).stream()
+                    .filter(payment -> payment.getStatus() == Payment.PaymentStatus.COMPLETED)
+                    .forEach(payment -> payment.setStatus(Payment.PaymentStatus.REFUNDED));
+            booking.setPaymentStatus(Booking.PaymentStatus.REFUNDED);
+            return true;
+        });
+        return Boolean.TRUE.equals(refunded);
+    }
+}
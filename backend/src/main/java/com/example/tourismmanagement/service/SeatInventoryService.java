@@ -0,0 +1,113 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.event.TourChangedEvent;
+import com.example.tourismmanagement.model.Tour;
+import com.example.tourismmanagement.repository.TourRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.function.Supplier;
+
+@Service
+public class SeatInventoryService {
+    @Autowired
+    private TourRepository tourRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Value("${booking.seat-inventory.max-attempts:3}")
+    private int maxAttempts;
+    
+    @Value("${booking.seat-inventory.retry-backoff-ms:20}")
+    private long retryBackoffMs;
+    
+    /**
+     * Atomically takes seats from the tour, flipping it to FULL when the last seat goes.
+     * Must run before any insert referencing the tour so the row lock is taken exclusively first.
+     */
+    @Transactional
+    public void reserveSeats(Long tourId, int seats) {
+        if (seats <= 0) {
+            throw new RuntimeException("Number of people must be at least 1");
+        }
+        if (!tryReserveSeats(tourId, seats)) {
+            if (!tourRepository.existsById(tourId)) {
+                throw new RuntimeException("Tour not found");
+            }
+            throw new RuntimeException("Not enough available seats");
+        }
+    }
+    
+    @Transactional
+    public boolean tryReserveSeats(Long tourId, int seats) {
+        int updated = tourRepository.reserveSeats(tourId, seats, Tour.TourStatus.AVAILABLE, Tour.TourStatus.FULL);
+        if (updated > 0) {
+            eventPublisher.publishEvent(new TourChangedEvent(tourId, TourChangedEvent.Type.SEATS_CHANGED));
+        }
+        return updated > 0;
+    }
+    
+    @Transactional
+    public void releaseSeats(Long tourId, int seats) {
+        if (seats <= 0) {
+            return;
+        }
+        int updated = tourRepository.releaseSeats(tourId, seats, Tour.TourStatus.AVAILABLE, Tour.TourStatus.FULL);
+        if (updated == 0) {
+            throw new RuntimeException("Cannot release " + seats + " seats on tour " + tourId);
+        }
+        eventPublisher.publishEvent(new TourChangedEvent(tourId, TourChangedEvent.Type.SEATS_CHANGED));
+    }
+    
+    public void applySeatStatus(Tour tour) {
+        if (tour.getAvailableSeats() == null) {
+            return;
+        }
+        if (tour.getAvailableSeats() <= 0 && tour.getStatus() == Tour.TourStatus.AVAILABLE) {
+            tour.setStatus(Tour.TourStatus.FULL);
+        } else if (tour.getAvailableSeats() > 0 && tour.getStatus() == Tour.TourStatus.FULL) {
+            tour.setStatus(Tour.TourStatus.AVAILABLE);
+        }
+    }
+    
+    /**
+     * Runs the work in its own transaction and retries it a bounded number of times when it loses
+     * a version check, a lock wait or a deadlock against a concurrent writer of the same tour.
+     */
+    public <T> T executeWithRetry(Supplier<T> work) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    // 503 so the caller may retry, and a retry with the same Idempotency-Key runs again
+                    throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                            "Tour was modified concurrently, please try again");
+                }
+                backoff(attempt);
+            }
+        }
+    }
+    
+    private void backoff(int attempt) {
+        try {
+            Thread.sleep(retryBackoffMs * attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while retrying seat update");
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.dto.PaymentSettlementRow;
+import com.example.tourismmanagement.dto.ReconciliationReport;
+import com.example.tourismmanagement.model.Payment;
+import com.example.tourismmanagement.repository.PaymentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reconciles a gateway settlement file against the payments table. The file has one
+ * {@code transaction_id,amount,status} line per transaction, sorted by transaction id; a header
+ * line and {@code #} comments are skipped. Lines are parsed straight out of a memory-mapped
+ * window of the file, so the only per-line allocation is for the mismatches written to the
+ * report. The payments are read alongside in chunks ordered by transaction id, starting at the
+ * file's first id, and the two sorted streams are merged: file lines without a payment are
+ * reported as MISSING, payments without a line as MISSING_IN_FILE. Payments outside the file's
+ * first and last id are taken to belong to other settlement files and are not reported.
+ * <p>
+ * Heap use is bounded by one chunk of payments whatever the size of the file.
+ */
+@Service
+public class SettlementReconciliationService {
+    private static final Logger logger = LoggerFactory.getLogger(SettlementReconciliationService.class);
+    
+    private static final long MAP_WINDOW_BYTES = 256L * 1024 * 1024;
+    private static final int MAX_ID_BYTES = 100;
+    private static final byte[] HEADER = "transaction_id".getBytes(StandardCharsets.US_ASCII);
+    private static final Payment.PaymentStatus[] STATUSES = Payment.PaymentStatus.values();
+    private static final byte[][] STATUS_NAMES = new byte[STATUSES.length][];
+    
+    static {
+        for (Payment.PaymentStatus status : STATUSES) {
+            STATUS_NAMES[status.ordinal()] = status.name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+    
+    @Autowired
+    private PaymentRepository paymentRepository;
+    
+    @Value("${payment.settlement.dir:settlements}")
+    private String settlementDir;
+    
+    @Value("${payment.settlement.chunk-size:10000}")
+    private int chunkSize;
+    
+    /**
+     * Reconciles a file from the settlement directory and writes its mismatches next to it as
+     * {@code <file>.mismatches.csv}.
+     */
+    public ReconciliationReport reconcile(String fileName) {
+        if (fileName == null || fileName.isBlank() || fileName.contains("/") || fileName.contains("\\")
+                || fileName.startsWith(".")) {
+            throw new RuntimeException("Invalid settlement file name");
+        }
+        Path dir = Paths.get(settlementDir).toAbsolutePath().normalize();
+        Path file = dir.resolve(fileName);
+        if (!Files.isRegularFile(file)) {
+            throw new RuntimeException("Settlement file not found: " + fileName);
+        }
+        Path reportFile = dir.resolve(fileName + ".mismatches.csv");
+        
+        long started = System.currentTimeMillis();
+        ReconciliationReport report;
+        try (BufferedWriter writer = Files.newBufferedWriter(reportFile, StandardCharsets.UTF_8)) {
+            report = reconcile(file, (from, limit) -> paymentRepository.findSettlementRowsFrom(from, Limit.of(limit)),
+                    writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not reconcile " + fileName, e);
+        }
+        report.setFile(fileName);
+        report.setReportFile(reportFile.getFileName().toString());
+        report.setElapsedMs(System.currentTimeMillis() - started);
+        logger.info("Reconciled {}: {} lines, {} matched, {} missing, {} missing in file, {} amount and {} status mismatches, "
+                        + "{} malformed in {} ms", fileName, report.getLines(), report.getMatched(), report.getMissing(),
+                report.getMissingInFile(), report.getAmountMismatches(), report.getStatusMismatches(),
+                report.getMalformed(), report.getElapsedMs());
+        return report;
+    }
+    
+    ReconciliationReport reconcile(Path file, PaymentSource payments, Writer out) throws IOException {
+        Merge merge = new Merge(payments, chunkSize, out);
+        out.write("type,transaction_id,file_amount,db_amount,file_status,db_status,line\n");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                long length = Math.min(MAP_WINDOW_BYTES, size - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                boolean lastWindow = position + length == size;
+                int lineStart = 0;
+                for (int i = 0; i < length; i++) {
+                    if (window.get(i) == '\n') {
+                        merge.line(window, lineStart, i);
+                        lineStart = i + 1;
+                    }
+                }
+                if (lastWindow) {
+                    if (lineStart < length) {
+                        merge.line(window, lineStart, (int) length);
+                    }
+                    break;
+                }
+                if (lineStart == 0) {
+                    throw new RuntimeException("Settlement file line longer than " + MAP_WINDOW_BYTES + " bytes");
+                }
+                // the next window starts at the first line this one did not finish
+                position += lineStart;
+            }
+        }
+        return merge.report;
+    }
+    
+    @FunctionalInterface
+    interface PaymentSource {
+        List<PaymentSettlementRow> fetchFrom(String transactionId, int limit);
+    }
+    
+    private static final class Merge {
+        private final PaymentSource payments;
+        private final int chunkSize;
+        private final Writer out;
+        private final ReconciliationReport report = new ReconciliationReport();
+        
+        private final byte[] previousId = new byte[MAX_ID_BYTES];
+        private int previousIdLength = -1;
+        
+        private List<PaymentSettlementRow> chunk = List.of();
+        private byte[][] chunkIds = new byte[0][];
+        private int index;
+        private boolean exhausted;
+        private String lastFetchedId;
+        
+        private Merge(PaymentSource payments, int chunkSize, Writer out) {
+            this.payments = payments;
+            this.chunkSize = chunkSize;
+            this.out = out;
+        }
+        
+        private void line(ByteBuffer buf, int start, int end) throws IOException {
+            if (end > start && buf.get(end - 1) == '\r') {
+                end--;
+            }
+            if (end == start || buf.get(start) == '#') {
+                return;
+            }
+            if (report.getLines() == 0 && previousIdLength < 0 && startsWith(buf, start, end, HEADER)) {
+                return;
+            }
+            report.setLines(report.getLines() + 1);
+            
+            int idEnd = indexOf(buf, start, end, (byte) ',');
+            int amountEnd = idEnd < 0 ? -1 : indexOf(buf, idEnd + 1, end, (byte) ',');
+            long amountCents = amountEnd < 0 ? Long.MIN_VALUE : parseCents(buf, idEnd + 1, amountEnd);
+            if (idEnd <= start || idEnd - start > MAX_ID_BYTES || amountEnd < 0 || amountCents == Long.MIN_VALUE) {
+                report.setMalformed(report.getMalformed() + 1);
+                write("MALFORMED", "", "", "", "", "", text(buf, start, end));
+                return;
+            }
+            checkOrder(buf, start, idEnd);
+            
+            PaymentSettlementRow payment = find(buf, start, idEnd);
+            if (payment == null) {
+                report.setMissing(report.getMissing() + 1);
+                write("MISSING", text(buf, start, idEnd), text(buf, idEnd + 1, amountEnd), "",
+                        text(buf, amountEnd + 1, end), "", "");
+                return;
+            }
+            long dbCents = payment.getAmount().movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+            boolean statusMatches = startsWith(buf, amountEnd + 1, end, STATUS_NAMES[payment.getStatus().ordinal()])
+                    && end - amountEnd - 1 == STATUS_NAMES[payment.getStatus().ordinal()].length;
+            if (dbCents != amountCents) {
+                report.setAmountMismatches(report.getAmountMismatches() + 1);
+                write("AMOUNT_DIFFERS", payment.getTransactionId(), text(buf, idEnd + 1, amountEnd),
+                        payment.getAmount().toPlainString(), text(buf, amountEnd + 1, end), payment.getStatus().name(), "");
+            }
+            if (!statusMatches) {
+                report.setStatusMismatches(report.getStatusMismatches() + 1);
+                write("STATUS_DIFFERS", payment.getTransactionId(), text(buf, idEnd + 1, amountEnd),
+                        payment.getAmount().toPlainString(), text(buf, amountEnd + 1, end), payment.getStatus().name(), "");
+            }
+            if (dbCents == amountCents && statusMatches) {
+                report.setMatched(report.getMatched() + 1);
+            }
+        }
+        
+        // Advances through the payments up to the file's id, reporting the ones the file skipped
+        private PaymentSettlementRow find(ByteBuffer buf, int start, int end) throws IOException {
+            while (true) {
+                if (index == chunk.size()) {
+                    if (exhausted) {
+                        return null;
+                    }
+                    fetch(lastFetchedId != null ? lastFetchedId : text(buf, start, end));
+                    if (index == chunk.size()) {
+                        return null;
+                    }
+                }
+                int cmp = compare(chunkIds[index], buf, start, end);
+                if (cmp < 0) {
+                    PaymentSettlementRow payment = chunk.get(index++);
+                    report.setMissingInFile(report.getMissingInFile() + 1);
+                    write("MISSING_IN_FILE", payment.getTransactionId(), "", payment.getAmount().toPlainString(), "",
+                            payment.getStatus().name(), "");
+                } else if (cmp == 0) {
+                    return chunk.get(index++);
+                } else {
+                    return null;
+                }
+            }
+        }
+        
+        private void fetch(String from) {
+            // later chunks start at the last payment already seen, so ask for one more and skip it
+            int limit = lastFetchedId != null ? chunkSize + 1 : chunkSize;
+            chunk = payments.fetchFrom(from, limit);
+            exhausted = chunk.size() < limit;
+            index = !chunk.isEmpty() && chunk.get(0).getTransactionId().equals(lastFetchedId) ? 1 : 0;
+            if (!chunk.isEmpty()) {
+                lastFetchedId = chunk.get(chunk.size() - 1).getTransactionId();
+            }
+            chunkIds = new byte[chunk.size()][];
+            for (int i = 0; i < chunkIds.length; i++) {
+                chunkIds[i] = chunk.get(i).getTransactionId().getBytes(StandardCharsets.UTF_8);
+                if (i > 0 && Arrays.compareUnsigned(chunkIds[i - 1], chunkIds[i]) >= 0) {
+                    throw new RuntimeException("Payments are not returned in byte order of transaction_id; "
+                            + "the column needs a binary collation");
+                }
+            }
+        }
+        
+        private void checkOrder(ByteBuffer buf, int start, int end) {
+            if (previousIdLength >= 0 && compare(previousId, previousIdLength, buf, start, end) >= 0) {
+                throw new RuntimeException("Settlement file is not sorted by transaction id at line "
+                        + report.getLines() + ": " + text(buf, start, end));
+            }
+            for (int i = start; i < end; i++) {
+                previousId[i - start] = buf.get(i);
+            }
+            previousIdLength = end - start;
+        }
+        
+        private void write(String type, String transactionId, String fileAmount, String dbAmount, String fileStatus,
+                           String dbStatus, String line) throws IOException {
+            out.write(type);
+            for (String field : new String[]{transactionId, fileAmount, dbAmount, fileStatus, dbStatus, line}) {
+                out.write(',');
+                out.write(field.replace(',', ' '));
+            }
+            out.write('\n');
+        }
+    }
+    
+    private static int compare(byte[] id, ByteBuffer buf, int start, int end) {
+        return compare(id, id.length, buf, start, end);
+    }
+    
+    private static int compare(byte[] id, int idLength, ByteBuffer buf, int start, int end) {
+        int length = Math.min(idLength, end - start);
+        for (int i = 0; i < length; i++) {
+            int cmp = Integer.compare(id[i] & 0xff, buf.get(start + i) & 0xff);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(idLength, end - start);
+    }
+    
+    private static boolean startsWith(ByteBuffer buf, int start, int end, byte[] prefix) {
+        if (end - start < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buf.get(start + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static int indexOf(ByteBuffer buf, int start, int end, byte value) {
+        for (int i = start; i < end; i++) {
+            if (buf.get(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Parses a decimal amount with at most two fraction digits into cents, or returns
+     * {@link Long#MIN_VALUE} when it is not one.
+     */
+    static long parseCents(ByteBuffer buf, int start, int end) {
+        boolean negative = start < end && buf.get(start) == '-';
+        int i = negative ? start + 1 : start;
+        long cents = 0;
+        int digits = 0;
+        int fraction = -1;
+        for (; i < end; i++) {
+            byte b = buf.get(i);
+            if (b == '.' && fraction < 0) {
+                fraction = 0;
+            } else if (b >= '0' && b <= '9' && fraction < 2 && digits < 17) {
+                cents = cents * 10 + (b - '0');
+                digits++;
+                if (fraction >= 0) {
+                    fraction++;
+                }
+            } else {
+                return Long.MIN_VALUE;
+            }
+        }
+        if (digits == 0) {
+            return Long.MIN_VALUE;
+        }
+        for (int scale = Math.max(fraction, 0); scale < 2; scale++) {
+            cents *= 10;
+        }
+        return negative ? -cents : cents;
+    }
+    
+    private static String text(ByteBuffer buf, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buf.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
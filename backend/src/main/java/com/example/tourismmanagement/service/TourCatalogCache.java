@@ -0,0 +1,137 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.dto.TourDTO;
+import com.example.tourismmanagement.event.TourChangedEvent;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of tour DTOs and of the catalog id listing. Loads run on the calling thread and
+ * concurrent misses for the same key wait on the same future, so a cold key is read from the
+ * database once. Cached DTOs are shared between requests and must not be modified by callers.
+ */
+@Component
+public class TourCatalogCache {
+    private static final String CATALOG_KEY = "all";
+    
+    @Value("${catalog.cache.max-tours:10000}")
+    private long maxTours;
+    
+    @Value("${catalog.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+    
+    private AsyncCache<Long, TourDTO> tours;
+    private AsyncCache<String, List<Long>> catalogIds;
+    
+    // starts from the clock so validators handed out before a restart are not reused after it
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+    private volatile long lastModified = System.currentTimeMillis();
+    
+    @PostConstruct
+    public void init() {
+        tours = Caffeine.newBuilder()
+                .maximumSize(maxTours)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .executor(Runnable::run)
+                .recordStats()
+                .buildAsync();
+        catalogIds = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .executor(Runnable::run)
+                .recordStats()
+                .buildAsync();
+    }
+    
+    public TourDTO getTour(Long id, Function<Long, TourDTO> loader) {
+        return tours.get(id, loader).join();
+    }
+    
+    public List<TourDTO> getTours(Collection<Long> ids, Function<Set<? extends Long>, Map<Long, TourDTO>> bulkLoader) {
+        Map<Long, TourDTO> found = tours.getAll(ids, bulkLoader).join();
+        List<TourDTO> result = new ArrayList<>(found.size());
+        for (Long id : ids) {
+            TourDTO dto = found.get(id);
+            if (dto != null) {
+                result.add(dto);
+            }
+        }
+        return result;
+    }
+    
+    public List<TourDTO> getCatalog(Supplier<List<Long>> idLoader,
+                                    Function<Set<? extends Long>, Map<Long, TourDTO>> bulkLoader) {
+        List<Long> ids = catalogIds.get(CATALOG_KEY, key -> idLoader.get()).join();
+        return getTours(ids, bulkLoader);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTourChanged(TourChangedEvent event) {
+        tours.synchronous().invalidate(event.getTourId());
+        // Seat changes keep the same listing; only membership changes have to drop it
+        if (event.getType() != TourChangedEvent.Type.SEATS_CHANGED
+                && event.getType() != TourChangedEvent.Type.UPDATED) {
+            catalogIds.synchronous().invalidateAll();
+        }
+        changed();
+    }
+    
+    public void invalidateAll() {
+        tours.synchronous().invalidateAll();
+        catalogIds.synchronous().invalidateAll();
+        changed();
+    }
+    
+    /**
+     * Goes up on every tour change, after the cached entries it affects have been dropped, so a
+     * listing read after reading the version is never older than the version.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+    
+    public long getLastModified() {
+        return lastModified;
+    }
+    
+    private void changed() {
+        lastModified = System.currentTimeMillis();
+        version.incrementAndGet();
+    }
+    
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("tours", describe(tours.synchronous().stats(), tours.synchronous().estimatedSize()));
+        stats.put("catalog", describe(catalogIds.synchronous().stats(), catalogIds.synchronous().estimatedSize()));
+        return stats;
+    }
+    
+    private Map<String, Object> describe(CacheStats stats, long size) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("size", size);
+        values.put("hits", stats.hitCount());
+        values.put("misses", stats.missCount());
+        values.put("hitRate", stats.hitRate());
+        values.put("loads", stats.loadCount());
+        values.put("loadFailures", stats.loadFailureCount());
+        values.put("averageLoadMillis", stats.averageLoadPenalty() / 1_000_000.0);
+        values.put("evictions", stats.evictionCount());
+        return values;
+    }
+}
@@ -0,0 +1,611 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.dto.FacetCount;
+import com.example.tourismmanagement.dto.TourSearchCriteria;
+import com.example.tourismmanagement.dto.TourSnapshotRow;
+import com.example.tourismmanagement.event.TourChangedEvent;
+import com.example.tourismmanagement.model.Tour;
+import com.example.tourismmanagement.repository.TourRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * Column-oriented copy of the filterable tour fields: price in cents, seats, start/end epoch
+ * days, duration, category and status, each in its own primitive array. Filters, sorts and facet
+ * counts scan these arrays on the calling thread with per-thread scratch buffers, and return
+ * ids that the caller resolves through the catalog cache.
+ * <p>
+ * Rows live in fixed-size chunks ordered by id. A published snapshot is never modified: a write
+ * copies only the chunk it touches and swaps in a new chunk table, so readers need no locks.
+ * Deleted rows are tombstoned and squeezed out once they make up a quarter of the table.
+ */
+@Component
+public class TourCatalogSnapshot {
+    static final int CHUNK_SHIFT = 10;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    // ids, price cents, versions (8 each); seats, start day, end day, start month, duration, category (4 each); status
+    static final int BYTES_PER_ROW = 8 + 8 + 8 + 4 * 6 + 1;
+    
+    private static final byte REMOVED = -1;
+    private static final int NO_CATEGORY = -1;
+    private static final int ANY_CATEGORY = Integer.MIN_VALUE;
+    private static final int UNKNOWN_CATEGORY = -2;
+    private static final Tour.TourStatus[] STATUSES = Tour.TourStatus.values();
+    private static final ThreadLocal<int[]> POSITION_SCRATCH = ThreadLocal.withInitial(() -> new int[0]);
+    private static final ThreadLocal<long[]> SORT_SCRATCH = ThreadLocal.withInitial(() -> new long[0]);
+    
+    @Autowired
+    private TourRepository tourRepository;
+    
+    private volatile Columns columns = Columns.EMPTY;
+    private volatile boolean ready;
+    
+    public enum Facet {
+        NONE, CATEGORY, PRICE, MONTH
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        rebuild(tourRepository.findSnapshotRows());
+    }
+    
+    public synchronized void rebuild(List<TourSnapshotRow> rows) {
+        columns = build(rows);
+        ready = true;
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTourChanged(TourChangedEvent event) {
+        if (event.getType() == TourChangedEvent.Type.DELETED) {
+            remove(event.getTourId());
+            return;
+        }
+        tourRepository.findSnapshotRow(event.getTourId())
+                .ifPresentOrElse(this::upsert, () -> remove(event.getTourId()));
+    }
+    
+    public synchronized void upsert(TourSnapshotRow row) {
+        Columns current = columns;
+        long[] categoryIds = current.categoryIds;
+        String[] categoryNames = current.categoryNames;
+        int category = NO_CATEGORY;
+        if (row.getCategoryId() != null) {
+            category = current.categorySlot(row.getCategoryId());
+            if (category < 0) {
+                category = categoryIds.length;
+                categoryIds = Arrays.copyOf(categoryIds, category + 1);
+                categoryIds[category] = row.getCategoryId();
+                categoryNames = Arrays.copyOf(categoryNames, category + 1);
+                categoryNames[category] = row.getCategoryName();
+            } else if (!Objects.equals(categoryNames[category], row.getCategoryName())) {
+                categoryNames = categoryNames.clone();
+                categoryNames[category] = row.getCategoryName();
+            }
+        }
+        
+        int position = current.indexOf(row.getId());
+        int size = current.size;
+        int live = current.live;
+        Chunk[] chunks;
+        if (position >= 0) {
+            // change events are applied as their reads finish, so a slower read of an older version can arrive last
+            if (versionOf(row) < current.version(position)) {
+                return;
+            }
+            chunks = current.chunks.clone();
+            if (current.status(position) == REMOVED) {
+                live++;
+            }
+        } else if (size == 0 || row.getId() > current.idAt(size - 1)) {
+            position = size++;
+            live++;
+            if ((position & CHUNK_MASK) == 0) {
+                chunks = Arrays.copyOf(current.chunks, current.chunks.length + 1);
+                chunks[chunks.length - 1] = new Chunk();
+            } else {
+                chunks = current.chunks.clone();
+            }
+        } else {
+            // Only an id below the highest one lands here (a rebuild raced the insert), so just re-pack
+            List<TourSnapshotRow> rows = current.rows();
+            rows.add(row);
+            columns = build(rows);
+            return;
+        }
+        
+        Chunk chunk = new Chunk(chunks[position >> CHUNK_SHIFT]);
+        chunk.store(position & CHUNK_MASK, row, category);
+        chunks[position >> CHUNK_SHIFT] = chunk;
+        columns = new Columns(chunks, size, live, categoryIds, categoryNames);
+    }
+    
+    public synchronized void remove(Long tourId) {
+        Columns current = columns;
+        int position = current.indexOf(tourId);
+        if (position < 0 || current.status(position) == REMOVED) {
+            return;
+        }
+        Chunk[] chunks = current.chunks.clone();
+        Chunk chunk = new Chunk(chunks[position >> CHUNK_SHIFT]);
+        chunk.status[position & CHUNK_MASK] = REMOVED;
+        chunk.versions[position & CHUNK_MASK] = Long.MAX_VALUE;
+        chunks[position >> CHUNK_SHIFT] = chunk;
+        Columns next = new Columns(chunks, current.size, current.live - 1, current.categoryIds, current.categoryNames);
+        int removed = next.size - next.live;
+        columns = removed > CHUNK_SIZE && removed * 4 > next.size ? build(next.rows()) : next;
+    }
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    public int size() {
+        return columns.live;
+    }
+    
+    /**
+     * Bytes held by the column arrays, including tombstoned and not yet filled rows.
+     */
+    public long estimatedBytes() {
+        return (long) columns.chunks.length * CHUNK_SIZE * BYTES_PER_ROW;
+    }
+    
+    /**
+     * Ids of the matching tours, one page of them. Without a sort field the order of
+     * {@code restrictTo} is kept (id order when there is no restriction); otherwise rows are
+     * ordered by the field and then by id, both reversed for "desc".
+     *
+     * @param restrictTo only consider these tours, or all tours when null
+     */
+    public Page page(TourSearchCriteria criteria, List<Long> restrictTo, String sort, String direction,
+                     long offset, int limit) {
+        Columns snapshot = columns;
+        int[] positions = positionScratch(restrictTo != null ? restrictTo.size() : snapshot.size);
+        int count = select(snapshot, Filter.of(criteria, snapshot, Facet.NONE), restrictTo, positions);
+        boolean descending = sort != null && "desc".equalsIgnoreCase(direction);
+        if (sort != null) {
+            sort(snapshot, positions, count, sort);
+        }
+        
+        int from = (int) Math.min(offset, count);
+        int to = (int) Math.min((long) from + limit, count);
+        List<Long> ids = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            ids.add(snapshot.idAt(positions[descending ? count - 1 - i : i]));
+        }
+        return new Page(ids, count);
+    }
+    
+    public List<FacetCount> categoryFacet(TourSearchCriteria criteria, List<Long> restrictTo) {
+        Columns snapshot = columns;
+        int[] positions = positionScratch(restrictTo != null ? restrictTo.size() : snapshot.size);
+        int count = select(snapshot, Filter.of(criteria, snapshot, Facet.CATEGORY), restrictTo, positions);
+        // the last slot counts tours without a category
+        long[] counts = new long[snapshot.categoryIds.length + 1];
+        for (int i = 0; i < count; i++) {
+            int category = snapshot.category(positions[i]);
+            counts[category >= 0 ? category : counts.length - 1]++;
+        }
+        
+        List<FacetCount> facets = new ArrayList<>();
+        for (int slot = 0; slot < counts.length; slot++) {
+            if (counts[slot] == 0) {
+                continue;
+            }
+            facets.add(slot < snapshot.categoryIds.length
+                    ? new FacetCount(Long.toString(snapshot.categoryIds[slot]), snapshot.categoryNames[slot], counts[slot])
+                    : new FacetCount("none", "Uncategorized", counts[slot]));
+        }
+        facets.sort(Comparator.comparingLong(FacetCount::getCount).reversed());
+        return facets;
+    }
+    
+    /**
+     * Matches per price bucket; bucket {@code i} holds prices below {@code bounds[i]}, the last one the rest.
+     */
+    public long[] priceCounts(TourSearchCriteria criteria, List<Long> restrictTo, long[] bounds) {
+        Columns snapshot = columns;
+        int[] positions = positionScratch(restrictTo != null ? restrictTo.size() : snapshot.size);
+        int count = select(snapshot, Filter.of(criteria, snapshot, Facet.PRICE), restrictTo, positions);
+        long[] boundCents = new long[bounds.length];
+        for (int b = 0; b < bounds.length; b++) {
+            boundCents[b] = bounds[b] * 100;
+        }
+        long[] counts = new long[bounds.length + 1];
+        for (int i = 0; i < count; i++) {
+            long cents = snapshot.priceCents(positions[i]);
+            int bucket = 0;
+            while (bucket < boundCents.length && cents >= boundCents[bucket]) {
+                bucket++;
+            }
+            counts[bucket]++;
+        }
+        return counts;
+    }
+    
+    public Map<YearMonth, Long> monthCounts(TourSearchCriteria criteria, List<Long> restrictTo) {
+        Columns snapshot = columns;
+        int[] positions = positionScratch(restrictTo != null ? restrictTo.size() : snapshot.size);
+        int count = select(snapshot, Filter.of(criteria, snapshot, Facet.MONTH), restrictTo, positions);
+        if (count == 0) {
+            return new TreeMap<>();
+        }
+        int first = Integer.MAX_VALUE;
+        int last = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            int month = snapshot.startMonth(positions[i]);
+            first = Math.min(first, month);
+            last = Math.max(last, month);
+        }
+        long[] counts = new long[last - first + 1];
+        for (int i = 0; i < count; i++) {
+            counts[snapshot.startMonth(positions[i]) - first]++;
+        }
+        
+        Map<YearMonth, Long> months = new TreeMap<>();
+        for (int m = 0; m < counts.length; m++) {
+            if (counts[m] > 0) {
+                months.put(YearMonth.of(Math.floorDiv(first + m, 12), Math.floorMod(first + m, 12) + 1), counts[m]);
+            }
+        }
+        return months;
+    }
+    
+    private static int select(Columns snapshot, Filter filter, List<Long> restrictTo, int[] positions) {
+        int count = 0;
+        if (restrictTo != null) {
+            for (Long id : restrictTo) {
+                int position = snapshot.indexOf(id);
+                if (position >= 0 && filter.matches(snapshot.chunks[position >> CHUNK_SHIFT], position & CHUNK_MASK)) {
+                    positions[count++] = position;
+                }
+            }
+            return count;
+        }
+        for (int c = 0; c < snapshot.chunks.length; c++) {
+            int base = c << CHUNK_SHIFT;
+            count = filter.scan(snapshot.chunks[c], Math.min(CHUNK_SIZE, snapshot.size - base), base, positions, count);
+        }
+        return count;
+    }
+    
+    /**
+     * Orders positions by the sort field, ties by id. Each key is rebased to its minimum and packed
+     * above the position bits, so a single primitive sort does the work.
+     */
+    private static void sort(Columns snapshot, int[] positions, int count, String field) {
+        if ("createdAt".equals(field)) {
+            // ids are handed out in creation order
+            Arrays.sort(positions, 0, count);
+            return;
+        }
+        long[] keys = SORT_SCRATCH.get();
+        if (keys.length < count) {
+            keys = new long[Math.max(count, keys.length * 2)];
+            SORT_SCRATCH.set(keys);
+        }
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            long key = sortKey(snapshot, positions[i], field);
+            keys[i] = key;
+            min = Math.min(min, key);
+            max = Math.max(max, key);
+        }
+        
+        int positionBits = 32 - Integer.numberOfLeadingZeros(Math.max(snapshot.size, 1));
+        if (count > 0 && max - min >= 1L << (63 - positionBits)) {
+            Integer[] boxed = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                boxed[i] = positions[i];
+            }
+            Arrays.sort(boxed, Comparator.<Integer>comparingLong(p -> sortKey(snapshot, p, field))
+                    .thenComparingInt(p -> p));
+            for (int i = 0; i < count; i++) {
+                positions[i] = boxed[i];
+            }
+            return;
+        }
+        long positionMask = (1L << positionBits) - 1;
+        for (int i = 0; i < count; i++) {
+            keys[i] = (keys[i] - min) << positionBits | positions[i];
+        }
+        Arrays.sort(keys, 0, count);
+        for (int i = 0; i < count; i++) {
+            positions[i] = (int) (keys[i] & positionMask);
+        }
+    }
+    
+    private static long sortKey(Columns snapshot, int position, String field) {
+        Chunk chunk = snapshot.chunks[position >> CHUNK_SHIFT];
+        int row = position & CHUNK_MASK;
+        return switch (field) {
+            case "price" -> chunk.priceCents[row];
+            case "duration" -> chunk.duration[row];
+            default -> chunk.startDay[row];
+        };
+    }
+    
+    private static int[] positionScratch(int size) {
+        int[] positions = POSITION_SCRATCH.get();
+        if (positions.length < size) {
+            positions = new int[Math.max(size, positions.length * 2)];
+            POSITION_SCRATCH.set(positions);
+        }
+        return positions;
+    }
+    
+    private static Columns build(List<TourSnapshotRow> rows) {
+        List<TourSnapshotRow> sorted = new ArrayList<>(rows);
+        sorted.sort(Comparator.comparing(TourSnapshotRow::getId));
+        Map<Long, Integer> slots = new LinkedHashMap<>();
+        List<String> names = new ArrayList<>();
+        Chunk[] chunks = new Chunk[(sorted.size() + CHUNK_SIZE - 1) >> CHUNK_SHIFT];
+        for (int position = 0; position < sorted.size(); position++) {
+            TourSnapshotRow row = sorted.get(position);
+            int category = NO_CATEGORY;
+            if (row.getCategoryId() != null) {
+                category = slots.computeIfAbsent(row.getCategoryId(), id -> {
+                    names.add(row.getCategoryName());
+                    return names.size() - 1;
+                });
+            }
+            if ((position & CHUNK_MASK) == 0) {
+                chunks[position >> CHUNK_SHIFT] = new Chunk();
+            }
+            chunks[position >> CHUNK_SHIFT].store(position & CHUNK_MASK, row, category);
+        }
+        long[] categoryIds = slots.keySet().stream().mapToLong(Long::longValue).toArray();
+        return new Columns(chunks, sorted.size(), sorted.size(), categoryIds, names.toArray(new String[0]));
+    }
+    
+    static long toCents(BigDecimal amount, RoundingMode rounding) {
+        return amount.movePointRight(2).setScale(0, rounding).longValueExact();
+    }
+    
+    static int toMonth(LocalDate date) {
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+    
+    static long versionOf(TourSnapshotRow row) {
+        return row.getVersion() != null ? row.getVersion() : 0;
+    }
+    
+    public static final class Page {
+        private final List<Long> ids;
+        private final long total;
+        
+        Page(List<Long> ids, long total) {
+            this.ids = ids;
+            this.total = total;
+        }
+        
+        public List<Long> getIds() {
+            return ids;
+        }
+        
+        public long getTotal() {
+            return total;
+        }
+    }
+    
+    private static final class Chunk {
+        final long[] ids;
+        final long[] priceCents;
+        final int[] availableSeats;
+        final int[] startDay;
+        final int[] endDay;
+        final int[] startMonth;
+        final int[] duration;
+        final int[] category;
+        final byte[] status;
+        final long[] versions;
+        
+        Chunk() {
+            ids = new long[CHUNK_SIZE];
+            priceCents = new long[CHUNK_SIZE];
+            availableSeats = new int[CHUNK_SIZE];
+            startDay = new int[CHUNK_SIZE];
+            endDay = new int[CHUNK_SIZE];
+            startMonth = new int[CHUNK_SIZE];
+            duration = new int[CHUNK_SIZE];
+            category = new int[CHUNK_SIZE];
+            status = new byte[CHUNK_SIZE];
+            versions = new long[CHUNK_SIZE];
+        }
+        
+        Chunk(Chunk other) {
+            ids = other.ids.clone();
+            priceCents = other.priceCents.clone();
+            availableSeats = other.availableSeats.clone();
+            startDay = other.startDay.clone();
+            endDay = other.endDay.clone();
+            startMonth = other.startMonth.clone();
+            duration = other.duration.clone();
+            category = other.category.clone();
+            status = other.status.clone();
+            versions = other.versions.clone();
+        }
+        
+        void store(int row, TourSnapshotRow tour, int categorySlot) {
+            ids[row] = tour.getId();
+            priceCents[row] = toCents(tour.getPrice(), RoundingMode.HALF_UP);
+            availableSeats[row] = tour.getAvailableSeats();
+            startDay[row] = (int) tour.getStartDate().toEpochDay();
+            endDay[row] = (int) tour.getEndDate().toEpochDay();
+            startMonth[row] = toMonth(tour.getStartDate());
+            duration[row] = tour.getDuration();
+            category[row] = categorySlot;
+            status[row] = (byte) tour.getStatus().ordinal();
+            versions[row] = versionOf(tour);
+        }
+    }
+    
+    private static final class Columns {
+        static final Columns EMPTY = new Columns(new Chunk[0], 0, 0, new long[0], new String[0]);
+        
+        final Chunk[] chunks;
+        final int size;
+        final int live;
+        final long[] categoryIds;
+        final String[] categoryNames;
+        
+        Columns(Chunk[] chunks, int size, int live, long[] categoryIds, String[] categoryNames) {
+            this.chunks = chunks;
+            this.size = size;
+            this.live = live;
+            this.categoryIds = categoryIds;
+            this.categoryNames = categoryNames;
+        }
+        
+        long idAt(int position) {
+            return chunks[position >> CHUNK_SHIFT].ids[position & CHUNK_MASK];
+        }
+        
+        byte status(int position) {
+            return chunks[position >> CHUNK_SHIFT].status[position & CHUNK_MASK];
+        }
+        
+        long version(int position) {
+            return chunks[position >> CHUNK_SHIFT].versions[position & CHUNK_MASK];
+        }
+        
+        int category(int position) {
+            return chunks[position >> CHUNK_SHIFT].category[position & CHUNK_MASK];
+        }
+        
+        long priceCents(int position) {
+            return chunks[position >> CHUNK_SHIFT].priceCents[position & CHUNK_MASK];
+        }
+        
+        int startMonth(int position) {
+            return chunks[position >> CHUNK_SHIFT].startMonth[position & CHUNK_MASK];
+        }
+        
+        int indexOf(long id) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                long midId = idAt(mid);
+                if (midId < id) {
+                    low = mid + 1;
+                } else if (midId > id) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+        
+        int categorySlot(long categoryId) {
+            for (int slot = 0; slot < categoryIds.length; slot++) {
+                if (categoryIds[slot] == categoryId) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+        
+        List<TourSnapshotRow> rows() {
+            List<TourSnapshotRow> rows = new ArrayList<>(live + 1);
+            for (int position = 0; position < size; position++) {
+                Chunk chunk = chunks[position >> CHUNK_SHIFT];
+                int row = position & CHUNK_MASK;
+                if (chunk.status[row] == REMOVED) {
+                    continue;
+                }
+                int slot = chunk.category[row];
+                rows.add(new TourSnapshotRow(chunk.ids[row], BigDecimal.valueOf(chunk.priceCents[row], 2),
+                        chunk.availableSeats[row], LocalDate.ofEpochDay(chunk.startDay[row]),
+                        LocalDate.ofEpochDay(chunk.endDay[row]), chunk.duration[row], STATUSES[chunk.status[row]],
+                        slot >= 0 ? categoryIds[slot] : null, slot >= 0 ? categoryNames[slot] : null, null,
+                        chunk.versions[row]));
+            }
+            return rows;
+        }
+    }
+    
+    /**
+     * The criteria with every bound turned into a primitive; absent bounds, and those of the
+     * facet being counted, become open ranges.
+     */
+    private static final class Filter {
+        final int status;
+        final int category;
+        final long minPriceCents;
+        final long maxPriceCents;
+        final int fromDay;
+        final int toDay;
+        final int minSeats;
+        final int minDuration;
+        final int maxDuration;
+        
+        private Filter(TourSearchCriteria criteria, Columns snapshot, Facet skip) {
+            status = criteria.getStatus() != null && !criteria.getStatus().isBlank()
+                    ? TourSearchService.parseStatus(criteria.getStatus()).ordinal() : -1;
+            if (criteria.getCategoryId() == null || skip == Facet.CATEGORY) {
+                category = ANY_CATEGORY;
+            } else {
+                int slot = snapshot.categorySlot(criteria.getCategoryId());
+                category = slot >= 0 ? slot : UNKNOWN_CATEGORY;
+            }
+            boolean priceOpen = skip == Facet.PRICE;
+            minPriceCents = criteria.getMinPrice() != null && !priceOpen
+                    ? toCents(criteria.getMinPrice(), RoundingMode.CEILING) : Long.MIN_VALUE;
+            maxPriceCents = criteria.getMaxPrice() != null && !priceOpen
+                    ? toCents(criteria.getMaxPrice(), RoundingMode.FLOOR) : Long.MAX_VALUE;
+            boolean datesOpen = skip == Facet.MONTH;
+            fromDay = criteria.getStartDate() != null && !datesOpen ? (int) criteria.getStartDate().toEpochDay() : Integer.MIN_VALUE;
+            toDay = criteria.getEndDate() != null && !datesOpen ? (int) criteria.getEndDate().toEpochDay() : Integer.MAX_VALUE;
+            minSeats = criteria.getMinSeats() != null ? criteria.getMinSeats() : Integer.MIN_VALUE;
+            minDuration = criteria.getMinDuration() != null ? criteria.getMinDuration() : Integer.MIN_VALUE;
+            maxDuration = criteria.getMaxDuration() != null ? criteria.getMaxDuration() : Integer.MAX_VALUE;
+        }
+        
+        static Filter of(TourSearchCriteria criteria, Columns snapshot, Facet skip) {
+            return new Filter(criteria, snapshot, skip);
+        }
+        
+        /**
+         * Every condition is evaluated without short-circuiting, so a scan has no data-dependent
+         * branches to mispredict on selective filters.
+         */
+        boolean matches(Chunk chunk, int row) {
+            byte rowStatus = chunk.status[row];
+            long price = chunk.priceCents[row];
+            int startDay = chunk.startDay[row];
+            int rowDuration = chunk.duration[row];
+            return rowStatus != REMOVED
+                    & (status < 0 | rowStatus == status)
+                    & (category == ANY_CATEGORY | chunk.category[row] == category)
+                    & price >= minPriceCents & price <= maxPriceCents
+                    & startDay >= fromDay & startDay <= toDay
+                    & chunk.availableSeats[row] >= minSeats
+                    & rowDuration >= minDuration & rowDuration <= maxDuration;
+        }
+        
+        /**
+         * Appends the matching rows of one chunk to {@code positions}; every row is written and
+         * only the count decides whether it stays.
+         */
+        int scan(Chunk chunk, int rows, int base, int[] positions, int count) {
+            for (int row = 0; row < rows; row++) {
+                positions[count] = base + row;
+                count += matches(chunk, row) ? 1 : 0;
+            }
+            return count;
+        }
+    }
+}
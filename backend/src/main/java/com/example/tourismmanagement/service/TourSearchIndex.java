@@ -0,0 +1,622 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.event.TourChangedEvent;
+import com.example.tourismmanagement.model.Tour;
+import com.example.tourismmanagement.repository.TourRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over the searchable text of every tour. Terms are folded to plain
+ * ASCII (so "Da Lat" finds "Đà Lạt"), every query term must match, the last one as a prefix,
+ * and hits are ranked by field-boosted term weight times inverse document frequency.
+ * <p>
+ * Each tour gets a dense ordinal and every term maps to an immutable posting of sorted ordinals
+ * with their weights, so queries intersect primitive arrays without locking. Writes are
+ * serialized and replace the postings they touch; they arrive through {@link TourChangedEvent}.
+ */
+@Component
+public class TourSearchIndex {
+    static final int NAME_BOOST = 4;
+    static final int DESTINATION_BOOST = 3;
+    static final int DESCRIPTION_BOOST = 1;
+    static final int ITINERARY_BOOST = 1;
+    
+    private static final int LOAD_CHUNK_SIZE = 1000;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int QUERY_CACHE_SIZE = 10000;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9]+");
+    private static final ThreadLocal<float[]> PREFIX_SCRATCH = ThreadLocal.withInitial(() -> new float[0]);
+    private static final ThreadLocal<int[]> SLOT_SCRATCH = ThreadLocal.withInitial(() -> new int[0]);
+    
+    @Autowired
+    private TourRepository tourRepository;
+    
+    private final ConcurrentSkipListMap<String, Posting> postings = new ConcurrentSkipListMap<>();
+    private final Map<Long, Integer> ordinals = new ConcurrentHashMap<>();
+    // Per tour, the canonical posting keys it appears under, so removal knows which postings to touch
+    private final Map<Long, String[]> documentTerms = new ConcurrentHashMap<>();
+    private volatile long[] tourIds = new long[1024];
+    private int nextOrdinal;
+    // Ordinals of removed tours, handed out again so churn does not grow the id table and scratch arrays
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    
+    // Keyed by index generation, so a ranking computed against older postings is never served
+    private final Cache<String, List<Long>> results = Caffeine.newBuilder().maximumSize(QUERY_CACHE_SIZE).build();
+    private volatile long generation;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Long> ids = tourRepository.findAllIds();
+        List<Tour> tours = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += LOAD_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + LOAD_CHUNK_SIZE, ids.size()));
+            tourRepository.findAllById(chunk).forEach(tours::add);
+        }
+        rebuild(tours);
+    }
+    
+    /**
+     * Replaces the whole index in one pass; ordinals are handed out in order so every posting
+     * is built already sorted.
+     */
+    public synchronized void rebuild(Collection<Tour> tours) {
+        Map<String, PostingBuilder> builders = new HashMap<>();
+        Map<Long, Integer> newOrdinals = new HashMap<>(tours.size() * 2);
+        Map<Long, String[]> newDocumentTerms = new HashMap<>(tours.size() * 2);
+        long[] newTourIds = new long[Math.max(1024, tours.size() * 2)];
+        int ordinal = 0;
+        for (Tour tour : tours) {
+            Map<String, Integer> weights = termWeights(tour);
+            newTourIds[ordinal] = tour.getId();
+            newOrdinals.put(tour.getId(), ordinal);
+            String[] terms = new String[weights.size()];
+            int t = 0;
+            for (Map.Entry<String, Integer> weight : weights.entrySet()) {
+                PostingBuilder builder = builders.computeIfAbsent(weight.getKey(), PostingBuilder::new);
+                builder.add(ordinal, weight.getValue());
+                terms[t++] = builder.term;
+            }
+            newDocumentTerms.put(tour.getId(), terms);
+            ordinal++;
+        }
+        
+        tourIds = newTourIds;
+        nextOrdinal = ordinal;
+        freeOrdinals.clear();
+        ordinals.clear();
+        ordinals.putAll(newOrdinals);
+        documentTerms.clear();
+        documentTerms.putAll(newDocumentTerms);
+        postings.clear();
+        builders.forEach((term, builder) -> postings.put(term, builder.build()));
+        changed();
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTourChanged(TourChangedEvent event) {
+        switch (event.getType()) {
+            case DELETED -> remove(event.getTourId());
+            case CREATED, UPDATED -> tourRepository.findById(event.getTourId())
+                    .ifPresentOrElse(this::index, () -> remove(event.getTourId()));
+            default -> {
+                // seat counts are not searchable text
+            }
+        }
+    }
+    
+    public synchronized void index(Tour tour) {
+        Map<String, Integer> weights = termWeights(tour);
+        Integer existing = ordinals.get(tour.getId());
+        int ordinal = existing != null ? existing : assignOrdinal(tour.getId());
+        
+        for (String term : documentTerms.getOrDefault(tour.getId(), new String[0])) {
+            if (!weights.containsKey(term)) {
+                postings.computeIfPresent(term, (t, posting) -> posting.without(ordinal));
+            }
+        }
+        String[] terms = new String[weights.size()];
+        int t = 0;
+        for (Map.Entry<String, Integer> weight : weights.entrySet()) {
+            postings.compute(weight.getKey(), (term, posting) -> posting == null
+                    ? Posting.of(ordinal, weight.getValue()) : posting.with(ordinal, weight.getValue()));
+            terms[t++] = postings.ceilingKey(weight.getKey());
+        }
+        documentTerms.put(tour.getId(), terms);
+        changed();
+    }
+    
+    public synchronized void remove(Long tourId) {
+        Integer ordinal = ordinals.remove(tourId);
+        String[] terms = documentTerms.remove(tourId);
+        if (ordinal == null || terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            postings.computeIfPresent(term, (t, posting) -> posting.without(ordinal));
+        }
+        freeOrdinals.push(ordinal);
+        changed();
+    }
+    
+    public int size() {
+        return documentTerms.size();
+    }
+    
+    // highest ordinal ever handed out since the last rebuild, plus one
+    int ordinalBound() {
+        return nextOrdinal;
+    }
+    
+    /**
+     * Returns up to {@code limit} tour ids, best match first. Repeated queries are answered from
+     * a small result cache that every write to the index invalidates.
+     */
+    public List<Long> search(String text, int limit) {
+        List<String> terms = tokenize(text);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        String key = generation + "|" + limit + "|" + String.join(" ", terms);
+        return results.get(key, k -> rank(terms, limit));
+    }
+    
+    List<Long> rank(List<String> terms, int limit) {
+        double documentCount = Math.max(1, documentTerms.size());
+        List<TermMatch> matches = new ArrayList<>(terms.size());
+        for (int i = 0; i < terms.size() - 1; i++) {
+            Posting posting = postings.get(terms.get(i));
+            if (posting == null) {
+                return List.of();
+            }
+            matches.add(new TermMatch(List.of(posting), new double[]{idf(posting.ordinals.length, documentCount)}));
+        }
+        TermMatch prefix = prefixMatch(terms.get(terms.size() - 1), documentCount);
+        if (prefix == null) {
+            return List.of();
+        }
+        
+        int[] candidates;
+        double[] scores;
+        if (matches.isEmpty()) {
+            Posting union = prefix.union(tourIds.length);
+            candidates = union.ordinals;
+            scores = new double[candidates.length];
+            for (int i = 0; i < candidates.length; i++) {
+                scores[i] = union.weights[i];
+            }
+        } else {
+            // Start from the rarest whole word and narrow down; the prefix goes last because it
+            // may expand to many postings
+            matches.sort(Comparator.comparingInt(match -> match.postings.get(0).ordinals.length));
+            TermMatch rarest = matches.remove(0);
+            Posting posting = rarest.postings.get(0);
+            candidates = posting.ordinals.clone();
+            scores = new double[candidates.length];
+            for (int i = 0; i < candidates.length; i++) {
+                scores[i] = posting.weights[i] * rarest.idfs[0];
+            }
+            matches.add(prefix);
+        }
+        
+        int ordinalBound = tourIds.length;
+        int count = candidates.length;
+        for (int m = 0; m < matches.size() && count > 0; m++) {
+            count = narrow(candidates, scores, count, matches.get(m), ordinalBound);
+        }
+        
+        // Read after the postings: a writer publishes the id table before the postings that use it
+        long[] ids = tourIds;
+        int[] top = topIndexes(scores, candidates, count, limit, ids);
+        List<Long> ranked = new ArrayList<>(top.length);
+        for (int index : top) {
+            ranked.add(ids[candidates[index]]);
+        }
+        return ranked;
+    }
+    
+    private TermMatch prefixMatch(String prefix, double documentCount) {
+        List<Posting> expansions = new ArrayList<>();
+        List<Double> idfs = new ArrayList<>();
+        for (Map.Entry<String, Posting> expansion : postings.tailMap(prefix, true).entrySet()) {
+            if (!expansion.getKey().startsWith(prefix) || expansions.size() == MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            // A whole-word hit outranks a completion of the same word
+            double boost = expansion.getKey().length() == prefix.length() ? 1.0 : 0.5;
+            expansions.add(expansion.getValue());
+            idfs.add(idf(expansion.getValue().ordinals.length, documentCount) * boost);
+        }
+        if (expansions.isEmpty()) {
+            return null;
+        }
+        return new TermMatch(expansions, idfs.stream().mapToDouble(Double::doubleValue).toArray());
+    }
+    
+    /**
+     * Drops candidates the term does not match and adds its best score to the rest, in place.
+     * Short postings are galloped through; when the term's postings are long compared with the
+     * candidates (typically a prefix with many completions) they are scanned once against a
+     * per-thread ordinal-to-candidate table instead.
+     */
+    private static int narrow(int[] candidates, double[] scores, int count, TermMatch match, int ordinalBound) {
+        double[] termScores = new double[count];
+        long gallopCost = 0;
+        long scanCost = 2L * count;
+        for (Posting posting : match.postings) {
+            int shorter = Math.min(count, posting.ordinals.length);
+            int longer = Math.max(count, posting.ordinals.length);
+            gallopCost += shorter * (long) (1 + 32 - Integer.numberOfLeadingZeros(longer / Math.max(1, shorter)));
+            scanCost += posting.ordinals.length;
+        }
+        
+        if (scanCost < gallopCost) {
+            int[] slots = slotScratch(ordinalBound);
+            for (int i = 0; i < count; i++) {
+                slots[candidates[i]] = i + 1;
+            }
+            for (int p = 0; p < match.postings.size(); p++) {
+                Posting posting = match.postings.get(p);
+                double idf = match.idfs[p];
+                for (int j = 0; j < posting.ordinals.length; j++) {
+                    int ordinal = posting.ordinals[j];
+                    int slot = ordinal < ordinalBound ? slots[ordinal] : 0;
+                    if (slot > 0) {
+                        termScores[slot - 1] = Math.max(termScores[slot - 1], posting.weights[j] * idf);
+                    }
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                slots[candidates[i]] = 0;
+            }
+        } else {
+            for (int p = 0; p < match.postings.size(); p++) {
+                gallopInto(termScores, candidates, count, match.postings.get(p), match.idfs[p]);
+            }
+        }
+        
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (termScores[i] > 0) {
+                candidates[kept] = candidates[i];
+                scores[kept++] = scores[i] + termScores[i];
+            }
+        }
+        return kept;
+    }
+    
+    private static void gallopInto(double[] termScores, int[] candidates, int count, Posting posting, double idf) {
+        if (count <= posting.ordinals.length) {
+            int j = 0;
+            for (int i = 0; i < count && j < posting.ordinals.length; i++) {
+                j = gallop(posting.ordinals, j, posting.ordinals.length, candidates[i]);
+                if (j < posting.ordinals.length && posting.ordinals[j] == candidates[i]) {
+                    termScores[i] = Math.max(termScores[i], posting.weights[j] * idf);
+                }
+            }
+        } else {
+            int i = 0;
+            for (int j = 0; j < posting.ordinals.length && i < count; j++) {
+                i = gallop(candidates, i, count, posting.ordinals[j]);
+                if (i < count && candidates[i] == posting.ordinals[j]) {
+                    termScores[i] = Math.max(termScores[i], posting.weights[j] * idf);
+                }
+            }
+        }
+    }
+    
+    /**
+     * First index in [from, to) whose value is at least {@code target}, probing 1, 2, 4... ahead
+     * so skipping through a much longer list costs a logarithm of the gap.
+     */
+    private static int gallop(int[] sorted, int from, int to, int target) {
+        if (from >= to || sorted[from] >= target) {
+            return from;
+        }
+        int step = 1;
+        int low = from;
+        int high = from + step;
+        while (high < to && sorted[high] < target) {
+            low = high;
+            step <<= 1;
+            high = from + step;
+        }
+        high = Math.min(high, to);
+        // sorted[low] < target and either high == to or sorted[high] >= target
+        while (low + 1 < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < target) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        return high;
+    }
+    
+    private void changed() {
+        generation++;
+        results.invalidateAll();
+    }
+    
+    private static float[] prefixScratch(int length) {
+        float[] scratch = PREFIX_SCRATCH.get();
+        if (scratch.length < length) {
+            scratch = new float[length];
+            PREFIX_SCRATCH.set(scratch);
+        }
+        return scratch;
+    }
+    
+    private static int[] slotScratch(int length) {
+        int[] scratch = SLOT_SCRATCH.get();
+        if (scratch.length < length) {
+            scratch = new int[length];
+            SLOT_SCRATCH.set(scratch);
+        }
+        return scratch;
+    }
+    
+    /**
+     * A query that read postings before a removal may resolve a reused ordinal to its new tour;
+     * such a result is cached under the older generation and never served again.
+     */
+    private int assignOrdinal(Long tourId) {
+        int ordinal = freeOrdinals.isEmpty() ? nextOrdinal++ : freeOrdinals.pop();
+        long[] ids = tourIds;
+        if (ordinal == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+        }
+        ids[ordinal] = tourId;
+        tourIds = ids;
+        ordinals.put(tourId, ordinal);
+        return ordinal;
+    }
+    
+    /**
+     * Indexes of the {@code limit} best scores, best first; ties go to the older tour.
+     */
+    private static int[] topIndexes(double[] scores, int[] candidates, int count, int limit, long[] ids) {
+        int size = Math.min(limit, count);
+        int[] heap = new int[size];
+        int filled = 0;
+        for (int i = 0; i < count; i++) {
+            if (filled < size) {
+                heap[filled] = i;
+                siftUp(heap, filled++, scores, candidates, ids);
+            } else if (better(i, heap[0], scores, candidates, ids)) {
+                heap[0] = i;
+                siftDown(heap, size, scores, candidates, ids);
+            }
+        }
+        int[] ordered = new int[size];
+        for (int end = size - 1; end >= 0; end--) {
+            ordered[end] = heap[0];
+            heap[0] = heap[end];
+            siftDown(heap, end, scores, candidates, ids);
+        }
+        return ordered;
+    }
+    
+    // ordinals are reused, so the tie-break compares tour ids rather than ordinals
+    private static boolean better(int a, int b, double[] scores, int[] candidates, long[] ids) {
+        return scores[a] > scores[b] || (scores[a] == scores[b] && ids[candidates[a]] < ids[candidates[b]]);
+    }
+    
+    private static void siftUp(int[] heap, int index, double[] scores, int[] candidates, long[] ids) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!better(heap[parent], heap[index], scores, candidates, ids)) {
+                return;
+            }
+            swap(heap, parent, index);
+            index = parent;
+        }
+    }
+    
+    private static void siftDown(int[] heap, int size, double[] scores, int[] candidates, long[] ids) {
+        int index = 0;
+        while (true) {
+            int worst = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && better(heap[worst], heap[left], scores, candidates, ids)) {
+                worst = left;
+            }
+            if (right < size && better(heap[worst], heap[right], scores, candidates, ids)) {
+                worst = right;
+            }
+            if (worst == index) {
+                return;
+            }
+            swap(heap, worst, index);
+            index = worst;
+        }
+    }
+    
+    private static void swap(int[] heap, int a, int b) {
+        int tmp = heap[a];
+        heap[a] = heap[b];
+        heap[b] = tmp;
+    }
+    
+    private static double idf(int documentFrequency, double documentCount) {
+        return Math.log(1 + documentCount / documentFrequency);
+    }
+    
+    private static Map<String, Integer> termWeights(Tour tour) {
+        Map<String, Integer> weights = new HashMap<>();
+        addField(weights, tour.getName(), NAME_BOOST);
+        addField(weights, tour.getDestination(), DESTINATION_BOOST);
+        addField(weights, tour.getDescription(), DESCRIPTION_BOOST);
+        addField(weights, tour.getItinerary(), ITINERARY_BOOST);
+        return weights;
+    }
+    
+    private static void addField(Map<String, Integer> weights, String text, int boost) {
+        for (String term : tokenize(text)) {
+            weights.merge(term, boost, Integer::sum);
+        }
+    }
+    
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> terms = new ArrayList<>();
+        for (String term : NON_ALPHANUMERIC.split(fold(text))) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+    
+    static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        // đ/Đ is a separate letter, not d plus a combining mark, so NFD leaves it alone
+        return DIACRITICS.matcher(decomposed).replaceAll("")
+                .replace('đ', 'd')
+                .replace('Đ', 'D')
+                .toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * One query term: a single posting for a whole word, or every completion of a prefix.
+     */
+    private static final class TermMatch {
+        private final List<Posting> postings;
+        private final double[] idfs;
+        
+        private TermMatch(List<Posting> postings, double[] idfs) {
+            this.postings = postings;
+            this.idfs = idfs;
+        }
+        
+        /**
+         * Merges the postings keeping each tour's best score, for a query made only of a prefix.
+         */
+        Posting union(int ordinalBound) {
+            if (postings.size() == 1) {
+                Posting only = postings.get(0);
+                float[] weights = new float[only.weights.length];
+                for (int i = 0; i < weights.length; i++) {
+                    weights[i] = (float) (only.weights[i] * idfs[0]);
+                }
+                return new Posting(only.ordinals, weights);
+            }
+            
+            // Reused per thread and left zeroed after each use; allocating it per query showed up as GC churn
+            float[] best = prefixScratch(ordinalBound);
+            int hits = 0;
+            for (int p = 0; p < postings.size(); p++) {
+                Posting posting = postings.get(p);
+                for (int i = 0; i < posting.ordinals.length; i++) {
+                    int ordinal = posting.ordinals[i];
+                    if (ordinal < best.length) {
+                        if (best[ordinal] == 0) {
+                            hits++;
+                        }
+                        best[ordinal] = Math.max(best[ordinal], (float) (posting.weights[i] * idfs[p]));
+                    }
+                }
+            }
+            int[] ordinals = new int[hits];
+            float[] weights = new float[hits];
+            for (int ordinal = 0, i = 0; i < hits; ordinal++) {
+                if (best[ordinal] > 0) {
+                    ordinals[i] = ordinal;
+                    weights[i++] = best[ordinal];
+                    best[ordinal] = 0;
+                }
+            }
+            return new Posting(ordinals, weights);
+        }
+    }
+    
+    private static final class Posting {
+        private final int[] ordinals;
+        private final float[] weights;
+        
+        private Posting(int[] ordinals, float[] weights) {
+            this.ordinals = ordinals;
+            this.weights = weights;
+        }
+        
+        static Posting of(int ordinal, float weight) {
+            return new Posting(new int[]{ordinal}, new float[]{weight});
+        }
+        
+        Posting with(int ordinal, float weight) {
+            int index = Arrays.binarySearch(ordinals, ordinal);
+            if (index >= 0) {
+                float[] updated = weights.clone();
+                updated[index] = weight;
+                return new Posting(ordinals, updated);
+            }
+            int at = -index - 1;
+            int[] newOrdinals = new int[ordinals.length + 1];
+            float[] newWeights = new float[weights.length + 1];
+            System.arraycopy(ordinals, 0, newOrdinals, 0, at);
+            System.arraycopy(weights, 0, newWeights, 0, at);
+            newOrdinals[at] = ordinal;
+            newWeights[at] = weight;
+            System.arraycopy(ordinals, at, newOrdinals, at + 1, ordinals.length - at);
+            System.arraycopy(weights, at, newWeights, at + 1, weights.length - at);
+            return new Posting(newOrdinals, newWeights);
+        }
+        
+        Posting without(int ordinal) {
+            int index = Arrays.binarySearch(ordinals, ordinal);
+            if (index < 0) {
+                return this;
+            }
+            if (ordinals.length == 1) {
+                return null;
+            }
+            int[] newOrdinals = new int[ordinals.length - 1];
+            float[] newWeights = new float[weights.length - 1];
+            System.arraycopy(ordinals, 0, newOrdinals, 0, index);
+            System.arraycopy(weights, 0, newWeights, 0, index);
+            System.arraycopy(ordinals, index + 1, newOrdinals, index, ordinals.length - index - 1);
+            System.arraycopy(weights, index + 1, newWeights, index, weights.length - index - 1);
+            return new Posting(newOrdinals, newWeights);
+        }
+    }
+    
+    private static final class PostingBuilder {
+        private final String term;
+        private int[] ordinals = new int[4];
+        private float[] weights = new float[4];
+        private int size;
+        
+        PostingBuilder(String term) {
+            this.term = term;
+        }
+        
+        void add(int ordinal, float weight) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            ordinals[size] = ordinal;
+            weights[size++] = weight;
+        }
+        
+        Posting build() {
+            return new Posting(Arrays.copyOf(ordinals, size), Arrays.copyOf(weights, size));
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.dto.FacetCount;
+import com.example.tourismmanagement.dto.TourDTO;
+import com.example.tourismmanagement.dto.TourSearchCriteria;
+import com.example.tourismmanagement.dto.TourSearchResult;
+import com.example.tourismmanagement.model.Category;
+import com.example.tourismmanagement.model.Tour;
+import com.example.tourismmanagement.service.TourCatalogSnapshot.Facet;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Combined tour filtering with facet counts. Every query here selects ids or grouped counts
+ * only; the page of DTOs is then read through the catalog cache. Each facet is counted with
+ * every filter except its own, so the client can show what switching that filter would give.
+ * Once the {@link TourCatalogSnapshot} is loaded the filters run against it instead of the database.
+ */
+@Service
+public class TourSearchService {
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final long[] PRICE_BUCKET_BOUNDS = {1000000L, 3000000L, 5000000L, 10000000L};
+    private static final Set<String> SORT_FIELDS = Set.of("price", "startDate", "createdAt", "duration");
+    
+    @Autowired
+    private EntityManager entityManager;
+    
+    @Autowired
+    private TourService tourService;
+    
+    @Autowired
+    private TourSearchIndex tourSearchIndex;
+    
+    @Autowired
+    private TourCatalogSnapshot tourCatalogSnapshot;
+    
+    @Value("${search.tours.max-results:1000}")
+    private int maxTextMatches;
+    
+    @Value("${catalog.snapshot.enabled:true}")
+    private boolean snapshotEnabled;
+    
+    @Transactional(readOnly = true)
+    public TourSearchResult search(TourSearchCriteria criteria, Integer page, Integer size, String sort, String direction) {
+        int pageSize = KeysetCursor.clampPageSize(size, DEFAULT_PAGE_SIZE, MAX_PAGE_SIZE);
+        int pageNumber = page != null && page > 0 ? page : 0;
+        List<Long> textMatches = textMatches(criteria);
+        
+        List<Long> pageIds;
+        long total;
+        if (textMatches != null && (sort == null || "relevance".equals(sort))) {
+            List<Long> ranked = rankedMatches(criteria, textMatches);
+            total = ranked.size();
+            int from = (int) Math.min((long) pageNumber * pageSize, ranked.size());
+            pageIds = ranked.subList(from, Math.min(from + pageSize, ranked.size()));
+        } else if (useSnapshot()) {
+            TourCatalogSnapshot.Page ids = tourCatalogSnapshot.page(criteria, textMatches, sortField(sort), direction,
+                    (long) pageNumber * pageSize, pageSize);
+            total = ids.getTotal();
+            pageIds = ids.getIds();
+        } else {
+            total = count(criteria, textMatches);
+            pageIds = findIds(criteria, textMatches, sort, direction, (long) pageNumber * pageSize, pageSize);
+        }
+        
+        return new TourSearchResult(
+                tourService.getToursByIds(pageIds),
+                total,
+                pageNumber,
+                pageSize,
+                categoryFacet(criteria, textMatches),
+                priceFacet(criteria, textMatches),
+                monthFacet(criteria, textMatches)
+        );
+    }
+    
+    /**
+     * All matching tours in one list: best text match first when there is text, otherwise by start date.
+     */
+    @Transactional(readOnly = true)
+    public List<TourDTO> searchAll(TourSearchCriteria criteria) {
+        List<Long> textMatches = textMatches(criteria);
+        List<Long> ids;
+        if (textMatches != null) {
+            ids = rankedMatches(criteria, textMatches);
+        } else if (useSnapshot()) {
+            ids = tourCatalogSnapshot.page(criteria, null, "startDate", "asc", 0, Integer.MAX_VALUE).getIds();
+        } else {
+            ids = findIds(criteria, null, "startDate", "asc", 0, Integer.MAX_VALUE);
+        }
+        return tourService.getToursByIds(ids);
+    }
+    
+    private boolean useSnapshot() {
+        return snapshotEnabled && tourCatalogSnapshot.isReady();
+    }
+    
+    private static String sortField(String sort) {
+        return sort == null || SORT_FIELDS.contains(sort) ? sort : "startDate";
+    }
+    
+    private List<Long> textMatches(TourSearchCriteria criteria) {
+        String text = criteria.getText();
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        return tourSearchIndex.search(text, maxTextMatches);
+    }
+    
+    private List<Long> rankedMatches(TourSearchCriteria criteria, List<Long> textMatches) {
+        if (textMatches.isEmpty()) {
+            return List.of();
+        }
+        if (useSnapshot()) {
+            // keeps the ranking order of textMatches
+            return tourCatalogSnapshot.page(criteria, textMatches, null, null, 0, Integer.MAX_VALUE).getIds();
+        }
+        Set<Long> matching = new HashSet<>(findIds(criteria, textMatches, null, null, 0, Integer.MAX_VALUE));
+        return textMatches.stream().filter(matching::contains).collect(Collectors.toList());
+    }
+    
+    private List<Long> findIds(TourSearchCriteria criteria, List<Long> textMatches, String sort, String direction,
+                               long offset, int limit) {
+        if (textMatches != null && textMatches.isEmpty()) {
+            return List.of();
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Tour> tour = query.from(Tour.class);
+        query.select(tour.get("id")).where(predicates(cb, tour, criteria, textMatches, Facet.NONE));
+        
+        if (sort != null) {
+            String field = sortField(sort);
+            boolean descending = "desc".equalsIgnoreCase(direction);
+            query.orderBy(descending ? cb.desc(tour.get(field)) : cb.asc(tour.get(field)),
+                    descending ? cb.desc(tour.get("id")) : cb.asc(tour.get("id")));
+        }
+        return entityManager.createQuery(query)
+                .setFirstResult((int) Math.min(offset, Integer.MAX_VALUE))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+    
+    private long count(TourSearchCriteria criteria, List<Long> textMatches) {
+        if (textMatches != null && textMatches.isEmpty()) {
+            return 0;
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Tour> tour = query.from(Tour.class);
+        query.select(cb.count(tour)).where(predicates(cb, tour, criteria, textMatches, Facet.NONE));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+    
+    private List<FacetCount> categoryFacet(TourSearchCriteria criteria, List<Long> textMatches) {
+        if (textMatches != null && textMatches.isEmpty()) {
+            return List.of();
+        }
+        if (useSnapshot()) {
+            return tourCatalogSnapshot.categoryFacet(criteria, textMatches);
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Tour> tour = query.from(Tour.class);
+        Join<Tour, Category> category = tour.join("category", JoinType.LEFT);
+        query.multiselect(category.get("id"), category.get("name"), cb.count(tour))
+                .where(predicates(cb, tour, criteria, textMatches, Facet.CATEGORY))
+                .groupBy(category.get("id"), category.get("name"))
+                .orderBy(cb.desc(cb.count(tour)));
+        
+        List<FacetCount> facets = new ArrayList<>();
+        for (Tuple row : entityManager.createQuery(query).getResultList()) {
+            Long id = row.get(0, Long.class);
+            facets.add(new FacetCount(id != null ? id.toString() : "none",
+                    id != null ? row.get(1, String.class) : "Uncategorized", row.get(2, Long.class)));
+        }
+        return facets;
+    }
+    
+    // Grouped on the raw column (few distinct prices) and bucketed here, which keeps the SQL portable
+    private List<FacetCount> priceFacet(TourSearchCriteria criteria, List<Long> textMatches) {
+        long[] counts;
+        if (useSnapshot()) {
+            counts = tourCatalogSnapshot.priceCounts(criteria, textMatches, PRICE_BUCKET_BOUNDS);
+        } else {
+            counts = new long[PRICE_BUCKET_BOUNDS.length + 1];
+            for (Tuple row : groupedCounts(criteria, textMatches, "price", Facet.PRICE)) {
+                BigDecimal price = row.get(0, BigDecimal.class);
+                int bucket = 0;
+                while (bucket < PRICE_BUCKET_BOUNDS.length && price.compareTo(BigDecimal.valueOf(PRICE_BUCKET_BOUNDS[bucket])) >= 0) {
+                    bucket++;
+                }
+                counts[bucket] += row.get(1, Long.class);
+            }
+        }
+        
+        List<FacetCount> facets = new ArrayList<>();
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            long from = bucket == 0 ? 0 : PRICE_BUCKET_BOUNDS[bucket - 1];
+            String key = bucket < PRICE_BUCKET_BOUNDS.length ? from + "-" + PRICE_BUCKET_BOUNDS[bucket] : from + "+";
+            facets.add(new FacetCount(key, key, counts[bucket]));
+        }
+        return facets;
+    }
+    
+    private List<FacetCount> monthFacet(TourSearchCriteria criteria, List<Long> textMatches) {
+        Map<YearMonth, Long> counts;
+        if (useSnapshot()) {
+            counts = tourCatalogSnapshot.monthCounts(criteria, textMatches);
+        } else {
+            counts = new TreeMap<>();
+            for (Tuple row : groupedCounts(criteria, textMatches, "startDate", Facet.MONTH)) {
+                counts.merge(YearMonth.from(row.get(0, LocalDate.class)), row.get(1, Long.class), Long::sum);
+            }
+        }
+        return counts.entrySet().stream()
+                .map(entry -> new FacetCount(entry.getKey().toString(), entry.getKey().toString(), entry.getValue()))
+                .collect(Collectors.toList());
+    }
+    
+    private List<Tuple> groupedCounts(TourSearchCriteria criteria, List<Long> textMatches, String field, Facet facet) {
+        if (textMatches != null && textMatches.isEmpty()) {
+            return List.of();
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Tour> tour = query.from(Tour.class);
+        query.multiselect(tour.get(field), cb.count(tour))
+                .where(predicates(cb, tour, criteria, textMatches, facet))
+                .groupBy(tour.get(field));
+        return entityManager.createQuery(query).getResultList();
+    }
+    
+    private static Predicate[] predicates(CriteriaBuilder cb, Root<Tour> tour, TourSearchCriteria criteria,
+                                          List<Long> textMatches, Facet skip) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (criteria.getStatus() != null && !criteria.getStatus().isBlank()) {
+            predicates.add(cb.equal(tour.get("status"), parseStatus(criteria.getStatus())));
+        }
+        if (criteria.getCategoryId() != null && skip != Facet.CATEGORY) {
+            predicates.add(cb.equal(tour.get("category").get("id"), criteria.getCategoryId()));
+        }
+        if (skip != Facet.MONTH) {
+            if (criteria.getStartDate() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(tour.get("startDate"), criteria.getStartDate()));
+            }
+            if (criteria.getEndDate() != null) {
+                predicates.add(cb.lessThanOrEqualTo(tour.get("startDate"), criteria.getEndDate()));
+            }
+        }
+        if (skip != Facet.PRICE) {
+            if (criteria.getMinPrice() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(tour.get("price"), criteria.getMinPrice()));
+            }
+            if (criteria.getMaxPrice() != null) {
+                predicates.add(cb.lessThanOrEqualTo(tour.get("price"), criteria.getMaxPrice()));
+            }
+        }
+        if (criteria.getMinSeats() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(tour.get("availableSeats"), criteria.getMinSeats()));
+        }
+        if (criteria.getMinDuration() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(tour.get("duration"), criteria.getMinDuration()));
+        }
+        if (criteria.getMaxDuration() != null) {
+            predicates.add(cb.lessThanOrEqualTo(tour.get("duration"), criteria.getMaxDuration()));
+        }
+        if (textMatches != null) {
+            predicates.add(tour.get("id").in(textMatches));
+        }
+        return predicates.toArray(new Predicate[0]);
+    }
+    
+    static Tour.TourStatus parseStatus(String status) {
+        try {
+            return Tour.TourStatus.valueOf(status.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid tour status: " + status);
+        }
+    }
+}
@@ -1,43 +1,119 @@
 package com.example.tourismmanagement.service;
 
+import com.example.tourismmanagement.dto.CursorPage;
 import com.example.tourismmanagement.dto.TourDTO;
+import com.example.tourismmanagement.event.TourChangedEvent;
 import com.example.tourismmanagement.model.Category;
+import com.example.tourismmanagement.model.OutboxEvent;
 import com.example.tourismmanagement.model.Tour;
 import com.example.tourismmanagement.repository.CategoryRepository;
+import com.example.tourismmanagement.repository.TourImageRepository;
 import com.example.tourismmanagement.repository.TourRepository;
+import jakarta.persistence.criteria.JoinType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class TourService {
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int LOAD_CHUNK_SIZE = 1000;
+    
     @Autowired
     private TourRepository tourRepository;
     
     @Autowired
     private CategoryRepository categoryRepository;
     
+    @Autowired
+    private TourImageRepository tourImageRepository;
+    
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+    
+    @Autowired
+    private TourCatalogCache tourCatalogCache;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private OutboxService outboxService;
+    
     public List<TourDTO> getAllTours() {
-        return tourRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return tourCatalogCache.getCatalog(tourRepository::findAllIds, this::loadTours);
+    }
+    
+    public CursorPage<TourDTO> getToursPage(String cursor, Integer size, String sortBy, String direction) {
+        int pageSize = KeysetCursor.clampPageSize(size, DEFAULT_PAGE_SIZE, MAX_PAGE_SIZE);
+        boolean byPrice = "price".equals(sortBy);
+        String sortField = byPrice ? "price" : "createdAt";
+        Sort.Direction sortDirection = "desc".equalsIgnoreCase(direction) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort sort = Sort.by(sortDirection, sortField).and(Sort.by(sortDirection, "id"));
+        
+        ScrollPosition position = ScrollPosition.keyset();
+        if (cursor != null && !cursor.isBlank()) {
+            KeysetCursor<Object> after = KeysetCursor.decode(cursor,
+                    value -> byPrice ? new BigDecimal(value) : LocalDateTime.parse(value));
+            Map<String, Object> keys = new LinkedHashMap<>();
+            keys.put(sortField, after.getSortValue());
+            keys.put("id", after.getId());
+            position = ScrollPosition.forward(keys);
+        }
+        ScrollPosition from = position;
+        
+        Window<Tour> window = tourRepository.findBy(withCategory(),
+                query -> query.sortBy(sort).limit(pageSize).scroll(from));
+        
+        List<TourDTO> items = window.stream().map(this::convertToDTO).collect(Collectors.toList());
+        String nextCursor = null;
+        if (window.hasNext() && !window.isEmpty()) {
+            Tour last = window.getContent().get(window.size() - 1);
+            nextCursor = KeysetCursor.encode(byPrice ? last.getPrice() : last.getCreatedAt(), last.getId());
+        }
+        return new CursorPage<>(items, nextCursor, window.hasNext());
     }
     
     public TourDTO getTourById(Long id) {
-        Tour tour = tourRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Tour not found with id: " + id));
-        return convertToDTO(tour);
+        TourDTO tour = tourCatalogCache.getTour(id, this::loadTour);
+        if (tour == null) {
+            throw new RuntimeException("Tour not found with id: " + id);
+        }
+        return tour;
     }
     
+    @Transactional
     public TourDTO createTour(TourDTO tourDTO) {
         Tour tour = convertToEntity(tourDTO);
+        seatInventoryService.applySeatStatus(tour);
         Tour savedTour = tourRepository.save(tour);
-        return convertToDTO(savedTour);
+        eventPublisher.publishEvent(new TourChangedEvent(savedTour.getId(), TourChangedEvent.Type.CREATED));
+        TourDTO dto = convertToDTO(savedTour);
+        outboxService.record(OutboxEvent.EventType.TOUR_CREATED, dto.getId(), dto);
+        return dto;
     }
     
     public TourDTO updateTour(Long id, TourDTO tourDTO) {
+        return seatInventoryService.executeWithRetry(() -> doUpdateTour(id, tourDTO));
+    }
+    
+    private TourDTO doUpdateTour(Long id, TourDTO tourDTO) {
         Tour tour = tourRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Tour not found with id: " + id));
         
@@ -46,8 +122,13 @@ public class TourService {
         tour.setDestination(tourDTO.getDestination());
         tour.setDuration(tourDTO.getDuration());
         tour.setPrice(tourDTO.getPrice());
+        // seats come from the capacity change, never from the client: its copy may predate bookings made since
+        int booked = tour.getMaxParticipants() - tour.getAvailableSeats();
+        if (tourDTO.getMaxParticipants() < booked) {
+            throw new RuntimeException("Max participants cannot be lower than the " + booked + " seats already booked");
+        }
         tour.setMaxParticipants(tourDTO.getMaxParticipants());
-        tour.setAvailableSeats(tourDTO.getAvailableSeats());
+        tour.setAvailableSeats(tourDTO.getMaxParticipants() - booked);
         tour.setStartDate(tourDTO.getStartDate());
         tour.setEndDate(tourDTO.getEndDate());
         tour.setImageUrl(tourDTO.getImageUrl());
@@ -64,24 +145,80 @@ public class TourService {
         if (tourDTO.getStatus() != null) {
             tour.setStatus(Tour.TourStatus.valueOf(tourDTO.getStatus()));
         }
+        seatInventoryService.applySeatStatus(tour);
         
-        Tour updatedTour = tourRepository.save(tour);
-        return convertToDTO(updatedTour);
+        // saveAndFlush so a concurrent seat reservation surfaces as a version conflict inside the retry
+        Tour updatedTour = tourRepository.saveAndFlush(tour);
+        eventPublisher.publishEvent(new TourChangedEvent(id, TourChangedEvent.Type.UPDATED));
+        TourDTO dto = convertToDTO(updatedTour);
+        outboxService.record(OutboxEvent.EventType.TOUR_UPDATED, id, dto);
+        return dto;
     }
     
+    @Transactional
     public void deleteTour(Long id) {
         Tour tour = tourRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Tour not found with id: " + id));
         tourRepository.delete(tour);
+        eventPublisher.publishEvent(new TourChangedEvent(id, TourChangedEvent.Type.DELETED));
+        outboxService.record(OutboxEvent.EventType.TOUR_DELETED, id, Map.of("id", id));
+    }
+    
+    /**
+     * Makes one of the tour's images its cover, or clears the cover when {@code imageId} is null.
+     */
+    @Transactional
+    public TourDTO setCoverImage(Long tourId, Long imageId) {
+        Tour tour = tourRepository.findById(tourId)
+                .orElseThrow(() -> new RuntimeException("Tour not found with id: " + tourId));
+        if (imageId != null && !tourImageRepository.existsByIdAndTourId(imageId, tourId)) {
+            throw new RuntimeException("Image " + imageId + " does not belong to tour " + tourId);
+        }
+        tour.setCoverImageId(imageId);
+        Tour updatedTour = tourRepository.saveAndFlush(tour);
+        eventPublisher.publishEvent(new TourChangedEvent(tourId, TourChangedEvent.Type.UPDATED));
+        TourDTO dto = convertToDTO(updatedTour);
+        outboxService.record(OutboxEvent.EventType.TOUR_UPDATED, tourId, dto);
+        return dto;
+    }
+    
+    // validators for the listing; single tours carry their own version and updatedAt
+    public long getCatalogVersion() {
+        return tourCatalogCache.getVersion();
     }
     
-    public List<TourDTO> searchByDestination(String destination) {
-        return tourRepository.findByDestinationContaining(destination).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public long getCatalogLastModified() {
+        return tourCatalogCache.getLastModified();
     }
     
-    private TourDTO convertToDTO(Tour tour) {
+    List<TourDTO> getToursByIds(List<Long> ids) {
+        return tourCatalogCache.getTours(ids, this::loadTours);
+    }
+    
+    private TourDTO loadTour(Long id) {
+        return tourRepository.findById(id).map(this::convertToDTO).orElse(null);
+    }
+    
+    private Map<Long, TourDTO> loadTours(Set<? extends Long> ids) {
+        Map<Long, TourDTO> loaded = new HashMap<>();
+        List<Long> pending = new ArrayList<>(ids);
+        for (int from = 0; from < pending.size(); from += LOAD_CHUNK_SIZE) {
+            List<Long> chunk = pending.subList(from, Math.min(from + LOAD_CHUNK_SIZE, pending.size()));
+            for (Tour tour : tourRepository.findAllWithCategoryByIdIn(chunk)) {
+                loaded.put(tour.getId(), convertToDTO(tour));
+            }
+        }
+        return loaded;
+    }
+    
+    private static Specification<Tour> withCategory() {
+        return (root, query, criteriaBuilder) -> {
+            root.fetch("category", JoinType.LEFT);
+            return null;
+        };
+    }
+    
+    TourDTO convertToDTO(Tour tour) {
         TourDTO dto = new TourDTO();
         dto.setId(tour.getId());
         dto.setName(tour.getName());
@@ -98,6 +235,13 @@ public class TourService {
         dto.setItinerary(tour.getItinerary());
         dto.setIncluded(tour.getIncluded());
         dto.setExcluded(tour.getExcluded());
+        dto.setCreatedAt(tour.getCreatedAt());
+        dto.setUpdatedAt(tour.getUpdatedAt());
+        dto.setVersion(tour.getVersion());
+        if (tour.getCoverImageId() != null) {
+            dto.setCoverImageId(tour.getCoverImageId());
+            dto.setThumbnailUrl(ImageService.url(tour.getCoverImageId(), ImageService.Variant.THUMB));
+        }
         
         if (tour.getCategory() != null) {
             dto.setCategoryId(tour.getCategory().getId());
@@ -107,7 +251,7 @@ public class TourService {
         return dto;
     }
     
-    private Tour convertToEntity(TourDTO dto) {
+    Tour convertToEntity(TourDTO dto) {
         Tour tour = new Tour();
         tour.setName(dto.getName());
         tour.setDescription(dto.getDescription());
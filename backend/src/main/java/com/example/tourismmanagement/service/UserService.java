@@ -0,0 +1,123 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.dto.CursorPage;
+import com.example.tourismmanagement.dto.UserDTO;
+import com.example.tourismmanagement.model.User;
+import com.example.tourismmanagement.repository.UserRepository;
+import com.example.tourismmanagement.security.TokenVersionRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+public class UserService {
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+    
+    public List<UserDTO> getAllUsers() {
+        return userRepository.findAll(Sort.by("createdAt", "id")).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+    
+    public CursorPage<UserDTO> getUsersPage(String cursor, Integer size, String direction) {
+        int pageSize = KeysetCursor.clampPageSize(size, DEFAULT_PAGE_SIZE, MAX_PAGE_SIZE);
+        Sort.Direction sortDirection = "desc".equalsIgnoreCase(direction) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort sort = Sort.by(sortDirection, "createdAt").and(Sort.by(sortDirection, "id"));
+        
+        ScrollPosition position = ScrollPosition.keyset();
+        if (cursor != null && !cursor.isBlank()) {
+            KeysetCursor<LocalDateTime> after = KeysetCursor.decode(cursor, LocalDateTime::parse);
+            Map<String, Object> keys = new LinkedHashMap<>();
+            keys.put("createdAt", after.getSortValue());
+            keys.put("id", after.getId());
+            position = ScrollPosition.forward(keys);
+        }
+        ScrollPosition from = position;
+        
+        Window<User> window = userRepository.findBy(allUsers(),
+                query -> query.sortBy(sort).limit(pageSize).scroll(from));
+        
+        List<UserDTO> items = window.stream().map(this::convertToDTO).collect(Collectors.toList());
+        String nextCursor = null;
+        if (window.hasNext() && !window.isEmpty()) {
+            User last = window.getContent().get(window.size() - 1);
+            nextCursor = KeysetCursor.encode(last.getCreatedAt(), last.getId());
+        }
+        return new CursorPage<>(items, nextCursor, window.hasNext());
+    }
+    
+    public UserDTO getUserById(Long id) {
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
+        return convertToDTO(user);
+    }
+    
+    public UserDTO updateRole(Long id, String role) {
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
+        
+        User.Role newRole;
+        try {
+            newRole = User.Role.valueOf(role.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid role: " + role);
+        }
+        
+        if (user.getRole() != newRole) {
+            user.setRole(newRole);
+            revokeTokens(user);
+        }
+        return convertToDTO(user);
+    }
+    
+    public UserDTO updateActive(Long id, boolean active) {
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
+        
+        if (!user.getActive().equals(active)) {
+            user.setActive(active);
+            revokeTokens(user);
+        }
+        return convertToDTO(user);
+    }
+    
+    private void revokeTokens(User user) {
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        userRepository.save(user);
+        tokenVersionRegistry.evict(user.getId());
+    }
+    
+    private static Specification<User> allUsers() {
+        return (root, query, criteriaBuilder) -> null;
+    }
+    
+    UserDTO convertToDTO(User user) {
+        UserDTO dto = new UserDTO();
+        dto.setId(user.getId());
+        dto.setUsername(user.getUsername());
+        dto.setEmail(user.getEmail());
+        dto.setFullName(user.getFullName());
+        dto.setPhone(user.getPhone());
+        dto.setAddress(user.getAddress());
+        dto.setRole(user.getRole().name());
+        dto.setActive(user.getActive());
+        dto.setCreatedAt(user.getCreatedAt());
+        return dto;
+    }
+}
@@ -0,0 +1,341 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.dto.BookingDTO;
+import com.example.tourismmanagement.dto.WaitlistEntryDTO;
+import com.example.tourismmanagement.event.TourChangedEvent;
+import com.example.tourismmanagement.model.Tour;
+import com.example.tourismmanagement.model.User;
+import com.example.tourismmanagement.model.WaitlistEntry;
+import com.example.tourismmanagement.repository.TourRepository;
+import com.example.tourismmanagement.repository.UserRepository;
+import com.example.tourismmanagement.repository.WaitlistRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-tour waitlist for full tours. The queue is the waitlist_entries table read in id order
+ * through the (tour_id, status, id) index, so joining is one insert and finding the head is one
+ * index seek however many customers wait.
+ * <p>
+ * Whenever seats come back to a tour (a cancellation, an expired hold, an operator raising the
+ * capacity) the head of its queue is offered them: the seats are taken from the tour right away
+ * and kept for the customer for the claim window. An offer that is not claimed in time expires,
+ * its seats are released, and that release in turn offers them to the next in line.
+ * <p>
+ * Seats too few for the head are held for it for {@code booking.waitlist.head-hold-minutes}
+ * while more come back, and direct bookings are refused meanwhile. A head whose hold runs out is
+ * passed over: the seats go to whoever behind it fits, in order, and once nobody in the queue can
+ * use them direct bookings resume. A passed-over entry keeps its place and is still offered seats
+ * first whenever enough are free.
+ */
+@Service
+public class WaitlistService {
+    private static final Logger logger = LoggerFactory.getLogger(WaitlistService.class);
+    
+    private static final EnumSet<WaitlistEntry.WaitlistStatus> ACTIVE = EnumSet.of(WaitlistEntry.WaitlistStatus.WAITING,
+            WaitlistEntry.WaitlistStatus.OFFERED);
+    
+    @Autowired
+    private WaitlistRepository waitlistRepository;
+    
+    @Autowired
+    private TourRepository tourRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+    
+    @Autowired
+    private BookingService bookingService;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${booking.waitlist.max-per-tour:1000}")
+    private long maxPerTour;
+    
+    @Value("${booking.waitlist.claim-minutes:30}")
+    private long claimMinutes;
+    
+    @Value("${booking.waitlist.offer-batch-size:50}")
+    private int offerBatchSize;
+    
+    @Value("${booking.waitlist.sweep-seconds:30}")
+    private long sweepSeconds;
+    
+    @Value("${booking.waitlist.head-hold-minutes:30}")
+    private long headHoldMinutes;
+    
+    private volatile boolean running = true;
+    
+    private TransactionTemplate transactionTemplate;
+    private Thread sweeper;
+    // guarded by this; the first sweep looks at every hold that ever ended
+    private LocalDateTime holdsCheckedUntil = LocalDateTime.of(1970, 1, 1, 0, 0);
+    
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // offers are made from after-commit listeners, where REQUIRED would join the finished transaction
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        sweeper = new Thread(this::run, "waitlist-offer-expiry");
+        sweeper.setDaemon(true);
+        sweeper.start();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        sweeper.interrupt();
+    }
+    
+    public WaitlistEntryDTO join(WaitlistEntryDTO request, String username) {
+        Long entryId = transactionTemplate.execute(status -> {
+            User customer = userRepository.findByUsername(username)
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+            Tour tour = tourRepository.findById(request.getTourId())
+                    .orElseThrow(() -> new RuntimeException("Tour not found"));
+            if (tour.getStatus() != Tour.TourStatus.AVAILABLE && tour.getStatus() != Tour.TourStatus.FULL) {
+                throw new RuntimeException("Tour is not open for booking");
+            }
+            if (tour.getStatus() == Tour.TourStatus.AVAILABLE && tour.getAvailableSeats() >= request.getNumberOfPeople()
+                    && !waitlistRepository.isHoldingSeats(tour.getId(), WaitlistEntry.WaitlistStatus.WAITING,
+                    LocalDateTime.now())) {
+                throw new RuntimeException("Seats are available, please book the tour directly");
+            }
+            if (request.getNumberOfPeople() > tour.getMaxParticipants()) {
+                throw new RuntimeException("Number of people exceeds the tour capacity");
+            }
+            if (waitlistRepository.existsByTourIdAndCustomerIdAndStatusIn(tour.getId(), customer.getId(), ACTIVE)) {
+                throw new RuntimeException("You are already on the waitlist for this tour");
+            }
+            if (waitlistRepository.countByTourIdAndStatus(tour.getId(), WaitlistEntry.WaitlistStatus.WAITING) >= maxPerTour) {
+                throw new RuntimeException("The waitlist for this tour is full");
+            }
+            
+            WaitlistEntry entry = new WaitlistEntry();
+            entry.setTour(tour);
+            entry.setCustomer(customer);
+            entry.setNumberOfPeople(request.getNumberOfPeople());
+            entry.setStatus(WaitlistEntry.WaitlistStatus.WAITING);
+            return waitlistRepository.save(entry).getId();
+        });
+        // seats freed while we were joining would otherwise wait for the next release
+        offerSeats(request.getTourId());
+        return getEntry(entryId);
+    }
+    
+    public List<WaitlistEntryDTO> getMyEntries(String username) {
+        List<WaitlistEntryDTO> entries = waitlistRepository.findDTOsByCustomerUsername(username);
+        entries.forEach(this::fillPosition);
+        return entries;
+    }
+    
+    /**
+     * Turns an open offer into a PENDING booking for the seats it holds. The booking then runs
+     * on the regular unpaid hold like any other.
+     */
+    @Transactional
+    public BookingDTO claim(Long id, String username) {
+        WaitlistEntry entry = lockOwnEntry(id, username);
+        if (entry.getStatus() != WaitlistEntry.WaitlistStatus.OFFERED) {
+            throw new RuntimeException("There is no open offer for this waitlist entry");
+        }
+        if (entry.getOfferExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new RuntimeException("The offer has expired");
+        }
+        Tour.TourStatus tourStatus = entry.getTour().getStatus();
+        if (tourStatus != Tour.TourStatus.AVAILABLE && tourStatus != Tour.TourStatus.FULL) {
+            throw new RuntimeException("Tour is not open for booking");
+        }
+        entry.setStatus(WaitlistEntry.WaitlistStatus.CLAIMED);
+        return bookingService.createReservedBooking(entry.getTour(), entry.getCustomer(), entry.getNumberOfPeople());
+    }
+    
+    @Transactional
+    public void leave(Long id, String username) {
+        WaitlistEntry entry = lockOwnEntry(id, username);
+        if (!ACTIVE.contains(entry.getStatus())) {
+            throw new RuntimeException("Waitlist entry is no longer active");
+        }
+        boolean offered = entry.getStatus() == WaitlistEntry.WaitlistStatus.OFFERED;
+        entry.setStatus(WaitlistEntry.WaitlistStatus.CANCELLED);
+        if (offered) {
+            // the release hands the seats on to the next in line once this commits
+            seatInventoryService.releaseSeats(entry.getTour().getId(), entry.getNumberOfPeople());
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTourChanged(TourChangedEvent event) {
+        if (event.getType() != TourChangedEvent.Type.SEATS_CHANGED && event.getType() != TourChangedEvent.Type.UPDATED) {
+            return;
+        }
+        if (waitlistRepository.existsByTourIdAndStatus(event.getTourId(), WaitlistEntry.WaitlistStatus.WAITING)) {
+            offerSeats(event.getTourId());
+        }
+    }
+    
+    /**
+     * Offers the tour's free seats to the head of its queue, strictly in order: the first entry
+     * that does not fit stops the round and has the seats held for it, so a large party is not
+     * overtaken by smaller ones behind it until its hold runs out. Past a passed-over entry the
+     * round goes on to anyone who fits. Only the queue head is locked while this runs; the tour
+     * row is touched by a single conditional seat update at the end. Returns how many entries got
+     * an offer.
+     */
+    public int offerSeats(Long tourId) {
+        Integer offered = transactionTemplate.execute(status -> {
+            Tour tour = tourRepository.findById(tourId).orElse(null);
+            if (tour == null || tour.getStatus() != Tour.TourStatus.AVAILABLE || tour.getAvailableSeats() <= 0) {
+                return 0;
+            }
+            List<WaitlistEntry> head = waitlistRepository.findHeadForUpdate(tourId,
+                    WaitlistEntry.WaitlistStatus.WAITING, Limit.of(offerBatchSize));
+            int free = tour.getAvailableSeats();
+            int seats = 0;
+            int count = 0;
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime expiresAt = now.plusMinutes(claimMinutes);
+            boolean inOrder = true;
+            boolean held = false;
+            for (WaitlistEntry entry : head) {
+                if (seats + entry.getNumberOfPeople() <= free) {
+                    entry.setStatus(WaitlistEntry.WaitlistStatus.OFFERED);
+                    entry.setOfferExpiresAt(expiresAt);
+                    seats += entry.getNumberOfPeople();
+                    count++;
+                } else if (entry.getHeldUntil() == null && inOrder) {
+                    entry.setHeldUntil(now.plusMinutes(headHoldMinutes));
+                    held = true;
+                    break;
+                } else if (entry.getHeldUntil() != null && entry.getHeldUntil().isAfter(now)) {
+                    held = true;
+                    break;
+                } else {
+                    // passed over: it stops holding seats, and so does everyone behind it that does not fit
+                    if (entry.getHeldUntil() == null) {
+                        entry.setHeldUntil(now);
+                    }
+                    inOrder = false;
+                }
+            }
+            if (!inOrder && !held && head.size() == offerBatchSize) {
+                waitlistRepository.passOverAfter(tourId, WaitlistEntry.WaitlistStatus.WAITING,
+                        head.get(head.size() - 1).getId(), now);
+            }
+            if (count == 0) {
+                return 0;
+            }
+            if (!seatInventoryService.tryReserveSeats(tourId, seats)) {
+                // a booking started before the queue formed took seats in between the read and the update;
+                // its SEATS_CHANGED event runs this again against what is left
+                status.setRollbackOnly();
+                return 0;
+            }
+            return count;
+        });
+        if (offered != null && offered > 0) {
+            logger.info("Offered seats on tour {} to {} waitlisted customers", tourId, offered);
+        }
+        return offered != null ? offered : 0;
+    }
+    
+    /**
+     * Expires unclaimed offers and gives their seats back, one release per tour. Returns how many
+     * offers expired.
+     */
+    int expireOffers() {
+        Integer expired = transactionTemplate.execute(status -> {
+            List<WaitlistEntry> entries = waitlistRepository.findExpiredOffersForUpdate(
+                    WaitlistEntry.WaitlistStatus.OFFERED, LocalDateTime.now(), Limit.of(offerBatchSize));
+            Map<Long, Integer> seatsByTour = new TreeMap<>();
+            for (WaitlistEntry entry : entries) {
+                entry.setStatus(WaitlistEntry.WaitlistStatus.EXPIRED);
+                seatsByTour.merge(entry.getTour().getId(), entry.getNumberOfPeople(), Integer::sum);
+            }
+            // ascending tour order keeps lock acquisition consistent with other batch writers
+            seatsByTour.forEach(seatInventoryService::releaseSeats);
+            return entries.size();
+        });
+        return expired != null ? expired : 0;
+    }
+    
+    /**
+     * Re-runs the offer round of every tour whose queue head hold has run out since the last
+     * check, so the seats move on to the rest of the queue or back to direct booking. Returns how
+     * many tours were looked at.
+     */
+    synchronized int releaseExpiredHolds() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> tourIds = waitlistRepository.findTourIdsWithHoldsEndingBetween(
+                WaitlistEntry.WaitlistStatus.WAITING, holdsCheckedUntil, now);
+        holdsCheckedUntil = now;
+        tourIds.forEach(this::offerSeats);
+        return tourIds.size();
+    }
+    
+    private void run() {
+        while (running) {
+            try {
+                TimeUnit.SECONDS.sleep(sweepSeconds);
+                releaseExpiredHolds();
+                int expired;
+                do {
+                    expired = expireOffers();
+                    if (expired > 0) {
+                        logger.info("Expired {} unclaimed waitlist offers", expired);
+                    }
+                } while (expired >= offerBatchSize);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Waitlist offer expiry failed", e);
+            }
+        }
+    }
+    
+    private WaitlistEntry lockOwnEntry(Long id, String username) {
+        WaitlistEntry entry = waitlistRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new RuntimeException("Waitlist entry not found"));
+        if (!entry.getCustomer().getUsername().equals(username)) {
+            throw new RuntimeException("You can only manage your own waitlist entries");
+        }
+        return entry;
+    }
+    
+    private WaitlistEntryDTO getEntry(Long id) {
+        WaitlistEntryDTO entry = waitlistRepository.findDTOById(id)
+                .orElseThrow(() -> new RuntimeException("Waitlist entry not found"));
+        fillPosition(entry);
+        return entry;
+    }
+    
+    private void fillPosition(WaitlistEntryDTO entry) {
+        if (WaitlistEntry.WaitlistStatus.WAITING.name().equals(entry.getStatus())) {
+            entry.setPosition(waitlistRepository.countByTourIdAndStatusAndIdLessThan(entry.getTourId(),
+                    WaitlistEntry.WaitlistStatus.WAITING, entry.getId()));
+        }
+    }
+}
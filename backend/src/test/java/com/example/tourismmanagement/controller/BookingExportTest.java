@@ -0,0 +1,137 @@
+package com.example.tourismmanagement.controller;
+
+import com.example.tourismmanagement.model.Booking;
+import com.example.tourismmanagement.model.Tour;
+import com.example.tourismmanagement.model.User;
+import com.example.tourismmanagement.repository.BookingRepository;
+import com.example.tourismmanagement.repository.TourRepository;
+import com.example.tourismmanagement.repository.UserRepository;
+import com.example.tourismmanagement.service.BookingExportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({BookingExportService.class, JacksonAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookingExportTest {
+    @Autowired
+    private BookingExportService bookingExportService;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    @Autowired
+    private TourRepository tourRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    private MockMvc mockMvc;
+    
+    @BeforeEach
+    void setUp() {
+        BookingController bookingController = new BookingController();
+        ReflectionTestUtils.setField(bookingController, "bookingExportService", bookingExportService);
+        mockMvc = MockMvcBuilders.standaloneSetup(bookingController).build();
+        
+        User customer = new User();
+        customer.setUsername("customer");
+        customer.setEmail("customer@example.com");
+        customer.setPassword("secret");
+        customer.setFullName("Nguyễn Văn A, Jr.");
+        customer = userRepository.save(customer);
+        
+        Tour tour = new Tour();
+        tour.setName("Tour Nha Trang");
+        tour.setDestination("Nha Trang");
+        tour.setDuration(3);
+        tour.setPrice(new BigDecimal("2500000"));
+        tour.setMaxParticipants(30);
+        tour.setAvailableSeats(26);
+        tour.setStartDate(LocalDate.of(2025, 6, 10));
+        tour.setEndDate(LocalDate.of(2025, 6, 12));
+        tour = tourRepository.save(tour);
+        
+        for (Booking.BookingStatus status : new Booking.BookingStatus[]{
+                Booking.BookingStatus.PENDING, Booking.BookingStatus.CONFIRMED}) {
+            Booking booking = new Booking();
+            booking.setTour(tour);
+            booking.setCustomer(customer);
+            booking.setNumberOfPeople(2);
+            booking.setTotalAmount(new BigDecimal("5000000"));
+            booking.setStatus(status);
+            bookingRepository.save(booking);
+        }
+    }
+    
+    @AfterEach
+    void cleanUp() {
+        bookingRepository.deleteAll();
+        tourRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+    
+    @Test
+    void exportsNdjsonFilteredByStatus() throws Exception {
+        String body = export("/api/bookings/export?status=confirmed");
+        
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(1);
+        assertThat(lines[0]).contains("\"status\":\"CONFIRMED\"").contains("\"tourName\":\"Tour Nha Trang\"");
+    }
+    
+    @Test
+    void exportsCsvWithQuotedValues() throws Exception {
+        String body = export("/api/bookings/export?format=csv");
+        
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).startsWith("booking_id,created_at,tour_id,tour_name");
+        assertThat(lines[1]).contains(",\"Nguyễn Văn A, Jr.\",").contains(",5000000.00,PENDING,");
+    }
+    
+    @Test
+    void invalidParametersAreRejectedBeforeStreaming() throws Exception {
+        mockMvc.perform(get("/api/bookings/export").param("status", "SHIPPED"))
+                .andExpect(status().isBadRequest())
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().reason(containsString("Unknown booking status")));
+        mockMvc.perform(get("/api/bookings/export").param("format", "xml"))
+                .andExpect(status().isBadRequest())
+                .andExpect(status().reason(containsString("Unknown export format")));
+    }
+    
+    private String export(String path) throws Exception {
+        MvcResult started = mockMvc.perform(get(path))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.tourismmanagement.controller;
+
+import com.example.tourismmanagement.dto.TourDTO;
+import com.example.tourismmanagement.model.Category;
+import com.example.tourismmanagement.model.Tour;
+import com.example.tourismmanagement.repository.CategoryRepository;
+import com.example.tourismmanagement.repository.OutboxEventRepository;
+import com.example.tourismmanagement.repository.TourRepository;
+import com.example.tourismmanagement.service.CatalogResponseSnapshots;
+import com.example.tourismmanagement.service.CategoryService;
+import com.example.tourismmanagement.service.OutboxService;
+import com.example.tourismmanagement.service.SeatInventoryService;
+import com.example.tourismmanagement.service.TourCatalogCache;
+import com.example.tourismmanagement.service.TourService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@DataJpaTest(properties = {"spring.jpa.properties.hibernate.generate_statistics=true",
+        "catalog.response-snapshots.enabled=false"})
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TourService.class, CategoryService.class, TourCatalogCache.class, SeatInventoryService.class,
+        OutboxService.class, CatalogResponseSnapshots.class, JacksonAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CatalogConditionalGetTest {
+    @Autowired
+    private TourService tourService;
+    
+    @Autowired
+    private CategoryService categoryService;
+    
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+    
+    @Autowired
+    private CatalogResponseSnapshots catalogResponseSnapshots;
+    
+    @Autowired
+    private TourRepository tourRepository;
+    
+    @Autowired
+    private CategoryRepository categoryRepository;
+    
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    private MockMvc mockMvc;
+    private Statistics statistics;
+    private Tour tour;
+    
+    @BeforeEach
+    void setUp() {
+        TourController tourController = new TourController();
+        ReflectionTestUtils.setField(tourController, "tourService", tourService);
+        ReflectionTestUtils.setField(tourController, "catalogResponseSnapshots", catalogResponseSnapshots);
+        CategoryController categoryController = new CategoryController();
+        ReflectionTestUtils.setField(categoryController, "categoryService", categoryService);
+        ReflectionTestUtils.setField(categoryController, "catalogResponseSnapshots", catalogResponseSnapshots);
+        mockMvc = MockMvcBuilders.standaloneSetup(tourController, categoryController).build();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        
+        tour = new Tour();
+        tour.setName("Tour Đà Lạt");
+        tour.setDestination("Đà Lạt");
+        tour.setDuration(3);
+        tour.setPrice(new BigDecimal("2900000"));
+        tour.setMaxParticipants(20);
+        tour.setAvailableSeats(20);
+        tour.setStartDate(LocalDate.of(2025, 12, 20));
+        tour.setEndDate(LocalDate.of(2025, 12, 22));
+        tour = tourRepository.save(tour);
+    }
+    
+    @AfterEach
+    void cleanUp() {
+        outboxEventRepository.deleteAll();
+        tourRepository.deleteAll();
+        categoryRepository.deleteAll();
+    }
+    
+    @Test
+    void unchangedListingIsAnswered304WithoutAQuery() throws Exception {
+        String etag = mockMvc.perform(get("/api/tours"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        
+        statistics.clear();
+        mockMvc.perform(get("/api/tours").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        
+        tourService.updateTour(tour.getId(), withPrice(new BigDecimal("3100000")));
+        
+        mockMvc.perform(get("/api/tours").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("3100000")));
+    }
+    
+    @Test
+    void singleTourIsRevalidatedByItsVersion() throws Exception {
+        String path = "/api/tours/" + tour.getId();
+        String etag = mockMvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        
+        statistics.clear();
+        mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        
+        seatInventoryService.tryReserveSeats(tour.getId(), 2);
+        // If-Modified-Since alone must see the seat change too
+        assertThat(tourRepository.findById(tour.getId()).orElseThrow().getUpdatedAt()).isAfter(tour.getUpdatedAt());
+        
+        String changed = mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(changed).isNotEqualTo(etag);
+    }
+    
+    @Test
+    void categoriesChangeTheirValidatorOnWrite() throws Exception {
+        String etag = mockMvc.perform(get("/api/categories"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/categories").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        
+        Category category = new Category();
+        category.setName("Du lịch núi");
+        categoryService.createCategory(category);
+        
+        mockMvc.perform(get("/api/categories").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Du lịch núi")));
+    }
+    
+    private TourDTO withPrice(BigDecimal price) {
+        TourDTO dto = tourService.getTourById(tour.getId());
+        TourDTO update = new TourDTO();
+        update.setName(dto.getName());
+        update.setDestination(dto.getDestination());
+        update.setDuration(dto.getDuration());
+        update.setPrice(price);
+        update.setMaxParticipants(dto.getMaxParticipants());
+        update.setAvailableSeats(dto.getAvailableSeats());
+        update.setStartDate(dto.getStartDate());
+        update.setEndDate(dto.getEndDate());
+        return update;
+    }
+}
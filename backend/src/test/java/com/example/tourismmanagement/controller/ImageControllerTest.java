@@ -0,0 +1,219 @@
+package com.example.tourismmanagement.controller;
+
+import com.example.tourismmanagement.dto.TourImageDTO;
+import com.example.tourismmanagement.model.Tour;
+import com.example.tourismmanagement.model.TourImage;
+import com.example.tourismmanagement.repository.OutboxEventRepository;
+import com.example.tourismmanagement.repository.TourImageRepository;
+import com.example.tourismmanagement.repository.TourRepository;
+import com.example.tourismmanagement.service.ImageService;
+import com.example.tourismmanagement.service.OutboxService;
+import com.example.tourismmanagement.service.SeatInventoryService;
+import com.example.tourismmanagement.service.TourCatalogCache;
+import com.example.tourismmanagement.service.TourService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@DataJpaTest(properties = "image.storage.dir=target/images-${random.uuid}")
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ImageService.class, TourService.class, TourCatalogCache.class, SeatInventoryService.class,
+        OutboxService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ImageControllerTest {
+    @Autowired
+    private ImageService imageService;
+    
+    @Autowired
+    private TourService tourService;
+    
+    @Autowired
+    private TourRepository tourRepository;
+    
+    @Autowired
+    private TourImageRepository tourImageRepository;
+    
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    
+    private MockMvc mockMvc;
+    private Tour tour;
+    
+    @BeforeEach
+    void setUp() {
+        ImageController imageController = new ImageController();
+        ReflectionTestUtils.setField(imageController, "imageService", imageService);
+        ReflectionTestUtils.setField(imageController, "tourService", tourService);
+        mockMvc = MockMvcBuilders.standaloneSetup(imageController).build();
+        
+        tour = new Tour();
+        tour.setName("Tour Hạ Long");
+        tour.setDestination("Hạ Long");
+        tour.setDuration(2);
+        tour.setPrice(new BigDecimal("1900000"));
+        tour.setMaxParticipants(20);
+        tour.setAvailableSeats(20);
+        tour.setStartDate(LocalDate.of(2025, 11, 8));
+        tour.setEndDate(LocalDate.of(2025, 11, 9));
+        tour = tourRepository.save(tour);
+    }
+    
+    @AfterEach
+    void cleanUp() {
+        tourImageRepository.deleteAll();
+        outboxEventRepository.deleteAll();
+        tourRepository.deleteAll();
+    }
+    
+    @Test
+    void uploadGeneratesVariantsAndBecomesTheCover() throws Exception {
+        TourImageDTO uploaded = imageService.upload(tour.getId(), png(2000, 1000));
+        assertThat(uploaded.getWidth()).isEqualTo(2000);
+        assertThat(uploaded.getContentType()).isEqualTo("image/png");
+        
+        awaitStatus(uploaded.getId(), TourImage.ImageStatus.READY);
+        ImageService.StoredFile thumb = imageService.locate(uploaded.getId(), ImageService.Variant.THUMB);
+        assertThat(thumb.isImmutable()).isTrue();
+        BufferedImage decoded = ImageIO.read(thumb.getPath().toFile());
+        assertThat(decoded.getWidth()).isEqualTo(320);
+        assertThat(decoded.getHeight()).isEqualTo(160);
+        BufferedImage large = ImageIO.read(imageService.locate(uploaded.getId(), ImageService.Variant.LARGE)
+                .getPath().toFile());
+        assertThat(large.getWidth()).isEqualTo(1280);
+        
+        assertThat(tourService.getTourById(tour.getId()).getThumbnailUrl())
+                .isEqualTo("/api/images/" + uploaded.getId() + "/thumb");
+    }
+    
+    @Test
+    void servesRangesAndRevalidatesWithoutABody() throws Exception {
+        TourImageDTO uploaded = imageService.upload(tour.getId(), png(600, 400));
+        awaitStatus(uploaded.getId(), TourImage.ImageStatus.READY);
+        String path = uploaded.getThumbnailUrl();
+        long size = imageService.locate(uploaded.getId(), ImageService.Variant.THUMB).getSize();
+        
+        byte[] full = mockMvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable"))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(full).hasSize((int) size);
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(full));
+        assertThat(decoded.getWidth()).isEqualTo(320);
+        
+        String etag = mockMvc.perform(get(path)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        byte[] part = mockMvc.perform(get(path).header(HttpHeaders.RANGE, "bytes=10-109"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 10-109/" + size))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(part).containsExactly(Arrays.copyOfRange(full, 10, 110));
+        
+        mockMvc.perform(get(path).header(HttpHeaders.RANGE, "bytes=0-9").header(HttpHeaders.IF_RANGE, "\"stale\""))
+                .andExpect(status().isOk());
+        mockMvc.perform(get(path).header(HttpHeaders.RANGE, "bytes=" + size + "-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable());
+        mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+    
+    @Test
+    void unsupportedUploadLeavesNothingBehind() {
+        MockMultipartFile text = new MockMultipartFile("file", "notes.png", "image/png",
+                "not an image".getBytes());
+        assertThatThrownBy(() -> imageService.upload(tour.getId(), text))
+                .hasMessageContaining("Only JPEG, PNG and GIF");
+        assertThat(tourImageRepository.count()).isZero();
+    }
+    
+    @Test
+    void anOriginalThatCannotBeStoredLeavesNoRowAndAMissingOneFails() throws Exception {
+        TourImageDTO uploaded = imageService.upload(tour.getId(), png(400, 300));
+        awaitStatus(uploaded.getId(), TourImage.ImageStatus.READY);
+        Path stored = imageService.locate(uploaded.getId(), ImageService.Variant.ORIGINAL).getPath();
+        // a plain file where the next image's directory would go makes storing its original fail
+        Path blocker = stored.getParent().resolveSibling(Long.toString(uploaded.getId() + 1));
+        Files.write(blocker, new byte[0]);
+        try {
+            assertThatThrownBy(() -> imageService.upload(tour.getId(), png(400, 300)))
+                    .hasMessageContaining("Could not store image");
+            assertThat(tourImageRepository.count()).isEqualTo(1);
+        } finally {
+            Files.deleteIfExists(blocker);
+        }
+        
+        try (Stream<Path> files = Files.list(stored.getParent())) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        ReflectionTestUtils.invokeMethod(imageService, "process", uploaded.getId());
+        assertThat(tourImageRepository.findById(uploaded.getId()).orElseThrow().getStatus())
+                .isEqualTo(TourImage.ImageStatus.FAILED);
+    }
+    
+    @Test
+    void deletingTheCoverClearsItAndTheFiles() throws Exception {
+        TourImageDTO uploaded = imageService.upload(tour.getId(), png(400, 300));
+        awaitStatus(uploaded.getId(), TourImage.ImageStatus.READY);
+        ImageService.StoredFile original = imageService.locate(uploaded.getId(), ImageService.Variant.ORIGINAL);
+        
+        imageService.deleteImage(uploaded.getId());
+        
+        assertThat(tourRepository.findById(tour.getId()).orElseThrow().getCoverImageId()).isNull();
+        assertThat(Files.exists(original.getPath())).isFalse();
+        mockMvc.perform(get(uploaded.getThumbnailUrl())).andExpect(status().isNotFound());
+    }
+    
+    private void awaitStatus(Long id, TourImage.ImageStatus expected) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            if (tourImageRepository.findById(id).orElseThrow().getStatus() == expected) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Image " + id + " did not become " + expected);
+    }
+    
+    private static MockMultipartFile png(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < height; y += 10) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, 0xFF000000 | (x * 7 + y * 13));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return new MockMultipartFile("file", "photo.png", "image/png", out.toByteArray());
+    }
+}
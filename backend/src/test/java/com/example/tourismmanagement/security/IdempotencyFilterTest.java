@@ -0,0 +1,171 @@
+package com.example.tourismmanagement.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdempotencyFilterTest {
+    private final IdempotencyFilter filter = new IdempotencyFilter();
+    private final AtomicInteger executions = new AtomicInteger();
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(filter, "paths", "/api/bookings");
+        ReflectionTestUtils.setField(filter, "ttlSeconds", 60L);
+        ReflectionTestUtils.setField(filter, "maxEntries", 1000L);
+        ReflectionTestUtils.setField(filter, "maxBodyBytes", 65536);
+        ReflectionTestUtils.setField(filter, "waitMs", 5000L);
+        filter.init();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+    
+    @Test
+    void retriesAreAnsweredFromTheFirstResponse() throws Exception {
+        FilterChain chain = (request, response) -> {
+            String body = new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            response.setContentType("application/json");
+            response.getWriter().write("{\"booking\":" + executions.incrementAndGet() + ",\"echo\":" + body + "}");
+        };
+        
+        MockHttpServletResponse first = post("customer", "key-1", "{\"tourId\":1}", chain);
+        MockHttpServletResponse retry = post("customer", "key-1", "{\"tourId\":1}", chain);
+        MockHttpServletResponse otherUser = post("someone-else", "key-1", "{\"tourId\":1}", chain);
+        MockHttpServletResponse reusedKey = post("customer", "key-1", "{\"tourId\":2}", chain);
+        
+        assertThat(first.getContentAsString()).isEqualTo("{\"booking\":1,\"echo\":{\"tourId\":1}}");
+        assertThat(retry.getContentAsString()).isEqualTo(first.getContentAsString());
+        assertThat(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(otherUser.getContentAsString()).startsWith("{\"booking\":2");
+        assertThat(reusedKey.getStatus()).isEqualTo(422);
+        assertThat(executions).hasValue(2);
+    }
+    
+    @Test
+    void concurrentDuplicateWaitsForTheOriginal() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain chain = (request, response) -> {
+            executions.incrementAndGet();
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            response.getWriter().write("done");
+        };
+        
+        CompletableFuture<MockHttpServletResponse> original = CompletableFuture.supplyAsync(
+                () -> postUnchecked("customer", "key-2", "{}", chain));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<MockHttpServletResponse> duplicate = CompletableFuture.supplyAsync(
+                () -> postUnchecked("customer", "key-2", "{}", chain));
+        Thread.sleep(100);
+        assertThat(duplicate).isNotDone();
+        
+        release.countDown();
+        
+        assertThat(original.get(5, TimeUnit.SECONDS).getContentAsString()).isEqualTo("done");
+        assertThat(duplicate.get(5, TimeUnit.SECONDS).getContentAsString()).isEqualTo("done");
+        assertThat(executions).hasValue(1);
+    }
+    
+    @Test
+    void serverErrorsFreeTheKeyForTheNextRetry() throws Exception {
+        FilterChain chain = (request, response) -> ((HttpServletResponse) response)
+                .setStatus(executions.incrementAndGet() == 1 ? 503 : 200);
+        
+        assertThat(post("customer", "key-3", "{}", chain).getStatus()).isEqualTo(503);
+        assertThat(post("customer", "key-3", "{}", chain).getStatus()).isEqualTo(200);
+        assertThat(post("customer", "key-3", "{}", chain).getStatus()).isEqualTo(200);
+        assertThat(executions).hasValue(2);
+    }
+    
+    @Test
+    void onlyFinalAnswersAreKept() throws Exception {
+        FilterChain chain = (request, response) -> ((HttpServletResponse) response)
+                .setStatus(executions.incrementAndGet() == 1 ? 429 : 400);
+        
+        assertThat(post("customer", "key-4", "{}", chain).getStatus()).isEqualTo(429);
+        assertThat(post("customer", "key-4", "{}", chain).getStatus()).isEqualTo(400);
+        assertThat(post("customer", "key-4", "{}", chain).getStatus()).isEqualTo(400);
+        assertThat(executions).hasValue(2);
+    }
+    
+    @Test
+    void bodiesWithoutALengthAreGuardedAndBounded() throws Exception {
+        ReflectionTestUtils.setField(filter, "maxBodyBytes", 16);
+        FilterChain chain = (request, response) -> response.getWriter().write("booked " + executions.incrementAndGet());
+        
+        MockHttpServletResponse first = post("customer", "key-5", chunked("{\"tourId\":1}"), chain);
+        MockHttpServletResponse retry = post("customer", "key-5", chunked("{\"tourId\":1}"), chain);
+        MockHttpServletResponse tooLarge = post("customer", "key-6", chunked("{\"tourId\":1,\"numberOfPeople\":2}"), chain);
+        
+        assertThat(first.getContentAsString()).isEqualTo("booked 1");
+        assertThat(retry.getContentAsString()).isEqualTo("booked 1");
+        assertThat(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(tooLarge.getStatus()).isEqualTo(413);
+        assertThat(executions).hasValue(1);
+    }
+    
+    private static MockHttpServletRequest chunked(String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/bookings") {
+            @Override
+            public int getContentLength() {
+                return -1;
+            }
+            
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+    
+    private MockHttpServletResponse post(String username, String key, String body, FilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/bookings");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return post(username, key, request, chain);
+    }
+    
+    private MockHttpServletResponse post(String username, String key, MockHttpServletRequest request, FilterChain chain)
+            throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                username, null, AuthorityUtils.createAuthorityList("ROLE_CUSTOMER")));
+        request.addHeader(IdempotencyFilter.HEADER, key);
+        request.setContentType("application/json");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+    
+    private MockHttpServletResponse postUnchecked(String username, String key, String body, FilterChain chain) {
+        try {
+            return post(username, key, body, chain);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
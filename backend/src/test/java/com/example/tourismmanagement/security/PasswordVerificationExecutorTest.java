@@ -0,0 +1,86 @@
+package com.example.tourismmanagement.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PasswordVerificationExecutorTest {
+    private final PasswordVerificationExecutor executor = new PasswordVerificationExecutor();
+    private final CountDownLatch release = new CountDownLatch(1);
+    
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+    
+    @Test
+    void rejectsLoginsBeyondPoolAndQueueImmediately() throws Exception {
+        ReflectionTestUtils.setField(executor, "threads", 1);
+        ReflectionTestUtils.setField(executor, "queueCapacity", 1);
+        ReflectionTestUtils.setField(executor, "timeoutMs", 5000L);
+        executor.init();
+        
+        CompletableFuture<String> running = executor.submit(this::blockUntilReleased);
+        CompletableFuture<String> queued = executor.submit(this::blockUntilReleased);
+        CompletableFuture<String> rejected = executor.submit(this::blockUntilReleased);
+        
+        assertThat(rejected).isCompletedExceptionally();
+        assertThatThrownBy(rejected::get)
+                .isInstanceOf(ExecutionException.class)
+                .cause()
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+        
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("ok");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("ok");
+    }
+    
+    @Test
+    void timedOutLoginsAreDroppedFromTheQueue() throws Exception {
+        ReflectionTestUtils.setField(executor, "threads", 1);
+        ReflectionTestUtils.setField(executor, "queueCapacity", 4);
+        ReflectionTestUtils.setField(executor, "timeoutMs", 100L);
+        executor.init();
+        AtomicInteger ran = new AtomicInteger();
+        
+        CompletableFuture<String> running = executor.submit(this::blockUntilReleased);
+        CompletableFuture<String> abandoned = executor.submit(() -> {
+            ran.incrementAndGet();
+            return "late";
+        });
+        
+        assertThatThrownBy(() -> abandoned.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(TimeoutException.class);
+        for (int i = 0; i < 50 && executor.getQueuedCount() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertThat(executor.getQueuedCount()).isZero();
+        
+        release.countDown();
+        assertThatThrownBy(() -> running.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(TimeoutException.class);
+        assertThat(executor.submit(() -> "next").get(5, TimeUnit.SECONDS)).isEqualTo("next");
+        assertThat(ran).hasValue(0);
+    }
+    
+    private String blockUntilReleased() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "ok";
+    }
+}
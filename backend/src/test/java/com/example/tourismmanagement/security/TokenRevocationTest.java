@@ -0,0 +1,111 @@
+package com.example.tourismmanagement.security;
+
+import com.example.tourismmanagement.model.User;
+import com.example.tourismmanagement.repository.UserRepository;
+import com.example.tourismmanagement.service.UserService;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({UserService.class, TokenVersionRegistry.class, VerifiedTokenCache.class})
+class TokenRevocationTest {
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+    
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+    
+    private JwtUtils jwtUtils;
+    private User user;
+    
+    @BeforeEach
+    void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret",
+                "tourismManagementSecretKeyForJWTTokenGenerationAndValidation2024VeryLongSecretKey");
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 60000);
+        jwtUtils.init();
+        
+        user = new User();
+        user.setUsername("staff1");
+        user.setEmail("staff1@example.com");
+        user.setPassword("secret");
+        user.setFullName("Staff One");
+        user.setRole(User.Role.STAFF);
+        user = userRepository.save(user);
+    }
+    
+    @Test
+    void tokenCarriesIdentityClaims() {
+        Claims claims = jwtUtils.parseClaims(issueToken());
+        
+        assertThat(claims.getSubject()).isEqualTo("staff1");
+        assertThat(claims.get(JwtUtils.CLAIM_USER_ID, Long.class)).isEqualTo(user.getId());
+        assertThat(claims.get(JwtUtils.CLAIM_ROLE, String.class)).isEqualTo("STAFF");
+        assertThat(tokenVersionRegistry.isAccepted(user.getId(), claims.get(JwtUtils.CLAIM_TOKEN_VERSION, Integer.class)))
+                .isTrue();
+    }
+    
+    @Test
+    void roleChangeAndDeactivationRevokeIssuedTokens() {
+        Claims beforeRoleChange = jwtUtils.parseClaims(issueToken());
+        userService.updateRole(user.getId(), "customer");
+        
+        assertThat(tokenVersionRegistry.isAccepted(user.getId(),
+                beforeRoleChange.get(JwtUtils.CLAIM_TOKEN_VERSION, Integer.class))).isFalse();
+        
+        user = userRepository.findById(user.getId()).orElseThrow();
+        Claims afterRoleChange = jwtUtils.parseClaims(issueToken());
+        assertThat(afterRoleChange.get(JwtUtils.CLAIM_ROLE, String.class)).isEqualTo("CUSTOMER");
+        assertThat(tokenVersionRegistry.isAccepted(user.getId(),
+                afterRoleChange.get(JwtUtils.CLAIM_TOKEN_VERSION, Integer.class))).isTrue();
+        
+        userService.updateActive(user.getId(), false);
+        assertThat(tokenVersionRegistry.isAccepted(user.getId(),
+                afterRoleChange.get(JwtUtils.CLAIM_TOKEN_VERSION, Integer.class))).isFalse();
+    }
+    
+    @Test
+    void verifiedTokensAreDroppedOnRevocationAndLogout() {
+        String token = issueToken();
+        Claims claims = jwtUtils.parseClaims(token);
+        verifiedTokenCache.put(token, UserDetailsImpl.build(user), claims.getExpiration());
+        assertThat(verifiedTokenCache.get(token).getUsername()).isEqualTo("staff1");
+        
+        userService.updateActive(user.getId(), false);
+        assertThat(verifiedTokenCache.get(token)).isNull();
+        
+        verifiedTokenCache.put(token, UserDetailsImpl.build(user), claims.getExpiration());
+        verifiedTokenCache.logout(token, claims.getExpiration());
+        assertThat(verifiedTokenCache.get(token)).isNull();
+        assertThat(verifiedTokenCache.isLoggedOut(token)).isTrue();
+        
+        // a request that verified the token just before the logout must not cache it afterwards
+        assertThat(verifiedTokenCache.put(token, UserDetailsImpl.build(user), claims.getExpiration())).isFalse();
+        assertThat(verifiedTokenCache.get(token)).isNull();
+    }
+    
+    private String issueToken() {
+        UserDetailsImpl principal = UserDetailsImpl.build(user);
+        return jwtUtils.generateJwtToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.dto.AvailabilityCalendarEntry;
+import com.example.tourismmanagement.dto.TourSnapshotRow;
+import com.example.tourismmanagement.model.Tour;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class AvailabilityCalendarTest {
+    private static final LocalDate DECEMBER_1 = LocalDate.of(2025, 12, 1);
+    
+    private AvailabilityCalendar calendar;
+    
+    @BeforeEach
+    void setUp() {
+        calendar = new AvailabilityCalendar();
+        calendar.rebuild(List.of(
+                row(1, "Phú Quốc, Kiên Giang", DECEMBER_1, 10, 4500000),
+                row(2, "Phú Quốc, Kiên Giang", DECEMBER_1, 5, 3900000),
+                row(3, "Phú Quốc, Kiên Giang", DECEMBER_1.plusDays(3), 8, 5200000),
+                row(4, "Đà Lạt, Lâm Đồng", DECEMBER_1, 12, 2500000)));
+    }
+    
+    @Test
+    void sumsSeatsAndKeepsLowestPricePerDay() {
+        List<AvailabilityCalendarEntry> days = calendar.getCalendar(DECEMBER_1, DECEMBER_1.plusDays(30), "phu quoc", null, "day");
+        
+        assertThat(days).extracting(AvailabilityCalendarEntry::getDate, AvailabilityCalendarEntry::getTours,
+                        AvailabilityCalendarEntry::getAvailableSeats, entry -> entry.getMinPrice().longValue())
+                .containsExactly(tuple(DECEMBER_1, 2, 15L, 3900000L), tuple(DECEMBER_1.plusDays(3), 1, 8L, 5200000L));
+    }
+    
+    @Test
+    void followsSeatAndDateChangesIncrementally() {
+        // the cheaper tour sells out, the other one moves to the next week
+        calendar.apply(row(2, "Phú Quốc, Kiên Giang", DECEMBER_1, 0, 3900000));
+        calendar.apply(row(1, "Phú Quốc, Kiên Giang", DECEMBER_1.plusDays(8), 10, 4500000));
+        
+        List<AvailabilityCalendarEntry> weeks = calendar.getCalendar(DECEMBER_1, DECEMBER_1.plusDays(30), "Phú Quốc", null, "week");
+        
+        assertThat(weeks).extracting(AvailabilityCalendarEntry::getDate, AvailabilityCalendarEntry::getTours,
+                        AvailabilityCalendarEntry::getAvailableSeats, entry -> entry.getMinPrice().longValue())
+                .containsExactly(tuple(DECEMBER_1, 1, 8L, 5200000L), tuple(DECEMBER_1.plusDays(7), 1, 10L, 4500000L));
+    }
+    
+    @Test
+    void ignoresChangesOlderThanTheOneApplied() {
+        calendar.apply(row(2, "Phú Quốc, Kiên Giang", DECEMBER_1, 0, 3900000, 2));
+        calendar.apply(row(2, "Phú Quốc, Kiên Giang", DECEMBER_1, 5, 3900000, 1));
+        calendar.remove(4L);
+        calendar.apply(row(4, "Đà Lạt, Lâm Đồng", DECEMBER_1, 12, 2500000, 0));
+        
+        List<AvailabilityCalendarEntry> days = calendar.getCalendar(DECEMBER_1, DECEMBER_1, null, null, "day");
+        
+        assertThat(days).extracting(AvailabilityCalendarEntry::getDestination, AvailabilityCalendarEntry::getTours,
+                        AvailabilityCalendarEntry::getAvailableSeats)
+                .containsExactly(tuple("Phú Quốc, Kiên Giang", 1, 10L));
+    }
+    
+    @Test
+    void rejectsOverlongRanges() {
+        assertThatThrownBy(() -> calendar.getCalendar(DECEMBER_1, DECEMBER_1.plusYears(2), null, null, "day"))
+                .hasMessageContaining("cannot exceed");
+    }
+    
+    private static TourSnapshotRow row(long id, String destination, LocalDate start, int seats, long price) {
+        return row(id, destination, start, seats, price, 0);
+    }
+    
+    private static TourSnapshotRow row(long id, String destination, LocalDate start, int seats, long price,
+                                       long version) {
+        return new TourSnapshotRow(id, BigDecimal.valueOf(price), seats, start, start.plusDays(2), 3,
+                Tour.TourStatus.AVAILABLE, 1L, "Biển đảo", destination, version);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.tourismmanagement.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+    @Test
+    void neverMissesAKeyAndStaysNearTheConfiguredFalsePositiveRate() {
+        BloomFilter filter = new BloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            filter.put("TXN-" + i);
+        }
+        
+        for (int i = 0; i < 10000; i++) {
+            assertThat(filter.mightContain("TXN-" + i)).isTrue();
+        }
+        int falsePositives = 0;
+        for (int i = 10000; i < 110000; i++) {
+            falsePositives += filter.mightContain("TXN-" + i) ? 1 : 0;
+        }
+        assertThat(falsePositives).isLessThan(2000);
+    }
+}
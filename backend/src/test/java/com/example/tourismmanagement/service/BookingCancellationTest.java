@@ -0,0 +1,158 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.dto.BookingDTO;
+import com.example.tourismmanagement.model.Booking;
+import com.example.tourismmanagement.model.Payment;
+import com.example.tourismmanagement.model.Tour;
+import com.example.tourismmanagement.model.User;
+import com.example.tourismmanagement.repository.BookingRepository;
+import com.example.tourismmanagement.repository.PaymentRepository;
+import com.example.tourismmanagement.repository.TourRepository;
+import com.example.tourismmanagement.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({BookingService.class, BookingHoldScheduler.class, SeatInventoryService.class, RefundWorker.class,
+        OutboxService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookingCancellationTest {
+    @Autowired
+    private BookingService bookingService;
+    
+    @Autowired
+    private TourRepository tourRepository;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    @Autowired
+    private PaymentRepository paymentRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    private Tour tour;
+    
+    @BeforeEach
+    void seed() {
+        customer("customer");
+        customer("someone-else");
+        
+        tour = new Tour();
+        tour.setName("Tour Hạ Long");
+        tour.setDestination("Hạ Long");
+        tour.setDuration(2);
+        tour.setPrice(new BigDecimal("2000000"));
+        tour.setMaxParticipants(20);
+        tour.setAvailableSeats(20);
+        tour.setStartDate(LocalDate.of(2025, 12, 1));
+        tour.setEndDate(LocalDate.of(2025, 12, 2));
+        tour = tourRepository.save(tour);
+    }
+    
+    @AfterEach
+    void cleanUp() {
+        paymentRepository.deleteAll();
+        bookingRepository.deleteAll();
+        tourRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+    
+    @Test
+    void cancellingAPaidBookingReleasesSeatsAndRefundsInTheBackground() throws Exception {
+        BookingDTO booking = book(3);
+        pay(booking.getId());
+        
+        BookingDTO cancelled = bookingService.cancelBooking(booking.getId(), "customer", false);
+        
+        assertThat(cancelled.getStatus()).isEqualTo("CANCELLED");
+        assertThat(seatsLeft()).isEqualTo(20);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (paymentStatus(booking.getId()) != Booking.PaymentStatus.REFUNDED && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(paymentStatus(booking.getId())).isEqualTo(Booking.PaymentStatus.REFUNDED);
+        assertThat(paymentRepository.findByBookingId(booking.getId())).singleElement()
+                .satisfies(payment -> assertThat(payment.getStatus()).isEqualTo(Payment.PaymentStatus.REFUNDED));
+    }
+    
+    @Test
+    void customersCannotCancelOtherBookingsOrCancelTwice() {
+        BookingDTO booking = book(2);
+        
+        assertThatThrownBy(() -> bookingService.cancelBooking(booking.getId(), "someone-else", false))
+                .hasMessage("You can only cancel your own bookings");
+        bookingService.updateBookingStatus(booking.getId(), "CANCELLED");
+        assertThatThrownBy(() -> bookingService.cancelBooking(booking.getId(), "customer", false))
+                .hasMessage("Booking is already cancelled");
+        assertThat(seatsLeft()).isEqualTo(20);
+    }
+    
+    @Test
+    void tourCancellationCancelsBookingsInBatches() {
+        ReflectionTestUtils.setField(bookingService, "cancelBatchSize", 2);
+        for (int i = 0; i < 5; i++) {
+            book(1);
+        }
+        assertThat(seatsLeft()).isEqualTo(15);
+        
+        assertThat(bookingService.cancelTourBookings(tour.getId())).isEqualTo(5);
+        
+        assertThat(bookingRepository.findByStatus(Booking.BookingStatus.CANCELLED)).hasSize(5);
+        assertThat(seatsLeft()).isEqualTo(20);
+    }
+    
+    private void customer(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("secret");
+        user.setFullName(username);
+        userRepository.save(user);
+    }
+    
+    private BookingDTO book(int people) {
+        BookingDTO request = new BookingDTO();
+        request.setTourId(tour.getId());
+        request.setNumberOfPeople(people);
+        return bookingService.createBooking(request, "customer");
+    }
+    
+    private void pay(Long bookingId) {
+        Booking booking = bookingRepository.findById(bookingId).orElseThrow();
+        booking.setPaymentStatus(Booking.PaymentStatus.PAID);
+        booking = bookingRepository.save(booking);
+        Payment payment = new Payment();
+        payment.setBooking(booking);
+        payment.setAmount(booking.getTotalAmount());
+        payment.setPaymentMethod(Payment.PaymentMethod.E_WALLET);
+        payment.setStatus(Payment.PaymentStatus.COMPLETED);
+        paymentRepository.save(payment);
+    }
+    
+    private Booking.PaymentStatus paymentStatus(Long bookingId) {
+        return bookingRepository.findById(bookingId).orElseThrow().getPaymentStatus();
+    }
+    
+    private int seatsLeft() {
+        return tourRepository.findById(tour.getId()).orElseThrow().getAvailableSeats();
+    }
+}
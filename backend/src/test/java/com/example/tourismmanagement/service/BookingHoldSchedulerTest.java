@@ -0,0 +1,141 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.dto.BookingDTO;
+import com.example.tourismmanagement.model.Booking;
+import com.example.tourismmanagement.model.Tour;
+import com.example.tourismmanagement.model.User;
+import com.example.tourismmanagement.repository.BookingRepository;
+import com.example.tourismmanagement.repository.TourRepository;
+import com.example.tourismmanagement.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({BookingService.class, BookingHoldScheduler.class, SeatInventoryService.class, OutboxService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookingHoldSchedulerTest {
+    @Autowired
+    private BookingService bookingService;
+    
+    @Autowired
+    private BookingHoldScheduler bookingHoldScheduler;
+    
+    @Autowired
+    private TourRepository tourRepository;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    private Tour tour;
+    
+    @BeforeEach
+    void seed() {
+        User user = new User();
+        user.setUsername("customer");
+        user.setEmail("customer@example.com");
+        user.setPassword("secret");
+        user.setFullName("Customer");
+        userRepository.save(user);
+        
+        tour = new Tour();
+        tour.setName("Tour Phú Quốc");
+        tour.setDestination("Phú Quốc");
+        tour.setDuration(3);
+        tour.setPrice(new BigDecimal("4500000"));
+        tour.setMaxParticipants(10);
+        tour.setAvailableSeats(10);
+        tour.setStartDate(LocalDate.of(2025, 12, 1));
+        tour.setEndDate(LocalDate.of(2025, 12, 3));
+        tour = tourRepository.save(tour);
+    }
+    
+    @AfterEach
+    void cleanUp() {
+        bookingRepository.deleteAll();
+        tourRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+    
+    @Test
+    void expiredHoldIsCancelledAndItsSeatsReturned() throws Exception {
+        BookingDTO booking = book(3);
+        assertThat(booking.getHoldExpiresAt()).isAfter(LocalDateTime.now());
+        assertThat(seatsLeft()).isEqualTo(7);
+        
+        LocalDateTime lapsed = backdateHold(booking.getId());
+        bookingHoldScheduler.schedule(booking.getId(), lapsed);
+        
+        long deadline = System.currentTimeMillis() + 5000;
+        while (status(booking.getId()) == Booking.BookingStatus.PENDING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(status(booking.getId())).isEqualTo(Booking.BookingStatus.CANCELLED);
+        assertThat(seatsLeft()).isEqualTo(10);
+    }
+    
+    @Test
+    void paidOrStillValidHoldsKeepTheirSeats() {
+        BookingDTO paid = book(2);
+        BookingDTO valid = book(4);
+        backdateHold(paid.getId());
+        Booking paidBooking = bookingRepository.findById(paid.getId()).orElseThrow();
+        paidBooking.setPaymentStatus(Booking.PaymentStatus.PAID);
+        bookingRepository.save(paidBooking);
+        
+        assertThat(bookingHoldScheduler.expire(List.of(paid.getId(), valid.getId()))).isZero();
+        assertThat(seatsLeft()).isEqualTo(4);
+    }
+    
+    @Test
+    void startupRecoverySchedulesOpenHolds() {
+        book(1);
+        book(1);
+        int before = bookingHoldScheduler.getScheduledCount();
+        
+        bookingHoldScheduler.recover();
+        
+        assertThat(bookingHoldScheduler.getScheduledCount()).isEqualTo(before + 2);
+    }
+    
+    private BookingDTO book(int people) {
+        BookingDTO request = new BookingDTO();
+        request.setTourId(tour.getId());
+        request.setNumberOfPeople(people);
+        return bookingService.createBooking(request, "customer");
+    }
+    
+    private LocalDateTime backdateHold(Long bookingId) {
+        Booking booking = bookingRepository.findById(bookingId).orElseThrow();
+        booking.setHoldExpiresAt(LocalDateTime.now().minusMinutes(1));
+        bookingRepository.save(booking);
+        return booking.getHoldExpiresAt();
+    }
+    
+    private Booking.BookingStatus status(Long bookingId) {
+        return bookingRepository.findById(bookingId).orElseThrow().getStatus();
+    }
+    
+    private int seatsLeft() {
+        return tourRepository.findById(tour.getId()).orElseThrow().getAvailableSeats();
+    }
+}
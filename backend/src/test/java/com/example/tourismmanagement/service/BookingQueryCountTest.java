@@ -0,0 +1,106 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.dto.BookingDTO;
+import com.example.tourismmanagement.model.Booking;
+import com.example.tourismmanagement.model.Tour;
+import com.example.tourismmanagement.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Fails the build when a booking listing starts issuing per-row queries again.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({BookingService.class, BookingHoldScheduler.class, SeatInventoryService.class, OutboxService.class})
+class BookingQueryCountTest {
+    private static final int MAX_STATEMENTS_PER_LISTING = 1;
+    
+    @Autowired
+    private BookingService bookingService;
+    
+    @Autowired
+    private EntityManager entityManager;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    private Statistics statistics;
+    
+    @BeforeEach
+    void seedBookings() {
+        List<User> customers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            User user = new User();
+            user.setUsername("customer" + i);
+            user.setEmail("customer" + i + "@example.com");
+            user.setPassword("secret");
+            user.setFullName("Customer " + i);
+            entityManager.persist(user);
+            customers.add(user);
+        }
+        
+        for (int i = 0; i < 5; i++) {
+            Tour tour = new Tour();
+            tour.setName("Tour " + i);
+            tour.setDestination("Hội An");
+            tour.setDuration(2);
+            tour.setPrice(new BigDecimal("2500000"));
+            tour.setMaxParticipants(30);
+            tour.setAvailableSeats(30);
+            tour.setStartDate(LocalDate.of(2025, 2, 10));
+            tour.setEndDate(LocalDate.of(2025, 2, 11));
+            tour.setItinerary("Ngày 1: Phố cổ\nNgày 2: Làng gốm Thanh Hà");
+            entityManager.persist(tour);
+            
+            for (User customer : customers) {
+                Booking booking = new Booking();
+                booking.setTour(tour);
+                booking.setCustomer(customer);
+                booking.setNumberOfPeople(2);
+                booking.setTotalAmount(new BigDecimal("5000000"));
+                entityManager.persist(booking);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+    
+    @Test
+    void getAllBookingsRunsFixedNumberOfStatements() {
+        List<BookingDTO> bookings = bookingService.getAllBookings();
+        
+        assertThat(bookings).hasSize(15);
+        assertThat(bookings.get(0).getTourName()).isEqualTo("Tour 0");
+        assertThat(bookings.get(0).getCustomerName()).isEqualTo("Customer 0");
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(MAX_STATEMENTS_PER_LISTING);
+    }
+    
+    @Test
+    void getCustomerBookingsRunsFixedNumberOfStatements() {
+        List<BookingDTO> bookings = bookingService.getCustomerBookings("customer1");
+        
+        assertThat(bookings).hasSize(5).allMatch(dto -> "Customer 1".equals(dto.getCustomerName()));
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(MAX_STATEMENTS_PER_LISTING);
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.controller.TourController;
+import com.example.tourismmanagement.model.Tour;
+import com.example.tourismmanagement.repository.OutboxEventRepository;
+import com.example.tourismmanagement.repository.TourRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// rebuilds are run by the test instead of the background thread
+@DataJpaTest(properties = "catalog.response-snapshots.enabled=false")
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({CatalogResponseSnapshots.class, TourService.class, CategoryService.class, TourCatalogCache.class,
+        SeatInventoryService.class, OutboxService.class, JacksonAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CatalogResponseSnapshotsTest {
+    @Autowired
+    private CatalogResponseSnapshots catalogResponseSnapshots;
+    
+    @Autowired
+    private TourService tourService;
+    
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+    
+    @Autowired
+    private TourRepository tourRepository;
+    
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    
+    private MockMvc mockMvc;
+    private Tour tour;
+    
+    @BeforeEach
+    void setUp() {
+        TourController controller = new TourController();
+        ReflectionTestUtils.setField(controller, "tourService", tourService);
+        ReflectionTestUtils.setField(controller, "catalogResponseSnapshots", catalogResponseSnapshots);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+        
+        tour = new Tour();
+        tour.setName("Tour Hạ Long");
+        tour.setDestination("Hạ Long");
+        tour.setDuration(2);
+        tour.setPrice(new BigDecimal("2400000"));
+        tour.setMaxParticipants(25);
+        tour.setAvailableSeats(25);
+        tour.setStartDate(LocalDate.of(2025, 10, 4));
+        tour.setEndDate(LocalDate.of(2025, 10, 5));
+        tour = tourRepository.save(tour);
+    }
+    
+    @AfterEach
+    void cleanUp() {
+        outboxEventRepository.deleteAll();
+        tourRepository.deleteAll();
+    }
+    
+    @Test
+    void servesEachEncodingOfTheSameListing() throws Exception {
+        catalogResponseSnapshots.rebuild();
+        
+        byte[] plain = fetch(null).getContentAsByteArray();
+        MockHttpServletResponse gzip = fetch("gzip, deflate, br");
+        MockHttpServletResponse deflate = fetch("gzip;q=0, deflate");
+        
+        assertThat(new String(plain, StandardCharsets.UTF_8)).contains("Tour Hạ Long");
+        assertThat(gzip.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(gzip.getHeader(HttpHeaders.ETAG)).endsWith("-gzip\"");
+        assertThat(new GZIPInputStream(new ByteArrayInputStream(gzip.getContentAsByteArray())).readAllBytes())
+                .isEqualTo(plain);
+        assertThat(deflate.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("deflate");
+        assertThat(inflate(deflate.getContentAsByteArray())).isEqualTo(plain);
+        
+        mockMvc.perform(get("/api/tours").header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .header(HttpHeaders.IF_NONE_MATCH, gzip.getHeader(HttpHeaders.ETAG)))
+                .andExpect(status().isNotModified());
+    }
+    
+    @Test
+    void staleSnapshotIsBypassedUntilRebuilt() throws Exception {
+        catalogResponseSnapshots.rebuild();
+        seatInventoryService.tryReserveSeats(tour.getId(), 5);
+        
+        MockHttpServletResponse stale = fetch("gzip");
+        assertThat(stale.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(stale.getContentAsString(StandardCharsets.UTF_8)).contains("\"availableSeats\":20");
+        
+        assertThat(catalogResponseSnapshots.rebuild()).isEqualTo(1);
+        MockHttpServletResponse fresh = fetch("gzip");
+        assertThat(fresh.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(new String(new GZIPInputStream(new ByteArrayInputStream(fresh.getContentAsByteArray())).readAllBytes(),
+                StandardCharsets.UTF_8)).contains("\"availableSeats\":20");
+    }
+    
+    @Test
+    void negotiatesByPreferenceAndRefusals() {
+        assertThat(CatalogResponseSnapshots.Encoding.negotiate("br, deflate")).isEqualTo(CatalogResponseSnapshots.Encoding.DEFLATE);
+        assertThat(CatalogResponseSnapshots.Encoding.negotiate("*;q=0.5")).isEqualTo(CatalogResponseSnapshots.Encoding.GZIP);
+        assertThat(CatalogResponseSnapshots.Encoding.negotiate("gzip;q=0")).isEqualTo(CatalogResponseSnapshots.Encoding.IDENTITY);
+        assertThat(CatalogResponseSnapshots.Encoding.negotiate("br")).isEqualTo(CatalogResponseSnapshots.Encoding.IDENTITY);
+    }
+    
+    private MockHttpServletResponse fetch(String acceptEncoding) throws Exception {
+        var request = get("/api/tours");
+        if (acceptEncoding != null) {
+            request.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT_ENCODING)))
+                .andReturn().getResponse();
+    }
+    
+    private static byte[] inflate(byte[] compressed) throws IOException {
+        return new InflaterInputStream(new ByteArrayInputStream(compressed)).readAllBytes();
+    }
+}
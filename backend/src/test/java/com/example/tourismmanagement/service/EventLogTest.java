@@ -0,0 +1,110 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.event.EventLogRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventLogTest {
+    @TempDir
+    Path dir;
+    
+    private final List<EventLog> opened = new ArrayList<>();
+    
+    @AfterEach
+    void tearDown() {
+        opened.forEach(EventLog::close);
+    }
+    
+    @Test
+    void offsetsRunOnAcrossSegmentsAndRestarts() {
+        EventLog log = open();
+        log.append(entries(1, 10));
+        log.append(entries(11, 25));
+        
+        assertThat(log.getSegmentCount()).isGreaterThan(1);
+        assertThat(log.getNextOffset()).isEqualTo(25);
+        List<EventLogRecord> fromTwelve = log.cursor(12).poll(100);
+        assertThat(fromTwelve).extracting(EventLogRecord::getOffset)
+                .containsExactlyElementsOf(IntStream.range(12, 25).mapToObj(Long::valueOf).toList());
+        assertThat(fromTwelve.get(0).getOutboxId()).isEqualTo(13);
+        assertThat(fromTwelve.get(0).getPayload()).isEqualTo("{\"id\":13}");
+        
+        log.close();
+        EventLog reopened = open();
+        
+        assertThat(reopened.getNextOffset()).isEqualTo(25);
+        assertThat(reopened.tailOutboxIds(3)).containsExactlyInAnyOrder(23L, 24L, 25L);
+        reopened.append(entries(26, 26));
+        assertThat(reopened.cursor(0).poll(100)).hasSize(26).last()
+                .satisfies(record -> assertThat(record.getOffset()).isEqualTo(25));
+    }
+    
+    @Test
+    void aTornRecordAtTheEndIsDroppedOnRestart() throws Exception {
+        EventLog log = open();
+        log.append(entries(1, 3));
+        log.close();
+        try (RandomAccessFile segment = new RandomAccessFile(dir.resolve(String.format("%020d.log", 0)).toFile(), "rw")) {
+            // flip a payload byte of the last record
+            long position = 0;
+            for (int i = 0; i < 2; i++) {
+                segment.seek(position);
+                position += 8 + segment.readInt();
+            }
+            segment.seek(position + 8 + 40);
+            segment.write('X');
+        }
+        
+        EventLog reopened = open();
+        
+        assertThat(reopened.getNextOffset()).isEqualTo(2);
+        reopened.append(entries(4, 4));
+        assertThat(reopened.cursor(0).poll(10)).extracting(EventLogRecord::getOutboxId).containsExactly(1L, 2L, 4L);
+    }
+    
+    @Test
+    void subscriptionsReceiveBatchesAsTheyAreAppended() throws Exception {
+        EventLog log = open();
+        log.append(entries(1, 5));
+        List<Long> seen = new CopyOnWriteArrayList<>();
+        EventLog.Subscription subscription = log.subscribe("test", 2, 4,
+                batch -> batch.forEach(record -> seen.add(record.getOutboxId())));
+        
+        log.append(entries(6, 12));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (subscription.getPosition() < 12 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        
+        assertThat(seen).containsExactly(3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L, 11L, 12L);
+        assertThat(subscription.getPosition()).isEqualTo(12);
+    }
+    
+    private EventLog open() {
+        EventLog log = new EventLog();
+        ReflectionTestUtils.setField(log, "dir", dir.toString());
+        ReflectionTestUtils.setField(log, "segmentBytes", 512);
+        log.init();
+        opened.add(log);
+        return log;
+    }
+    
+    private static List<EventLog.Entry> entries(int fromOutboxId, int toOutboxId) {
+        List<EventLog.Entry> entries = new ArrayList<>();
+        for (int id = fromOutboxId; id <= toOutboxId; id++) {
+            entries.add(new EventLog.Entry(id, "BOOKING_CREATED", id * 10L, 1700000000000L, "{\"id\":" + id + "}"));
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.dto.BookingDTO;
+import com.example.tourismmanagement.model.Tour;
+import com.example.tourismmanagement.model.User;
+import com.example.tourismmanagement.model.WaitlistEntry;
+import com.example.tourismmanagement.repository.BookingRepository;
+import com.example.tourismmanagement.repository.TourRepository;
+import com.example.tourismmanagement.repository.UserRepository;
+import com.example.tourismmanagement.repository.WaitlistRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({BookingService.class, BookingHoldScheduler.class, SeatInventoryService.class, HotTourBookingPipeline.class,
+        OutboxService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class HotTourBookingPipelineTest {
+    @Autowired
+    private HotTourBookingPipeline pipeline;
+    
+    @Autowired
+    private TourRepository tourRepository;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private WaitlistRepository waitlistRepository;
+    
+    @AfterEach
+    void cleanUp() {
+        pipeline.getHotTourIds().forEach(pipeline::disable);
+        waitlistRepository.deleteAll();
+        bookingRepository.deleteAll();
+        tourRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+    
+    @Test
+    void groupCommitsHotTourBookingsWithoutOverselling() throws Exception {
+        customer();
+        Long tourId = hotTour(300).getId();
+        
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            futures.add(executor.submit(() -> {
+                BookingDTO request = new BookingDTO();
+                request.setTourId(tourId);
+                request.setNumberOfPeople(1);
+                try {
+                    BookingDTO result = pipeline.submit(request, "customer");
+                    assertThat(result.getId()).isNotNull();
+                    assertThat(result.getTourId()).isEqualTo(tourId);
+                    booked.incrementAndGet();
+                } catch (RuntimeException e) {
+                    assertThat(e).hasMessage("Not enough available seats");
+                    rejected.incrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        
+        Tour reloaded = tourRepository.findById(tourId).orElseThrow();
+        assertThat(booked.get()).isEqualTo(300);
+        assertThat(rejected.get()).isEqualTo(200);
+        assertThat(bookingRepository.findByTourId(tourId)).hasSize(300);
+        assertThat(reloaded.getAvailableSeats()).isZero();
+        assertThat(reloaded.getStatus()).isEqualTo(Tour.TourStatus.FULL);
+    }
+    
+    @Test
+    void waitlistHoldingSeatsRefusesTheWholeBatch() {
+        User customer = customer();
+        Tour tour = hotTour(2);
+        WaitlistEntry head = new WaitlistEntry();
+        head.setTour(tour);
+        head.setCustomer(customer);
+        head.setNumberOfPeople(3);
+        waitlistRepository.save(head);
+        
+        BookingDTO request = new BookingDTO();
+        request.setTourId(tour.getId());
+        request.setNumberOfPeople(1);
+        
+        assertThatThrownBy(() -> pipeline.submit(request, "customer"))
+                .hasMessage("Customers are waiting for this tour, please join the waitlist");
+        assertThat(bookingRepository.findByTourId(tour.getId())).isEmpty();
+        assertThat(tourRepository.findById(tour.getId()).orElseThrow().getAvailableSeats()).isEqualTo(2);
+    }
+    
+    private User customer() {
+        User user = new User();
+        user.setUsername("customer");
+        user.setEmail("customer@example.com");
+        user.setPassword("secret");
+        user.setFullName("Customer");
+        return userRepository.save(user);
+    }
+    
+    private Tour hotTour(int seats) {
+        Tour tour = new Tour();
+        tour.setName("Tour Đà Lạt");
+        tour.setDestination("Đà Lạt");
+        tour.setDuration(4);
+        tour.setPrice(new BigDecimal("3200000"));
+        tour.setMaxParticipants(300);
+        tour.setAvailableSeats(seats);
+        tour.setStartDate(LocalDate.of(2025, 1, 20));
+        tour.setEndDate(LocalDate.of(2025, 1, 23));
+        tour = tourRepository.save(tour);
+        pipeline.enable(tour.getId());
+        return tour;
+    }
+}
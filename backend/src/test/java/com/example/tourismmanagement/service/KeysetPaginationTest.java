@@ -0,0 +1,119 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.dto.BookingDTO;
+import com.example.tourismmanagement.dto.CursorPage;
+import com.example.tourismmanagement.dto.TourDTO;
+import com.example.tourismmanagement.dto.UserDTO;
+import com.example.tourismmanagement.model.Booking;
+import com.example.tourismmanagement.model.Tour;
+import com.example.tourismmanagement.model.User;
+import com.example.tourismmanagement.security.TokenVersionRegistry;
+import com.example.tourismmanagement.security.VerifiedTokenCache;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TourService.class, BookingService.class, BookingHoldScheduler.class, UserService.class,
+        SeatInventoryService.class, TourCatalogCache.class, TourSearchIndex.class, TokenVersionRegistry.class,
+        VerifiedTokenCache.class, OutboxService.class})
+class KeysetPaginationTest {
+    @Autowired
+    private TourService tourService;
+    
+    @Autowired
+    private BookingService bookingService;
+    
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private EntityManager entityManager;
+    
+    @BeforeEach
+    void seed() {
+        User customer = new User();
+        customer.setUsername("customer");
+        customer.setEmail("customer@example.com");
+        customer.setPassword("secret");
+        customer.setFullName("Customer");
+        entityManager.persist(customer);
+        
+        for (int i = 0; i < 23; i++) {
+            Tour tour = new Tour();
+            tour.setName("Tour " + i);
+            tour.setDestination("Nha Trang");
+            tour.setDuration(3);
+            // duplicate prices force the id tie-breaker to keep the order stable
+            tour.setPrice(BigDecimal.valueOf(1000000L + (i % 5) * 100000L));
+            tour.setMaxParticipants(25);
+            tour.setAvailableSeats(25);
+            tour.setStartDate(LocalDate.of(2025, 2, 1));
+            tour.setEndDate(LocalDate.of(2025, 2, 3));
+            entityManager.persist(tour);
+            
+            Booking booking = new Booking();
+            booking.setTour(tour);
+            booking.setCustomer(customer);
+            booking.setNumberOfPeople(1);
+            booking.setTotalAmount(tour.getPrice());
+            entityManager.persist(booking);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+    
+    @Test
+    void toursByPriceWalkEveryRowOnceInOrder() {
+        List<TourDTO> all = collect(cursor -> tourService.getToursPage(cursor, 5, "price", "asc"));
+        
+        assertThat(all).hasSize(23);
+        assertThat(all).extracting(TourDTO::getId).doesNotHaveDuplicates();
+        assertThat(all).extracting(TourDTO::getPrice).isSorted();
+        assertThat(all.get(0).getCreatedAt()).isNotNull();
+    }
+    
+    @Test
+    void bookingsNewestFirstWalkEveryRowOnce() {
+        List<BookingDTO> all = collect(cursor -> bookingService.getBookingsPage(cursor, 10, "desc"));
+        
+        assertThat(all).hasSize(23);
+        assertThat(all).extracting(BookingDTO::getId).doesNotHaveDuplicates();
+        assertThat(all.get(0).getId()).isGreaterThan(all.get(22).getId());
+    }
+    
+    @Test
+    void usersPageHasNoCursorWhenExhausted() {
+        CursorPage<UserDTO> page = userService.getUsersPage(null, 10, "asc");
+        
+        assertThat(page.getItems()).hasSize(1);
+        assertThat(page.isHasMore()).isFalse();
+        assertThat(page.getNextCursor()).isNull();
+    }
+    
+    private <T> List<T> collect(Function<String, CursorPage<T>> fetchPage) {
+        List<T> all = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<T> page = fetchPage.apply(cursor);
+            all.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return all;
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.controller.LiveUpdateController;
+import com.example.tourismmanagement.dto.BookingDTO;
+import com.example.tourismmanagement.model.Tour;
+import com.example.tourismmanagement.model.User;
+import com.example.tourismmanagement.repository.BookingRepository;
+import com.example.tourismmanagement.repository.OutboxEventRepository;
+import com.example.tourismmanagement.repository.TourRepository;
+import com.example.tourismmanagement.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@DataJpaTest(properties = {"outbox.log.dir=target/event-log-${random.uuid}", "live-updates.coalesce-ms=300",
+        "live-updates.max-tours-per-connection=3", "live-updates.max-pending-events=1"})
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({LiveUpdateService.class, BookingService.class, BookingHoldScheduler.class, SeatInventoryService.class,
+        OutboxService.class, OutboxRelay.class, EventLog.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LiveUpdateServiceTest {
+    @Autowired
+    private LiveUpdateService liveUpdateService;
+    
+    @Autowired
+    private BookingService bookingService;
+    
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+    
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    @Autowired
+    private TourRepository tourRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    private MockMvc mockMvc;
+    private Tour tour;
+    
+    @BeforeEach
+    void seed() {
+        LiveUpdateController controller = new LiveUpdateController();
+        ReflectionTestUtils.setField(controller, "liveUpdateService", liveUpdateService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+        
+        userRepository.save(user("customer"));
+        userRepository.save(user("other"));
+        
+        tour = new Tour();
+        tour.setName("Tour Sa Pa");
+        tour.setDestination("Sa Pa");
+        tour.setDuration(3);
+        tour.setPrice(new BigDecimal("3200000"));
+        tour.setMaxParticipants(10);
+        tour.setAvailableSeats(10);
+        tour.setStartDate(LocalDate.of(2025, 11, 1));
+        tour.setEndDate(LocalDate.of(2025, 11, 3));
+        tour = tourRepository.save(tour);
+    }
+    
+    @AfterEach
+    void cleanUp() {
+        outboxEventRepository.deleteAll();
+        bookingRepository.deleteAll();
+        tourRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+    
+    @Test
+    void rapidSeatChangesAreCoalescedIntoTheLatestCount() throws Exception {
+        MockHttpServletResponse stream = mockMvc.perform(get("/api/stream/tours").param("ids", tour.getId().toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+        assertThat(awaitContent(stream, "\"availableSeats\":10")).isTrue();
+        
+        for (int i = 0; i < 5; i++) {
+            seatInventoryService.tryReserveSeats(tour.getId(), 1);
+        }
+        
+        assertThat(awaitContent(stream, "\"availableSeats\":5")).isTrue();
+        String content = stream.getContentAsString(StandardCharsets.UTF_8);
+        // the initial count plus one flush, or two if the reservations straddled a flush
+        assertThat(count(content, "event:seats")).isBetween(2, 3);
+        assertThat(content).doesNotContain("\"availableSeats\":8", "\"availableSeats\":7");
+    }
+    
+    @Test
+    void bookingChangesReachOnlyTheirOwnersStream() throws Exception {
+        MockHttpServletResponse mine = openBookingStream("customer");
+        MockHttpServletResponse theirs = openBookingStream("other");
+        
+        BookingDTO request = new BookingDTO();
+        request.setTourId(tour.getId());
+        request.setNumberOfPeople(2);
+        BookingDTO booking = bookingService.createBooking(request, "customer");
+        bookingService.updateBookingStatus(booking.getId(), "CONFIRMED");
+        
+        assertThat(awaitContent(mine, "\"status\":\"CONFIRMED\"")).isTrue();
+        assertThat(mine.getContentAsString(StandardCharsets.UTF_8)).contains("event:booking", "\"id\":" + booking.getId());
+        assertThat(theirs.getContentAsString(StandardCharsets.UTF_8)).doesNotContain("event:booking");
+    }
+    
+    @Test
+    void pendingLimitCoversEveryWatchedTour() throws Exception {
+        List<Tour> tours = List.of(tour, tourRepository.save(copy(tour)), tourRepository.save(copy(tour)));
+        String[] ids = tours.stream().map(watched -> watched.getId().toString()).toArray(String[]::new);
+        
+        MockHttpServletResponse stream = mockMvc.perform(get("/api/stream/tours").param("ids", ids))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+        for (String id : ids) {
+            assertThat(awaitContent(stream, "\"tourId\":" + id)).isTrue();
+        }
+        assertThat(liveUpdateService.getStalledWriterCount()).isZero();
+    }
+    
+    @Test
+    void rejectsStreamsOverTooManyTours() throws Exception {
+        int open = liveUpdateService.getConnectionCount();
+        
+        mockMvc.perform(get("/api/stream/tours").param("ids", "1", "2", "3", "4"))
+                .andExpect(status().isBadRequest());
+        
+        assertThat(liveUpdateService.getConnectionCount()).isEqualTo(open);
+    }
+    
+    private MockHttpServletResponse openBookingStream(String username) throws Exception {
+        return mockMvc.perform(get("/api/stream/bookings")
+                        .principal(new UsernamePasswordAuthenticationToken(username, null, List.of())))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+    }
+    
+    private static boolean awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            if (response.getContentAsString(StandardCharsets.UTF_8).contains(expected)) {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+        return false;
+    }
+    
+    private static int count(String content, String token) {
+        int count = 0;
+        for (int i = content.indexOf(token); i >= 0; i = content.indexOf(token, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+    
+    private static Tour copy(Tour source) {
+        Tour tour = new Tour();
+        tour.setName(source.getName());
+        tour.setDestination(source.getDestination());
+        tour.setDuration(source.getDuration());
+        tour.setPrice(source.getPrice());
+        tour.setMaxParticipants(source.getMaxParticipants());
+        tour.setAvailableSeats(source.getAvailableSeats());
+        tour.setStartDate(source.getStartDate());
+        tour.setEndDate(source.getEndDate());
+        return tour;
+    }
+    
+    private static User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("secret");
+        user.setFullName(username);
+        return user;
+    }
+}
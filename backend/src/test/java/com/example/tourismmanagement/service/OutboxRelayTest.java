@@ -0,0 +1,124 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.dto.BookingDTO;
+import com.example.tourismmanagement.event.EventLogRecord;
+import com.example.tourismmanagement.model.OutboxEvent;
+import com.example.tourismmanagement.model.Tour;
+import com.example.tourismmanagement.model.User;
+import com.example.tourismmanagement.repository.BookingRepository;
+import com.example.tourismmanagement.repository.OutboxEventRepository;
+import com.example.tourismmanagement.repository.TourRepository;
+import com.example.tourismmanagement.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = "outbox.log.dir=target/event-log-${random.uuid}")
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({BookingService.class, BookingHoldScheduler.class, SeatInventoryService.class, OutboxService.class,
+        OutboxRelay.class, EventLog.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxRelayTest {
+    @Autowired
+    private BookingService bookingService;
+    
+    @Autowired
+    private OutboxService outboxService;
+    
+    @Autowired
+    private EventLog eventLog;
+    
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    @Autowired
+    private TourRepository tourRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    private Tour tour;
+    
+    @BeforeEach
+    void seed() {
+        User customer = new User();
+        customer.setUsername("customer");
+        customer.setEmail("customer@example.com");
+        customer.setPassword("secret");
+        customer.setFullName("Customer");
+        userRepository.save(customer);
+        
+        tour = new Tour();
+        tour.setName("Tour Mũi Né");
+        tour.setDestination("Mũi Né");
+        tour.setDuration(2);
+        tour.setPrice(new BigDecimal("1800000"));
+        tour.setMaxParticipants(10);
+        tour.setAvailableSeats(10);
+        tour.setStartDate(LocalDate.of(2025, 12, 1));
+        tour.setEndDate(LocalDate.of(2025, 12, 2));
+        tour = tourRepository.save(tour);
+    }
+    
+    @AfterEach
+    void cleanUp() {
+        outboxEventRepository.deleteAll();
+        bookingRepository.deleteAll();
+        tourRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+    
+    @Test
+    void committedBookingChangesReachTheLogInOrder() throws Exception {
+        long start = eventLog.getNextOffset();
+        BookingDTO request = new BookingDTO();
+        request.setTourId(tour.getId());
+        request.setNumberOfPeople(2);
+        BookingDTO booking = bookingService.createBooking(request, "customer");
+        bookingService.updateBookingStatus(booking.getId(), "CONFIRMED");
+        bookingService.cancelBooking(booking.getId(), "customer", false);
+        
+        long deadline = System.currentTimeMillis() + 5000;
+        while (eventLog.getNextOffset() < start + 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        
+        List<EventLogRecord> records = eventLog.cursor(start).poll(10);
+        assertThat(records).extracting(EventLogRecord::getEventType)
+                .containsExactly("BOOKING_CREATED", "BOOKING_STATUS_CHANGED", "BOOKING_STATUS_CHANGED");
+        assertThat(records).allMatch(record -> record.getAggregateId() == booking.getId());
+        assertThat(records.get(0).getPayload()).contains("\"numberOfPeople\":2");
+        assertThat(records.get(2).getPayload()).contains("\"status\":\"CANCELLED\"");
+        deadline = System.currentTimeMillis() + 5000;
+        while (outboxEventRepository.count() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(outboxEventRepository.count()).isZero();
+    }
+    
+    @Test
+    void eventsCannotBeRecordedOutsideATransaction() {
+        assertThatThrownBy(() -> outboxService.record(OutboxEvent.EventType.TOUR_DELETED, 1L, Map.of("id", 1L)))
+                .isInstanceOf(IllegalTransactionStateException.class);
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.dto.PaymentCallbackRequest;
+import com.example.tourismmanagement.model.Booking;
+import com.example.tourismmanagement.model.Payment;
+import com.example.tourismmanagement.model.Tour;
+import com.example.tourismmanagement.model.User;
+import com.example.tourismmanagement.repository.BookingRepository;
+import com.example.tourismmanagement.repository.PaymentRepository;
+import com.example.tourismmanagement.repository.TourRepository;
+import com.example.tourismmanagement.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(PaymentIngestionService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PaymentIngestionServiceTest {
+    @Autowired
+    private PaymentIngestionService paymentIngestionService;
+    
+    @Autowired
+    private PaymentRepository paymentRepository;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    @Autowired
+    private TourRepository tourRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    private Booking booking;
+    
+    @BeforeEach
+    void seed() {
+        User customer = new User();
+        customer.setUsername("customer");
+        customer.setEmail("customer@example.com");
+        customer.setPassword("secret");
+        customer.setFullName("Customer");
+        customer = userRepository.save(customer);
+        
+        Tour tour = new Tour();
+        tour.setName("Tour Huế");
+        tour.setDestination("Huế");
+        tour.setDuration(2);
+        tour.setPrice(new BigDecimal("1500000"));
+        tour.setMaxParticipants(10);
+        tour.setAvailableSeats(8);
+        tour.setStartDate(LocalDate.of(2025, 12, 1));
+        tour.setEndDate(LocalDate.of(2025, 12, 2));
+        tour = tourRepository.save(tour);
+        
+        booking = new Booking();
+        booking.setTour(tour);
+        booking.setCustomer(customer);
+        booking.setNumberOfPeople(2);
+        booking.setTotalAmount(new BigDecimal("3000000"));
+        booking = bookingRepository.save(booking);
+    }
+    
+    @AfterEach
+    void cleanUp() {
+        paymentRepository.deleteAll();
+        bookingRepository.deleteAll();
+        tourRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+    
+    @Test
+    void outOfOrderCallbacksOnlyMoveATransactionForward() {
+        int applied = paymentIngestionService.settle(List.of(
+                callback("TXN-1", "3000000", "COMPLETED"),
+                callback("TXN-1", "3000000", "PENDING"),
+                callback("TXN-1", "3000000", "COMPLETED")));
+        
+        assertThat(applied).isEqualTo(1);
+        assertThat(paymentRepository.findByTransactionId("TXN-1").orElseThrow().getStatus())
+                .isEqualTo(Payment.PaymentStatus.COMPLETED);
+        assertThat(paymentStatus()).isEqualTo(Booking.PaymentStatus.PAID);
+        
+        assertThat(paymentIngestionService.settle(List.of(callback("TXN-1", "3000000", "FAILED")))).isZero();
+        assertThat(paymentRepository.findByTransactionId("TXN-1").orElseThrow().getStatus())
+                .isEqualTo(Payment.PaymentStatus.COMPLETED);
+    }
+    
+    @Test
+    void aRetryAfterAFailedAttemptKeepsBothTransactions() {
+        paymentIngestionService.settle(List.of(callback("TXN-2", "3000000", "FAILED")));
+        assertThat(paymentStatus()).isEqualTo(Booking.PaymentStatus.UNPAID);
+        
+        paymentIngestionService.settle(List.of(callback("TXN-3", "1000000", "COMPLETED")));
+        
+        assertThat(paymentRepository.findByBookingId(booking.getId()))
+                .extracting(Payment::getTransactionId, Payment::getStatus)
+                .containsExactlyInAnyOrder(tuple("TXN-2", Payment.PaymentStatus.FAILED),
+                        tuple("TXN-3", Payment.PaymentStatus.COMPLETED));
+        assertThat(paymentStatus()).isEqualTo(Booking.PaymentStatus.PARTIAL);
+    }
+    
+    @Test
+    void aLateDuplicateOfTheFailedAttemptIsRecognisedAfterTheRetry() throws Exception {
+        assertThat(paymentIngestionService.accept(callbackRequest("TXN-5", "3000000", "FAILED"))).isTrue();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (paymentRepository.findByTransactionId("TXN-5").isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(paymentIngestionService.accept(callbackRequest("TXN-6", "3000000", "COMPLETED"))).isTrue();
+        while (paymentStatus() != Booking.PaymentStatus.PAID && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(paymentStatus()).isEqualTo(Booking.PaymentStatus.PAID);
+        
+        assertThat(paymentIngestionService.accept(callbackRequest("TXN-5", "3000000", "FAILED"))).isFalse();
+        assertThat(paymentIngestionService.settle(List.of(callback("TXN-5", "3000000", "COMPLETED")))).isZero();
+        
+        assertThat(paymentRepository.findByTransactionId("TXN-5").orElseThrow().getStatus())
+                .isEqualTo(Payment.PaymentStatus.FAILED);
+        assertThat(paymentRepository.findByTransactionId("TXN-6").orElseThrow().getStatus())
+                .isEqualTo(Payment.PaymentStatus.COMPLETED);
+    }
+    
+    @Test
+    void duplicateBurstsAreAbsorbedBeforeSettlement() throws Exception {
+        PaymentCallbackRequest completed = callbackRequest("TXN-4", "3000000", "COMPLETED");
+        
+        assertThat(paymentIngestionService.accept(completed)).isTrue();
+        int duplicates = 0;
+        for (int i = 0; i < 50; i++) {
+            duplicates += paymentIngestionService.accept(completed) ? 0 : 1;
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (paymentStatus() != Booking.PaymentStatus.PAID && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        
+        assertThat(paymentStatus()).isEqualTo(Booking.PaymentStatus.PAID);
+        assertThat(duplicates + (paymentIngestionService.accept(completed) ? 0 : 1)).isEqualTo(51);
+        assertThat(paymentIngestionService.accept(callbackRequest("TXN-4", "3000000", "PENDING"))).isFalse();
+        assertThat(paymentRepository.count()).isEqualTo(1);
+    }
+    
+    private PaymentIngestionService.Callback callback(String transactionId, String amount, String status) {
+        return PaymentIngestionService.Callback.of(callbackRequest(transactionId, amount, status));
+    }
+    
+    private PaymentCallbackRequest callbackRequest(String transactionId, String amount, String status) {
+        return new PaymentCallbackRequest(transactionId, booking.getId(), new BigDecimal(amount), "E_WALLET", status);
+    }
+    
+    private Booking.PaymentStatus paymentStatus() {
+        return bookingRepository.findById(booking.getId()).orElseThrow().getPaymentStatus();
+    }
+}
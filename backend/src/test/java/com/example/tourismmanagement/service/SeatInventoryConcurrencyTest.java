@@ -0,0 +1,153 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.dto.BookingDTO;
+import com.example.tourismmanagement.model.Booking;
+import com.example.tourismmanagement.model.Tour;
+import com.example.tourismmanagement.model.User;
+import com.example.tourismmanagement.repository.BookingRepository;
+import com.example.tourismmanagement.repository.TourRepository;
+import com.example.tourismmanagement.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({BookingService.class, BookingHoldScheduler.class, SeatInventoryService.class, OutboxService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SeatInventoryConcurrencyTest {
+    private static final int CAPACITY = 200;
+    private static final int REQUESTS = 400;
+    
+    @Autowired
+    private BookingService bookingService;
+    
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+    
+    @Autowired
+    private TourRepository tourRepository;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @BeforeEach
+    void createCustomer() {
+        User user = new User();
+        user.setUsername("customer");
+        user.setEmail("customer@example.com");
+        user.setPassword("secret");
+        user.setFullName("Customer");
+        userRepository.save(user);
+    }
+    
+    @AfterEach
+    void cleanUp() {
+        bookingRepository.deleteAll();
+        tourRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+    
+    @Test
+    void parallelBookingsNeverOversell() throws Exception {
+        // correctness under contention only; timings belong in a benchmark run, not a unit test
+        Tour tour = tourRepository.save(newTour(CAPACITY));
+        
+        int succeeded = fireBookings(tour.getId(), 64, REQUESTS);
+        
+        Tour reloaded = tourRepository.findById(tour.getId()).orElseThrow();
+        int bookedSeats = bookingRepository.findByTourId(tour.getId()).stream()
+                .mapToInt(Booking::getNumberOfPeople)
+                .sum();
+        
+        assertThat(succeeded).isEqualTo(CAPACITY);
+        assertThat(bookedSeats).isEqualTo(CAPACITY);
+        assertThat(reloaded.getAvailableSeats()).isZero();
+        assertThat(reloaded.getStatus()).isEqualTo(Tour.TourStatus.FULL);
+    }
+    
+    @Test
+    void releasingSeatsReopensFullTour() {
+        Tour tour = tourRepository.save(newTour(2));
+        
+        BookingDTO request = new BookingDTO();
+        request.setTourId(tour.getId());
+        request.setNumberOfPeople(2);
+        bookingService.createBooking(request, "customer");
+        assertThat(tourRepository.findById(tour.getId()).orElseThrow().getStatus()).isEqualTo(Tour.TourStatus.FULL);
+        
+        seatInventoryService.releaseSeats(tour.getId(), 1);
+        Tour reopened = tourRepository.findById(tour.getId()).orElseThrow();
+        assertThat(reopened.getAvailableSeats()).isEqualTo(1);
+        assertThat(reopened.getStatus()).isEqualTo(Tour.TourStatus.AVAILABLE);
+    }
+    
+    private int fireBookings(Long tourId, int threads, int requests) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < requests; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    BookingDTO request = new BookingDTO();
+                    request.setTourId(tourId);
+                    request.setNumberOfPeople(1);
+                    try {
+                        bookingService.createBooking(request, "customer");
+                        succeeded.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        assertThat(e).hasMessage("Not enough available seats");
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        return succeeded.get();
+    }
+    
+    private Tour newTour(int seats) {
+        Tour tour = new Tour();
+        tour.setName("Tour Phú Quốc");
+        tour.setDestination("Phú Quốc");
+        tour.setDuration(3);
+        tour.setPrice(new BigDecimal("4500000"));
+        tour.setMaxParticipants(seats);
+        tour.setAvailableSeats(seats);
+        tour.setStartDate(LocalDate.of(2025, 1, 15));
+        tour.setEndDate(LocalDate.of(2025, 1, 17));
+        return tour;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.dto.PaymentSettlementRow;
+import com.example.tourismmanagement.dto.ReconciliationReport;
+import com.example.tourismmanagement.model.Payment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SettlementReconciliationServiceTest {
+    private final SettlementReconciliationService service = new SettlementReconciliationService();
+    private final List<PaymentSettlementRow> payments = new ArrayList<>();
+    private final AtomicInteger fetches = new AtomicInteger();
+    
+    @TempDir
+    Path dir;
+    
+    @Test
+    void reportsMissingAndDifferingPaymentsAcrossChunkBoundaries() throws Exception {
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+        payment("TXN-000", "1.00", Payment.PaymentStatus.COMPLETED);
+        payment("TXN-001", "100.00", Payment.PaymentStatus.COMPLETED);
+        payment("TXN-002", "250.50", Payment.PaymentStatus.COMPLETED);
+        payment("TXN-003", "80.00", Payment.PaymentStatus.COMPLETED);
+        payment("TXN-004", "10.00", Payment.PaymentStatus.REFUNDED);
+        payment("TXN-005", "99.99", Payment.PaymentStatus.COMPLETED);
+        payment("TXN-009", "5.00", Payment.PaymentStatus.COMPLETED);
+        payment("TXN-010", "7.00", Payment.PaymentStatus.COMPLETED);
+        Path file = file("transaction_id,amount,status\r\n"
+                + "TXN-001,100,COMPLETED\r\n"
+                + "# adjustments follow\n"
+                + "TXN-002,250.5,COMPLETED\n"
+                + "TXN-003,85.00,COMPLETED\n"
+                + "TXN-004,10.00,COMPLETED\n"
+                + "TXN-006,1.00,COMPLETED\n"
+                + "TXN-007,abc,COMPLETED\n"
+                + "TXN-009,5.00,COMPLETED");
+        StringWriter report = new StringWriter();
+        
+        ReconciliationReport result = service.reconcile(file, this::fetchFrom, report);
+        
+        assertThat(result.getLines()).isEqualTo(7);
+        assertThat(result.getMatched()).isEqualTo(3);
+        assertThat(result.getAmountMismatches()).isEqualTo(1);
+        assertThat(result.getStatusMismatches()).isEqualTo(1);
+        assertThat(result.getMissing()).isEqualTo(1);
+        assertThat(result.getMissingInFile()).isEqualTo(1);
+        assertThat(result.getMalformed()).isEqualTo(1);
+        assertThat(report.toString()).contains(
+                "AMOUNT_DIFFERS,TXN-003,85.00,80.00,COMPLETED,COMPLETED,",
+                "STATUS_DIFFERS,TXN-004,10.00,10.00,COMPLETED,REFUNDED,",
+                "MISSING,TXN-006,1.00,,COMPLETED,,",
+                "MISSING_IN_FILE,TXN-005,,99.99,,COMPLETED,",
+                "MALFORMED,,,,,,TXN-007 abc COMPLETED");
+        // TXN-000 and TXN-010 lie outside the file's range and belong to other settlements
+        assertThat(report.toString()).doesNotContain("TXN-000", "TXN-010");
+        assertThat(fetches.get()).isLessThanOrEqualTo(4);
+    }
+    
+    @Test
+    void refusesUnsortedFiles() throws Exception {
+        ReflectionTestUtils.setField(service, "chunkSize", 10);
+        payment("TXN-001", "1.00", Payment.PaymentStatus.COMPLETED);
+        Path file = file("TXN-002,1.00,COMPLETED\nTXN-001,1.00,COMPLETED\n");
+        
+        assertThatThrownBy(() -> service.reconcile(file, this::fetchFrom, new StringWriter()))
+                .hasMessageContaining("not sorted by transaction id at line 2");
+    }
+    
+    @Test
+    void parsesAmountsIntoCents() {
+        assertThat(cents("12")).isEqualTo(1200);
+        assertThat(cents("12.3")).isEqualTo(1230);
+        assertThat(cents("-0.05")).isEqualTo(-5);
+        assertThat(cents("1.234")).isEqualTo(Long.MIN_VALUE);
+        assertThat(cents("")).isEqualTo(Long.MIN_VALUE);
+    }
+    
+    private long cents(String amount) {
+        byte[] bytes = amount.getBytes(StandardCharsets.US_ASCII);
+        return SettlementReconciliationService.parseCents(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+    
+    private void payment(String transactionId, String amount, Payment.PaymentStatus status) {
+        payments.add(new PaymentSettlementRow(transactionId, new BigDecimal(amount), status));
+    }
+    
+    private List<PaymentSettlementRow> fetchFrom(String transactionId, int limit) {
+        fetches.incrementAndGet();
+        return payments.stream()
+                .filter(payment -> payment.getTransactionId().compareTo(transactionId) >= 0)
+                .limit(limit)
+                .toList();
+    }
+    
+    private Path file(String content) throws Exception {
+        return Files.writeString(dir.resolve("settlement.csv"), content);
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.dto.BookingDTO;
+import com.example.tourismmanagement.dto.TourDTO;
+import com.example.tourismmanagement.model.User;
+import com.example.tourismmanagement.repository.BookingRepository;
+import com.example.tourismmanagement.repository.TourRepository;
+import com.example.tourismmanagement.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TourService.class, BookingService.class, BookingHoldScheduler.class, SeatInventoryService.class,
+        TourCatalogCache.class, TourSearchIndex.class, OutboxService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TourCatalogCacheTest {
+    @Autowired
+    private TourService tourService;
+    
+    @Autowired
+    private BookingService bookingService;
+    
+    @Autowired
+    private TourCatalogCache tourCatalogCache;
+    
+    @Autowired
+    private TourRepository tourRepository;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @AfterEach
+    void cleanUp() {
+        bookingRepository.deleteAll();
+        tourRepository.deleteAll();
+        userRepository.deleteAll();
+        tourCatalogCache.invalidateAll();
+    }
+    
+    @Test
+    void writesInvalidateCachedToursAndListing() {
+        TourDTO created = tourService.createTour(newTour("Tour Huế", 20));
+        assertThat(tourService.getAllTours()).extracting(TourDTO::getName).containsExactly("Tour Huế");
+        assertThat(hits("tours")).isZero();
+        
+        // the listing load already filled the per-tour entry
+        assertThat(tourService.getTourById(created.getId()).getName()).isEqualTo("Tour Huế");
+        assertThat(hits("tours")).isEqualTo(1L);
+        
+        TourDTO changes = newTour("Tour Huế 3N2Đ", 20);
+        tourService.updateTour(created.getId(), changes);
+        assertThat(tourService.getTourById(created.getId()).getName()).isEqualTo("Tour Huế 3N2Đ");
+        assertThat(tourService.getAllTours()).extracting(TourDTO::getName).containsExactly("Tour Huế 3N2Đ");
+        
+        TourDTO second = tourService.createTour(newTour("Tour Cần Thơ", 25));
+        assertThat(tourService.getAllTours()).hasSize(2);
+        
+        tourService.deleteTour(second.getId());
+        assertThat(tourService.getAllTours()).hasSize(1);
+        assertThatThrownBy(() -> tourService.getTourById(second.getId())).hasMessageContaining("Tour not found");
+    }
+    
+    @Test
+    void bookingUpdatesCachedSeatCount() {
+        User user = new User();
+        user.setUsername("customer");
+        user.setEmail("customer@example.com");
+        user.setPassword("secret");
+        user.setFullName("Customer");
+        userRepository.save(user);
+        
+        TourDTO tour = tourService.createTour(newTour("Tour Sapa", 2));
+        assertThat(tourService.getTourById(tour.getId()).getAvailableSeats()).isEqualTo(2);
+        
+        BookingDTO request = new BookingDTO();
+        request.setTourId(tour.getId());
+        request.setNumberOfPeople(2);
+        bookingService.createBooking(request, "customer");
+        
+        TourDTO cached = tourService.getTourById(tour.getId());
+        assertThat(cached.getAvailableSeats()).isZero();
+        assertThat(cached.getStatus()).isEqualTo("FULL");
+    }
+    
+    @Test
+    void adminEditFromAStaleCopyKeepsSoldSeats() {
+        User user = new User();
+        user.setUsername("customer");
+        user.setEmail("customer@example.com");
+        user.setPassword("secret");
+        user.setFullName("Customer");
+        userRepository.save(user);
+        
+        TourDTO tour = tourService.createTour(newTour("Tour Phú Quốc", 10));
+        TourDTO stale = tourService.getTourById(tour.getId());
+        
+        BookingDTO request = new BookingDTO();
+        request.setTourId(tour.getId());
+        request.setNumberOfPeople(4);
+        bookingService.createBooking(request, "customer");
+        
+        stale.setName("Tour Phú Quốc 4N3Đ");
+        stale.setMaxParticipants(12);
+        TourDTO updated = tourService.updateTour(tour.getId(), stale);
+        assertThat(updated.getAvailableSeats()).isEqualTo(8);
+        
+        stale.setMaxParticipants(3);
+        assertThatThrownBy(() -> tourService.updateTour(tour.getId(), stale))
+                .hasMessageContaining("4 seats already booked");
+    }
+    
+    @SuppressWarnings("unchecked")
+    private long hits(String cache) {
+        Map<String, Object> stats = (Map<String, Object>) tourCatalogCache.getStats().get(cache);
+        return (Long) stats.get("hits");
+    }
+    
+    private TourDTO newTour(String name, int seats) {
+        TourDTO dto = new TourDTO();
+        dto.setName(name);
+        dto.setDestination("Việt Nam");
+        dto.setDuration(3);
+        dto.setPrice(new BigDecimal("3000000"));
+        dto.setMaxParticipants(seats);
+        dto.setAvailableSeats(seats);
+        dto.setStartDate(LocalDate.of(2025, 2, 20));
+        dto.setEndDate(LocalDate.of(2025, 2, 22));
+        return dto;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.dto.TourSearchCriteria;
+import com.example.tourismmanagement.dto.TourSnapshotRow;
+import com.example.tourismmanagement.model.Tour;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TourCatalogSnapshotTest {
+    private TourCatalogSnapshot snapshot;
+    
+    @BeforeEach
+    void setUp() {
+        snapshot = new TourCatalogSnapshot();
+        List<TourSnapshotRow> rows = new ArrayList<>();
+        for (long id = 1; id <= 3000; id++) {
+            rows.add(row(id, 1000000 + (id % 10) * 100000, (int) (id % 7)));
+        }
+        snapshot.rebuild(rows);
+    }
+    
+    @Test
+    void sortsByFieldThenIdInBothDirections() {
+        TourSearchCriteria criteria = new TourSearchCriteria();
+        criteria.setMaxPrice(new BigDecimal("1000000"));
+        
+        TourCatalogSnapshot.Page ascending = snapshot.page(criteria, null, "price", "asc", 0, 3);
+        TourCatalogSnapshot.Page descending = snapshot.page(criteria, null, "price", "desc", 0, 3);
+        
+        assertThat(ascending.getTotal()).isEqualTo(300);
+        assertThat(ascending.getIds()).containsExactly(10L, 20L, 30L);
+        assertThat(descending.getIds()).containsExactly(3000L, 2990L, 2980L);
+    }
+    
+    @Test
+    void patchesRowsInPlaceAndAppendsNewOnes() {
+        snapshot.upsert(row(2500, 1000000, 0));
+        snapshot.upsert(row(3001, 1000000, 6));
+        
+        TourSearchCriteria criteria = new TourSearchCriteria();
+        criteria.setMinSeats(1);
+        
+        assertThat(snapshot.page(criteria, List.of(2500L, 3001L), null, null, 0, 10).getIds()).containsExactly(3001L);
+        assertThat(snapshot.size()).isEqualTo(3001);
+    }
+    
+    @Test
+    void ignoresChangesOlderThanTheOneApplied() {
+        snapshot.upsert(row(2500, 1000000, 0, 2));
+        snapshot.upsert(row(2500, 1000000, 5, 1));
+        snapshot.remove(2501L);
+        snapshot.upsert(row(2501, 1000000, 5, 0));
+        
+        TourSearchCriteria criteria = new TourSearchCriteria();
+        criteria.setMinSeats(1);
+        
+        assertThat(snapshot.page(criteria, List.of(2500L, 2501L), null, null, 0, 10).getIds()).isEmpty();
+        assertThat(snapshot.size()).isEqualTo(2999);
+    }
+    
+    @Test
+    void removedRowsDisappearAndTombstonesAreCompacted() {
+        LongStream.rangeClosed(1, 2000).forEach(snapshot::remove);
+        
+        TourCatalogSnapshot.Page all = snapshot.page(new TourSearchCriteria(), null, "createdAt", "asc", 0, 1);
+        
+        assertThat(snapshot.size()).isEqualTo(1000);
+        assertThat(all.getTotal()).isEqualTo(1000);
+        assertThat(all.getIds()).containsExactly(2001L);
+        assertThat(snapshot.estimatedBytes()).isLessThan(3L * TourCatalogSnapshot.CHUNK_SIZE * TourCatalogSnapshot.BYTES_PER_ROW);
+    }
+    
+    @Test
+    void restrictionKeepsCallerOrder() {
+        List<Long> ranked = List.of(42L, 7L, 9999L, 13L);
+        TourSearchCriteria criteria = new TourSearchCriteria();
+        criteria.setMinSeats(1);
+        
+        List<Long> ids = snapshot.page(criteria, ranked, null, null, 0, Integer.MAX_VALUE).getIds();
+        
+        assertThat(ids).containsExactly(13L);
+        assertThat(snapshot.priceCounts(criteria, ranked, new long[]{1200000}))
+                .containsExactly(0L, 1L);
+        assertThat(snapshot.monthCounts(new TourSearchCriteria(), ranked).keySet().stream()
+                .map(Object::toString).collect(Collectors.toList())).containsExactly("2025-01");
+    }
+    
+    private static TourSnapshotRow row(long id, long price, int seats) {
+        return row(id, price, seats, 0);
+    }
+    
+    private static TourSnapshotRow row(long id, long price, int seats, long version) {
+        LocalDate start = LocalDate.of(2025, 1, 1).plusDays(id % 20);
+        return new TourSnapshotRow(id, BigDecimal.valueOf(price), seats, start, start.plusDays(2), 3,
+                Tour.TourStatus.AVAILABLE, null, null, "Nha Trang", version);
+    }
+}
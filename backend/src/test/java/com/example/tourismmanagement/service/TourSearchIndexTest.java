@@ -0,0 +1,72 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.model.Tour;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TourSearchIndexTest {
+    private TourSearchIndex index;
+    
+    @BeforeEach
+    void setUp() {
+        index = new TourSearchIndex();
+        index.index(tour(1L, "Tour Đà Lạt 3N2Đ", "Đà Lạt, Lâm Đồng", "Thành phố ngàn hoa", null));
+        index.index(tour(2L, "Tour Hạ Long", "Hạ Long, Quảng Ninh", "Du thuyền trên vịnh", "Ngày 2: ghé Đà Lạt"));
+        index.index(tour(3L, "Tour Phú Quốc", "Phú Quốc, Kiên Giang", "Khám phá đảo ngọc", null));
+    }
+    
+    @Test
+    void foldsVietnameseDiacritics() {
+        assertThat(TourSearchIndex.fold("Đà Lạt, Quảng Ninh")).isEqualTo("da lat, quang ninh");
+        assertThat(index.search("Da Lat", 10)).containsExactly(1L, 2L);
+        assertThat(index.search("đà lạt", 10)).containsExactly(1L, 2L);
+    }
+    
+    @Test
+    void ranksNameAndDestinationAboveItinerary() {
+        assertThat(index.search("lat", 10).get(0)).isEqualTo(1L);
+    }
+    
+    @Test
+    void matchesLastTermAsPrefixAndRequiresEveryTerm() {
+        assertThat(index.search("phu quo", 10)).containsExactly(3L);
+        assertThat(index.search("ha long ngoc", 10)).isEmpty();
+    }
+    
+    @Test
+    void reindexesAndRemovesIncrementally() {
+        index.index(tour(3L, "Tour Côn Đảo", "Côn Đảo", "Biển xanh", null));
+        assertThat(index.search("phu quoc", 10)).isEmpty();
+        assertThat(index.search("con dao", 10)).containsExactly(3L);
+        
+        index.remove(3L);
+        assertThat(index.search("con dao", 10)).isEmpty();
+        assertThat(index.size()).isEqualTo(2);
+    }
+    
+    @Test
+    void reusesOrdinalsOfRemovedTours() {
+        for (long id = 4; id < 100; id++) {
+            index.index(tour(id, "Tour Sa Pa " + id, "Sa Pa", null, null));
+            index.remove(id);
+        }
+        assertThat(index.ordinalBound()).isEqualTo(4);
+        
+        index.index(tour(100L, "Tour Côn Đảo", "Côn Đảo", null, null));
+        assertThat(index.search("sa pa", 10)).isEmpty();
+        assertThat(index.search("con dao", 10)).containsExactly(100L);
+        assertThat(index.search("tour", 10)).containsExactly(1L, 2L, 3L, 100L);
+    }
+    
+    private static Tour tour(Long id, String name, String destination, String description, String itinerary) {
+        Tour tour = new Tour();
+        tour.setId(id);
+        tour.setName(name);
+        tour.setDestination(destination);
+        tour.setDescription(description);
+        tour.setItinerary(itinerary);
+        return tour;
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.dto.FacetCount;
+import com.example.tourismmanagement.dto.TourDTO;
+import com.example.tourismmanagement.dto.TourSearchCriteria;
+import com.example.tourismmanagement.dto.TourSearchResult;
+import com.example.tourismmanagement.model.Category;
+import com.example.tourismmanagement.model.Tour;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TourSearchService.class, TourService.class, SeatInventoryService.class, TourCatalogCache.class,
+        TourSearchIndex.class, TourCatalogSnapshot.class, OutboxService.class})
+class TourSearchServiceTest {
+    @Autowired
+    private TourSearchService tourSearchService;
+    
+    @Autowired
+    private TourSearchIndex tourSearchIndex;
+    
+    @Autowired
+    private TourCatalogSnapshot tourCatalogSnapshot;
+    
+    @Autowired
+    private EntityManager entityManager;
+    
+    private Category beach;
+    private Category mountain;
+    
+    @BeforeEach
+    void seed() {
+        beach = category("Biển đảo");
+        mountain = category("Núi rừng");
+        
+        tour("Tour Phú Quốc", "Phú Quốc", beach, 4500000, LocalDate.of(2025, 1, 15), 3, 18, Tour.TourStatus.AVAILABLE);
+        tour("Tour Nha Trang", "Nha Trang", beach, 2500000, LocalDate.of(2025, 2, 10), 3, 0, Tour.TourStatus.FULL);
+        tour("Tour Côn Đảo", "Côn Đảo", beach, 12000000, LocalDate.of(2025, 2, 20), 4, 5, Tour.TourStatus.AVAILABLE);
+        tour("Tour Đà Lạt", "Đà Lạt", mountain, 3500000, LocalDate.of(2025, 2, 1), 4, 8, Tour.TourStatus.AVAILABLE);
+        tour("Tour Sa Pa", "Sa Pa", mountain, 800000, LocalDate.of(2025, 3, 5), 2, 12, Tour.TourStatus.AVAILABLE);
+        entityManager.flush();
+        entityManager.clear();
+        tourSearchIndex.rebuild();
+        tourCatalogSnapshot.rebuild();
+    }
+    
+    @Test
+    void combinesFiltersAndPagesResults() {
+        TourSearchCriteria criteria = new TourSearchCriteria();
+        criteria.setStatus("available");
+        criteria.setMinSeats(6);
+        criteria.setMaxPrice(new BigDecimal("5000000"));
+        criteria.setStartDate(LocalDate.of(2025, 1, 1));
+        criteria.setEndDate(LocalDate.of(2025, 2, 28));
+        
+        TourSearchResult result = tourSearchService.search(criteria, 0, 1, "price", "asc");
+        
+        assertThat(result.getTotal()).isEqualTo(2);
+        assertThat(result.getItems()).extracting(TourDTO::getName).containsExactly("Tour Đà Lạt");
+        assertThat(tourSearchService.search(criteria, 1, 1, "price", "asc").getItems())
+                .extracting(TourDTO::getName).containsExactly("Tour Phú Quốc");
+    }
+    
+    @Test
+    void countsEachFacetWithoutItsOwnFilter() {
+        TourSearchCriteria criteria = new TourSearchCriteria();
+        criteria.setCategoryId(beach.getId());
+        criteria.setMinPrice(new BigDecimal("3000000"));
+        
+        TourSearchResult result = tourSearchService.search(criteria, 0, 20, null, "asc");
+        
+        assertThat(result.getTotal()).isEqualTo(2);
+        assertThat(result.getCategories()).extracting(FacetCount::getLabel, FacetCount::getCount)
+                .containsExactlyInAnyOrder(tuple("Biển đảo", 2L), tuple("Núi rừng", 1L));
+        assertThat(result.getPriceRanges()).extracting(FacetCount::getKey, FacetCount::getCount)
+                .contains(tuple("1000000-3000000", 1L), tuple("3000000-5000000", 1L), tuple("10000000+", 1L));
+        assertThat(result.getMonths()).extracting(FacetCount::getKey, FacetCount::getCount)
+                .containsExactly(tuple("2025-01", 1L), tuple("2025-02", 1L));
+    }
+    
+    @Test
+    void narrowsTextMatchesByFiltersKeepingRelevanceOrder() {
+        TourSearchCriteria criteria = new TourSearchCriteria();
+        criteria.setDestination("dao");
+        criteria.setStatus("AVAILABLE");
+        
+        List<TourDTO> tours = tourSearchService.searchAll(criteria);
+        
+        assertThat(tours).extracting(TourDTO::getName).containsExactly("Tour Côn Đảo");
+    }
+    
+    @Test
+    void snapshotAndDatabaseQueriesAgree() {
+        TourSearchCriteria criteria = new TourSearchCriteria();
+        criteria.setMinPrice(new BigDecimal("1000000"));
+        criteria.setMaxDuration(4);
+        
+        TourSearchResult fromSnapshot = tourSearchService.search(criteria, 0, 20, "startDate", "desc");
+        ReflectionTestUtils.setField(tourSearchService, "snapshotEnabled", false);
+        TourSearchResult fromDatabase = tourSearchService.search(criteria, 0, 20, "startDate", "desc");
+        
+        assertThat(fromSnapshot).isEqualTo(fromDatabase);
+        assertThat(fromSnapshot.getItems()).extracting(TourDTO::getName)
+                .containsExactly("Tour Côn Đảo", "Tour Nha Trang", "Tour Đà Lạt", "Tour Phú Quốc");
+    }
+    
+    private Category category(String name) {
+        Category category = new Category();
+        category.setName(name);
+        entityManager.persist(category);
+        return category;
+    }
+    
+    private void tour(String name, String destination, Category category, long price, LocalDate startDate,
+                      int duration, int availableSeats, Tour.TourStatus status) {
+        Tour tour = new Tour();
+        tour.setName(name);
+        tour.setDestination(destination);
+        tour.setCategory(category);
+        tour.setPrice(BigDecimal.valueOf(price));
+        tour.setStartDate(startDate);
+        tour.setEndDate(startDate.plusDays(duration - 1));
+        tour.setDuration(duration);
+        tour.setMaxParticipants(20);
+        tour.setAvailableSeats(availableSeats);
+        tour.setStatus(status);
+        entityManager.persist(tour);
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.tourismmanagement.service;
+
+import com.example.tourismmanagement.dto.BookingDTO;
+import com.example.tourismmanagement.dto.WaitlistEntryDTO;
+import com.example.tourismmanagement.model.Tour;
+import com.example.tourismmanagement.model.User;
+import com.example.tourismmanagement.model.WaitlistEntry;
+import com.example.tourismmanagement.repository.BookingRepository;
+import com.example.tourismmanagement.repository.TourRepository;
+import com.example.tourismmanagement.repository.UserRepository;
+import com.example.tourismmanagement.repository.WaitlistRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({WaitlistService.class, BookingService.class, BookingHoldScheduler.class, SeatInventoryService.class,
+        OutboxService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class WaitlistServiceTest {
+    @Autowired
+    private WaitlistService waitlistService;
+    
+    @Autowired
+    private BookingService bookingService;
+    
+    @Autowired
+    private WaitlistRepository waitlistRepository;
+    
+    @Autowired
+    private TourRepository tourRepository;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    private Tour tour;
+    
+    @BeforeEach
+    void seed() {
+        for (String username : new String[]{"booker", "first", "second", "third"}) {
+            customer(username);
+        }
+        
+        tour = new Tour();
+        tour.setName("Tour Sa Pa");
+        tour.setDestination("Sa Pa");
+        tour.setDuration(3);
+        tour.setPrice(new BigDecimal("3000000"));
+        tour.setMaxParticipants(4);
+        tour.setAvailableSeats(4);
+        tour.setStartDate(LocalDate.of(2025, 12, 1));
+        tour.setEndDate(LocalDate.of(2025, 12, 3));
+        tour = tourRepository.save(tour);
+    }
+    
+    @AfterEach
+    void cleanUp() {
+        waitlistRepository.deleteAll();
+        bookingRepository.deleteAll();
+        tourRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+    
+    @Test
+    void freedSeatsAreOfferedInJoinOrderWithoutOvertaking() {
+        assertThatThrownBy(() -> join("first", 2)).hasMessage("Seats are available, please book the tour directly");
+        BookingDTO booking = book("booker", 4);
+        WaitlistEntryDTO first = join("first", 2);
+        WaitlistEntryDTO second = join("second", 3);
+        WaitlistEntryDTO third = join("third", 1);
+        assertThat(third.getPosition()).isEqualTo(2);
+        assertThatThrownBy(() -> join("first", 1)).hasMessage("You are already on the waitlist for this tour");
+        
+        bookingService.cancelBooking(booking.getId(), "booker", false);
+        
+        // the party of three does not fit the two seats left, and the single behind it must not jump the queue
+        assertThat(status(first.getId())).isEqualTo(WaitlistEntry.WaitlistStatus.OFFERED);
+        assertThat(status(second.getId())).isEqualTo(WaitlistEntry.WaitlistStatus.WAITING);
+        assertThat(status(third.getId())).isEqualTo(WaitlistEntry.WaitlistStatus.WAITING);
+        assertThat(seatsLeft()).isEqualTo(2);
+        assertThatThrownBy(() -> book("booker", 1))
+                .hasMessage("Customers are waiting for this tour, please join the waitlist");
+        assertThat(seatsLeft()).isEqualTo(2);
+        
+        assertThatThrownBy(() -> waitlistService.claim(first.getId(), "second"))
+                .hasMessage("You can only manage your own waitlist entries");
+        BookingDTO claimed = waitlistService.claim(first.getId(), "first");
+        
+        assertThat(claimed.getStatus()).isEqualTo("PENDING");
+        assertThat(claimed.getNumberOfPeople()).isEqualTo(2);
+        assertThat(status(first.getId())).isEqualTo(WaitlistEntry.WaitlistStatus.CLAIMED);
+        assertThat(seatsLeft()).isEqualTo(2);
+    }
+    
+    @Test
+    void expiredOffersPassTheSeatsToTheNextInLine() {
+        BookingDTO booking = book("booker", 4);
+        WaitlistEntryDTO first = join("first", 2);
+        WaitlistEntryDTO second = join("second", 3);
+        WaitlistEntryDTO third = join("third", 1);
+        bookingService.cancelBooking(booking.getId(), "booker", false);
+        assertThat(status(first.getId())).isEqualTo(WaitlistEntry.WaitlistStatus.OFFERED);
+        
+        WaitlistEntry offer = waitlistRepository.findById(first.getId()).orElseThrow();
+        offer.setOfferExpiresAt(LocalDateTime.now().minusMinutes(1));
+        waitlistRepository.save(offer);
+        
+        assertThat(waitlistService.expireOffers()).isEqualTo(1);
+        
+        assertThat(status(first.getId())).isEqualTo(WaitlistEntry.WaitlistStatus.EXPIRED);
+        assertThat(status(second.getId())).isEqualTo(WaitlistEntry.WaitlistStatus.OFFERED);
+        assertThat(status(third.getId())).isEqualTo(WaitlistEntry.WaitlistStatus.OFFERED);
+        assertThat(seatsLeft()).isZero();
+        assertThatThrownBy(() -> waitlistService.claim(first.getId(), "first"))
+                .hasMessage("There is no open offer for this waitlist entry");
+    }
+    
+    @Test
+    void seatsTooFewForTheHeadAreHeldOnlyUntilItsHoldRunsOut() {
+        tour.setMaxParticipants(6);
+        tour.setAvailableSeats(6);
+        tour = tourRepository.save(tour);
+        BookingDTO small = book("booker", 2);
+        book("booker", 4);
+        WaitlistEntryDTO first = join("first", 5);
+        WaitlistEntryDTO second = join("second", 3);
+        WaitlistEntryDTO third = join("third", 1);
+        
+        bookingService.cancelBooking(small.getId(), "booker", false);
+        
+        // two seats are back, too few for the head, and nobody else may have them yet
+        assertThat(status(first.getId())).isEqualTo(WaitlistEntry.WaitlistStatus.WAITING);
+        assertThat(status(third.getId())).isEqualTo(WaitlistEntry.WaitlistStatus.WAITING);
+        assertThat(seatsLeft()).isEqualTo(2);
+        assertThatThrownBy(() -> book("booker", 1))
+                .hasMessage("Customers are waiting for this tour, please join the waitlist");
+        
+        WaitlistEntry head = waitlistRepository.findById(first.getId()).orElseThrow();
+        head.setHeldUntil(LocalDateTime.now().minusMinutes(1));
+        waitlistRepository.save(head);
+        assertThat(waitlistService.releaseExpiredHolds()).isEqualTo(1);
+        
+        // the head keeps its place, the party of three still does not fit, the single does
+        assertThat(status(first.getId())).isEqualTo(WaitlistEntry.WaitlistStatus.WAITING);
+        assertThat(status(second.getId())).isEqualTo(WaitlistEntry.WaitlistStatus.WAITING);
+        assertThat(status(third.getId())).isEqualTo(WaitlistEntry.WaitlistStatus.OFFERED);
+        assertThat(seatsLeft()).isEqualTo(1);
+        
+        // nobody left in the queue can use the last seat, so it is bookable again
+        assertThat(book("booker", 1).getStatus()).isEqualTo("PENDING");
+        assertThat(seatsLeft()).isZero();
+    }
+    
+    @Test
+    void offersOnToursNoLongerRunningCannotBeClaimed() {
+        tour.setStatus(Tour.TourStatus.CANCELLED);
+        tour = tourRepository.save(tour);
+        WaitlistEntry offer = new WaitlistEntry();
+        offer.setTour(tour);
+        offer.setCustomer(userRepository.findByUsername("first").orElseThrow());
+        offer.setNumberOfPeople(2);
+        offer.setStatus(WaitlistEntry.WaitlistStatus.OFFERED);
+        offer.setOfferExpiresAt(LocalDateTime.now().plusMinutes(10));
+        offer = waitlistRepository.save(offer);
+        Long offerId = offer.getId();
+        
+        assertThatThrownBy(() -> waitlistService.claim(offerId, "first")).hasMessage("Tour is not open for booking");
+        assertThat(status(offerId)).isEqualTo(WaitlistEntry.WaitlistStatus.OFFERED);
+        assertThat(bookingRepository.count()).isZero();
+    }
+    
+    private void customer(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("secret");
+        user.setFullName(username);
+        userRepository.save(user);
+    }
+    
+    private BookingDTO book(String username, int people) {
+        BookingDTO request = new BookingDTO();
+        request.setTourId(tour.getId());
+        request.setNumberOfPeople(people);
+        return bookingService.createBooking(request, username);
+    }
+    
+    private WaitlistEntryDTO join(String username, int people) {
+        WaitlistEntryDTO request = new WaitlistEntryDTO();
+        request.setTourId(tour.getId());
+        request.setNumberOfPeople(people);
+        return waitlistService.join(request, username);
+    }
+    
+    private WaitlistEntry.WaitlistStatus status(Long entryId) {
+        return waitlistRepository.findById(entryId).orElseThrow().getStatus();
+    }
+    
+    private int seatsLeft() {
+        return tourRepository.findById(tour.getId()).orElseThrow().getAvailableSeats();
+    }
+}
@@ -21,8 +21,10 @@ CREATE TABLE IF NOT EXISTS users (
     address TEXT,
     role ENUM('ADMIN', 'STAFF', 'CUSTOMER') NOT NULL DEFAULT 'CUSTOMER',
     active BOOLEAN NOT NULL DEFAULT TRUE,
+    token_version INT NOT NULL DEFAULT 0,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    INDEX idx_users_created_at_id (created_at, id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 -- Table: tours
@@ -45,6 +47,14 @@ CREATE TABLE IF NOT EXISTS tours (
     category_id BIGINT,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0,
+    cover_image_id BIGINT,
+    INDEX idx_tours_created_at_id (created_at, id),
+    INDEX idx_tours_price_id (price, id),
+    INDEX idx_tours_status_start_date (status, start_date),
+    INDEX idx_tours_status_price (status, price),
+    INDEX idx_tours_category_status_start_date (category_id, status, start_date),
+    INDEX idx_tours_start_date_price (start_date, price),
     FOREIGN KEY (category_id) REFERENCES categories(id) ON DELETE SET NULL
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
@@ -58,8 +68,11 @@ CREATE TABLE IF NOT EXISTS bookings (
     status ENUM('PENDING', 'CONFIRMED', 'CANCELLED', 'COMPLETED') NOT NULL DEFAULT 'PENDING',
     payment_status ENUM('UNPAID', 'PARTIAL', 'PAID', 'REFUNDED') DEFAULT 'UNPAID',
     special_requests TEXT,
+    hold_expires_at TIMESTAMP NULL,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    INDEX idx_bookings_created_at_id (created_at, id),
+    INDEX idx_bookings_status_hold_expires_at (status, hold_expires_at),
     FOREIGN KEY (tour_id) REFERENCES tours(id) ON DELETE CASCADE,
     FOREIGN KEY (customer_id) REFERENCES users(id) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -71,11 +84,55 @@ CREATE TABLE IF NOT EXISTS payments (
     amount DECIMAL(10,2) NOT NULL,
     payment_method ENUM('CASH', 'CREDIT_CARD', 'DEBIT_CARD', 'BANK_TRANSFER', 'E_WALLET') NOT NULL,
     status ENUM('PENDING', 'COMPLETED', 'FAILED', 'REFUNDED') NOT NULL DEFAULT 'PENDING',
-    transaction_id VARCHAR(100),
+    transaction_id VARCHAR(100) COLLATE utf8mb4_bin,
     payment_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE KEY uk_payments_transaction_id (transaction_id),
+    INDEX idx_payments_booking_id (booking_id),
     FOREIGN KEY (booking_id) REFERENCES bookings(id) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
+-- Table: waitlist_entries
+CREATE TABLE IF NOT EXISTS waitlist_entries (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    tour_id BIGINT NOT NULL,
+    customer_id BIGINT NOT NULL,
+    number_of_people INT NOT NULL,
+    status ENUM('WAITING', 'OFFERED', 'CLAIMED', 'EXPIRED', 'CANCELLED') NOT NULL DEFAULT 'WAITING',
+    offer_expires_at TIMESTAMP NULL,
+    held_until TIMESTAMP NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_waitlist_tour_status_id (tour_id, status, id),
+    INDEX idx_waitlist_status_offer_expires_at (status, offer_expires_at),
+    INDEX idx_waitlist_status_held_until (status, held_until),
+    FOREIGN KEY (tour_id) REFERENCES tours(id) ON DELETE CASCADE,
+    FOREIGN KEY (customer_id) REFERENCES users(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Table: outbox_events
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    event_type VARCHAR(40) NOT NULL,
+    aggregate_id BIGINT NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Table: tour_images
+CREATE TABLE IF NOT EXISTS tour_images (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    tour_id BIGINT NOT NULL,
+    original_filename VARCHAR(255),
+    content_type VARCHAR(50) NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    width INT,
+    height INT,
+    status VARCHAR(20) NOT NULL DEFAULT 'PROCESSING',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_tour_images_tour_id_id (tour_id, id),
+    INDEX idx_tour_images_status (status),
+    FOREIGN KEY (tour_id) REFERENCES tours(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
 -- Insert sample categories
 INSERT INTO categories (name, description) VALUES
 ('Du lịch biển', 'Các tour du lịch tới các bãi biển đẹp'),